@@ -0,0 +1,59 @@
+package com.automation.benchmarks;
+
+import com.automation.config.DriverConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a configuration file and the lookups the framework does on every screen and wait.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriverConfigBenchmark {
+    private static final String CONFIG_FILE = "androidCapabilities.yaml";
+
+    private Constructor<DriverConfig> constructor;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        // Instances are cached per file, so loading is measured through the private constructor
+        constructor = DriverConfig.class.getDeclaredConstructor(String.class);
+        constructor.setAccessible(true);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public DriverConfig load() throws ReflectiveOperationException {
+        return constructor.newInstance(CONFIG_FILE);
+    }
+
+    @Benchmark
+    public DriverConfig getInstance() {
+        return DriverConfig.getInstance(CONFIG_FILE);
+    }
+
+    @Benchmark
+    public void typedLookups(Blackhole blackhole) {
+        DriverConfig config = DriverConfig.getInstance(CONFIG_FILE);
+        blackhole.consume(config.getTimeouts().getExplicitWait());
+        blackhole.consume(config.getCapabilities());
+        blackhole.consume(config.isServerSideWaitEnabled());
+        blackhole.consume(config.getProperty("appiumServerURL"));
+    }
+}
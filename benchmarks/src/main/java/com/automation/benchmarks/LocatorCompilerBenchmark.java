@@ -0,0 +1,57 @@
+package com.automation.benchmarks;
+
+import com.automation.locators.CompiledLocator;
+import com.automation.locators.LocatorCompiler;
+import io.appium.java_client.pagefactory.AndroidFindBy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures translating a screen locator into the lookup command sent to the server,
+ * for a simple XPath (rewritten to UiAutomator), a compound one, and a field already compiled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocatorCompilerBenchmark {
+
+    @AndroidFindBy(xpath = "//*[@resource-id='email_phone_input']")
+    WebElement emailField;
+
+    private Field field;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        field = LocatorCompilerBenchmark.class.getDeclaredField("emailField");
+    }
+
+    @Benchmark
+    public CompiledLocator simpleXpath() {
+        return LocatorCompiler.compileXpath("//*[@resource-id='email_phone_input']");
+    }
+
+    @Benchmark
+    public CompiledLocator compoundXpath() {
+        return LocatorCompiler.compileXpath("//android.widget.ImageView[@resource-id='image' and @enabled='true']");
+    }
+
+    @Benchmark
+    public CompiledLocator cachedField() {
+        return LocatorCompiler.compile(field);
+    }
+}
@@ -0,0 +1,34 @@
+package com.automation.benchmarks;
+
+import com.automation.mock.MockAppiumServer;
+import io.appium.java_client.AppiumDriver;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * MockServerSession holds one Appium session on an embedded {@link MockAppiumServer}, without simulated latency,
+ * for the whole benchmark run.
+ */
+@State(Scope.Benchmark)
+public class MockServerSession {
+    MockAppiumServer server;
+    AppiumDriver driver;
+
+    @Setup
+    public void start() {
+        server = new MockAppiumServer("mockApp.xml", 0, command -> 0L);
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setCapability("platformName", "Android");
+        capabilities.setCapability("appium:automationName", "UiAutomator2");
+        driver = new AppiumDriver(server.getUrl(), capabilities);
+    }
+
+    @TearDown
+    public void stop() {
+        driver.quit();
+        server.stop();
+    }
+}
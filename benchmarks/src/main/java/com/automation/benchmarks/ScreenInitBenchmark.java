@@ -0,0 +1,72 @@
+package com.automation.benchmarks;
+
+import com.automation.screens.LoginScreen;
+import com.automation.screens.OnboardingScreen;
+import io.appium.java_client.pagefactory.AndroidFindBy;
+import io.appium.java_client.pagefactory.AppiumFieldDecorator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.PageFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the screen objects, i.e. PageFactory.initElements with the framework's decorator,
+ * against the stock AppiumFieldDecorator as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScreenInitBenchmark {
+
+    @Benchmark
+    public LoginScreen loginScreen(MockServerSession session) {
+        return new LoginScreen(session.driver);
+    }
+
+    @Benchmark
+    public OnboardingScreen onboardingScreen(MockServerSession session) {
+        return new OnboardingScreen(session.driver);
+    }
+
+    @Benchmark
+    public StockLoginScreen loginScreenWithAppiumFieldDecorator(MockServerSession session) {
+        StockLoginScreen screen = new StockLoginScreen();
+        PageFactory.initElements(new AppiumFieldDecorator(session.driver), screen);
+        return screen;
+    }
+
+    /**
+     * The fields of LoginScreen, decorated by the stock AppiumFieldDecorator.
+     */
+    public static class StockLoginScreen {
+        @AndroidFindBy(xpath = "//android.widget.TextView[@text='Log in']")
+        WebElement loginScreen;
+
+        @AndroidFindBy(xpath = "//*[@resource-id='header']")
+        WebElement headerSection;
+
+        @AndroidFindBy(xpath = "//*[@resource-id='email_phone_input']")
+        WebElement emailField;
+
+        @AndroidFindBy(xpath = "//*[@resource-id='primary_button']")
+        WebElement emailNext;
+
+        @AndroidFindBy(xpath = "//*[@resource-id='password_input']")
+        WebElement passwordField;
+
+        @AndroidFindBy(xpath = "//*[@resource-id='manage_profiles_button']")
+        WebElement manageProfilesButton;
+
+        @AndroidFindBy(xpath = "//android.widget.ImageView[@resource-id='image' and @enabled='true']")
+        WebElement profile;
+    }
+}
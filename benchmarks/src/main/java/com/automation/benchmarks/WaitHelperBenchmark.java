@@ -0,0 +1,66 @@
+package com.automation.benchmarks;
+
+import com.automation.locators.ScreenFieldDecorator;
+import com.automation.utils.ElementState;
+import com.automation.utils.WaitHelper;
+import io.appium.java_client.pagefactory.AndroidFindBy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a wait costs on top of the commands it sends, when the condition already holds:
+ * the polling loop alone, a visibility wait on a screen field, and WebDriverWait for the same check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WaitHelperBenchmark {
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    @AndroidFindBy(id = "com.crunchyroll.crunchyroid:id/onboarding_logo")
+    WebElement logo;
+
+    private WaitHelper waitHelper;
+    private WebDriverWait webDriverWait;
+
+    @Setup
+    public void setUp(MockServerSession session) {
+        waitHelper = new WaitHelper();
+        webDriverWait = new WebDriverWait(session.driver, TIMEOUT);
+        PageFactory.initElements(new ScreenFieldDecorator(session.driver), this);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Boolean untilAlreadyTrue() {
+        return waitHelper.until(() -> Boolean.TRUE, TIMEOUT, "condition");
+    }
+
+    @Benchmark
+    public ElementState waitForVisibility() {
+        return waitHelper.waitForVisibility(logo, TIMEOUT);
+    }
+
+    @Benchmark
+    public WebElement webDriverWaitForVisibility() {
+        return webDriverWait.until(ExpectedConditions.visibilityOf(logo));
+    }
+}
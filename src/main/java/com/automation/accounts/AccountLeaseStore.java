@@ -0,0 +1,253 @@
+package com.automation.accounts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AccountLeaseStore marks the accounts in use with one lease file each, so two runs sharing the directory,
+ * in parallel or one after a crash of the other, never use the same account at once.
+ * <p>
+ * A lease is written and synced to a temporary file first, then linked into place, which fails if a lease exists,
+ * so a lease file is never seen half-written and only one claimant creates it. It holds the process and host
+ * owning it. A lease left behind by a process that is gone (same host) or older than "accountLeaseExpiry"
+ * (other hosts) is taken over; a lease missing these fields, e.g. written by an older version, is live until
+ * its file is older than the expiry. The takeover renames the stale file first, so only one claimant wins it,
+ * and puts it back if it turns out to be a new lease written since it was judged stale.
+ */
+final class AccountLeaseStore {
+    private static final Logger logger = LoggerFactory.getLogger(AccountLeaseStore.class);
+
+    private static final long PID = ProcessHandle.current().pid();
+    private static final String HOST = hostName();
+
+    private final Path directory;
+    private final long expiryMillis;
+    // Lease file -> its content, to tell it apart from a lease written over it
+    private final Map<Path, String> held = new ConcurrentHashMap<>();
+
+    AccountLeaseStore(Path directory, Duration expiry) {
+        this.directory = directory;
+        this.expiryMillis = expiry.toMillis();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create the account lease directory " + directory, e);
+        }
+    }
+
+    /**
+     * Takes the lease of an account, if no live process holds it.
+     *
+     * @return true if the lease is now held by this process.
+     */
+    boolean tryAcquire(String userType, String account) {
+        Path file = leaseFile(userType, account);
+        if (create(file, userType, account)) {
+            return true;
+        }
+        String stale = read(file);
+        if (stale == null || !isStale(file, stale)) {
+            return false;
+        }
+        Path abandoned = claimFile(file, ".stale");
+        try {
+            Files.move(file, abandoned, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Another claimant took it over first
+            return false;
+        }
+        if (!stale.equals(read(abandoned))) {
+            // Another claimant took it over and wrote a new lease between the check and the rename
+            restore(abandoned, file);
+            return false;
+        }
+        deleteQuietly(abandoned);
+        logger.warn("Took over the abandoned lease of {} account {}", userType, account);
+        return create(file, userType, account);
+    }
+
+    /**
+     * Gives up the lease of an account held by this process.
+     */
+    void release(String userType, String account) {
+        Path file = leaseFile(userType, account);
+        String lease = held.remove(file);
+        if (lease != null) {
+            deleteIfOwned(file, lease);
+        }
+    }
+
+    /**
+     * Gives up every lease held by this process, e.g. when the JVM exits.
+     */
+    void releaseAll() {
+        for (Path file : held.keySet()) {
+            String lease = held.remove(file);
+            if (lease != null) {
+                deleteIfOwned(file, lease);
+            }
+        }
+    }
+
+    private boolean create(Path file, String userType, String account) {
+        String lease = "pid=" + PID + "\nhost=" + HOST + "\nsince=" + System.currentTimeMillis()
+                + "\nuserType=" + userType + "\naccount=" + account + "\n";
+        Path temp = claimFile(file, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lease.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // A crash right after the checkout must still find the lease on disk
+                channel.force(true);
+            }
+            publish(temp, file);
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write the account lease " + file, e);
+        } finally {
+            deleteQuietly(temp);
+        }
+        held.put(file, lease);
+        return true;
+    }
+
+    /**
+     * Puts a complete lease in place, failing if a lease exists. A hard link is created atomically or not at all;
+     * a move without REPLACE_EXISTING checks the target first, so it is only used where links are not supported.
+     */
+    private static void publish(Path source, Path file) throws IOException {
+        try {
+            Files.createLink(file, source);
+        } catch (UnsupportedOperationException e) {
+            Files.move(source, file);
+        }
+    }
+
+    /**
+     * @return A file next to a lease that only the calling thread of this process uses.
+     */
+    private static Path claimFile(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + "." + PID + "-" + Thread.currentThread().threadId() + suffix);
+    }
+
+    private static void restore(Path abandoned, Path file) {
+        try {
+            publish(abandoned, file);
+        } catch (IOException e) {
+            logger.warn("Failed to restore the account lease {}: {}", file, e.getMessage());
+        } finally {
+            deleteQuietly(abandoned);
+        }
+    }
+
+    private boolean isStale(Path file, String content) {
+        Properties lease = new Properties();
+        try {
+            lease.load(new StringReader(content));
+        } catch (IOException | IllegalArgumentException e) {
+            lease.clear();
+        }
+        try {
+            long pid = Long.parseLong(lease.getProperty("pid"));
+            long since = Long.parseLong(lease.getProperty("since"));
+            String host = lease.getProperty("host");
+            if (host == null) {
+                return isExpired(file);
+            }
+            if (HOST.equals(host)) {
+                return pid != PID && !ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+            }
+            return System.currentTimeMillis() - since > expiryMillis;
+        } catch (NumberFormatException e) {
+            // Missing or garbled fields: the owner is unknown, so only its age tells
+            return isExpired(file);
+        }
+    }
+
+    private boolean isExpired(Path file) {
+        try {
+            return System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > expiryMillis;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The content of a lease file, null if it is gone or unreadable.
+     */
+    private static String read(Path file) {
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Failed to read the account lease {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void deleteIfOwned(Path file, String lease) {
+        if (lease.equals(read(file))) {
+            deleteQuietly(file);
+        } else {
+            logger.warn("The account lease {} was taken over by another run, leaving it in place", file);
+        }
+    }
+
+    private Path leaseFile(String userType, String account) {
+        return directory.resolve(userType.replaceAll("[^A-Za-z0-9_-]", "_") + "-" + digest(account) + ".lease");
+    }
+
+    private static String digest(String account) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(account.getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete the account lease {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
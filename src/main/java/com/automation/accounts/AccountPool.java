@@ -0,0 +1,163 @@
+package com.automation.accounts;
+
+import com.automation.config.AccountConfig;
+import com.automation.config.DriverConfig;
+import com.automation.config.UserCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AccountPool leases a distinct test account to each session, so parallel sessions never log into the same
+ * account and collide on its state (profile limits, concurrent logins...).
+ * <p>
+ * The accounts are loaded once from the configured {@link AccountSource}. A thread leasing an account of a user
+ * type keeps it until it releases it, the same way it keeps its device in the DriverPool; asking again returns
+ * the same account. Free accounts sit in lock-free queues, so checkout and return never block other threads;
+ * a thread finding none free polls until one is returned or "accountLeaseTimeout" passes. Every lease is also
+ * written to an {@link AccountLeaseStore}, so another run sharing "accountLeaseDir" skips the accounts in use
+ * and a run that crashed does not lock its accounts forever.
+ */
+public final class AccountPool {
+    private static final Logger logger = LoggerFactory.getLogger(AccountPool.class);
+
+    private static final long MIN_POLL_MILLIS = 10;
+    private static final long MAX_POLL_MILLIS = 500;
+
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+    private static volatile AccountPool instance;
+
+    private final Map<String, Queue<UserCredentials>> freeAccounts = new ConcurrentHashMap<>();
+    private final Map<String, Integer> poolSizes = new HashMap<>();
+    private final ThreadLocal<Map<String, UserCredentials>> leased = new ThreadLocal<>();
+    private final AccountLeaseStore leases;
+    private final long leaseTimeoutMillis;
+
+    private AccountPool(DriverConfig config) {
+        AccountConfig accountConfig = config.getAccountPool();
+        this.leaseTimeoutMillis = config.getTimeouts().getAccountLeaseTimeout().toMillis();
+        this.leases = new AccountLeaseStore(Paths.get(accountConfig.getLeaseDirectory()),
+                config.getTimeouts().getAccountLeaseExpiry());
+        createSource(accountConfig.getSource()).load().forEach((userType, accounts) -> {
+            freeAccounts.put(userType, new ConcurrentLinkedQueue<>(accounts));
+            poolSizes.put(userType, accounts.size());
+        });
+        logger.info("Account pool loaded from {}: {}", accountConfig.getSource(), poolSizes);
+        Runtime.getRuntime().addShutdownHook(new Thread(leases::releaseAll, "account-pool-shutdown"));
+    }
+
+    public static AccountPool getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new AccountPool(DriverConfig.getInstance("androidCapabilities.yaml"));
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Leases an account of a user type to the calling thread, waiting for one to be returned if all are in use.
+     *
+     * @param userType The type of user, e.g. "free" or "premium".
+     * @return The account, the same one until the thread releases it, or null if the user type has no accounts.
+     */
+    public UserCredentials lease(String userType) {
+        Map<String, UserCredentials> accounts = leased.get();
+        if (accounts != null && accounts.containsKey(userType)) {
+            return accounts.get(userType);
+        }
+        Queue<UserCredentials> free = freeAccounts.get(userType);
+        if (free == null || poolSizes.get(userType) == 0) {
+            logger.warn("No accounts configured for user type: {}", userType);
+            return null;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMillis);
+        long pollMillis = MIN_POLL_MILLIS;
+        while (true) {
+            UserCredentials account = checkout(userType, free);
+            if (account != null) {
+                if (accounts == null) {
+                    accounts = new HashMap<>();
+                    leased.set(accounts);
+                }
+                accounts.put(userType, account);
+                logger.info("Thread {} leased {} account {}", Thread.currentThread().getName(), userType,
+                        account.getEmail());
+                return account;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new RuntimeException("No " + userType + " account became free within "
+                        + leaseTimeoutMillis / 1000 + " seconds; all " + poolSizes.get(userType)
+                        + " are leased. Add accounts to the pool or lower the parallelism");
+            }
+            sleep(pollMillis);
+            pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+        }
+    }
+
+    /**
+     * Returns the accounts leased by the calling thread to the pool.
+     */
+    public void releaseThread() {
+        Map<String, UserCredentials> accounts = leased.get();
+        if (accounts == null) {
+            return;
+        }
+        leased.remove();
+        accounts.forEach((userType, account) -> {
+            leases.release(userType, account.getEmail());
+            freeAccounts.get(userType).offer(account);
+            logger.info("Released {} account {}", userType, account.getEmail());
+        });
+    }
+
+    /**
+     * Takes the first free account whose lease this process gets, going once around the queue.
+     * An account leased by another run goes back to the end of the queue.
+     */
+    private UserCredentials checkout(String userType, Queue<UserCredentials> free) {
+        int size = poolSizes.get(userType);
+        for (int i = 0; i < size; i++) {
+            UserCredentials account = free.poll();
+            if (account == null) {
+                return null;
+            }
+            if (leases.tryAcquire(userType, account.getEmail())) {
+                return account;
+            }
+            free.offer(account);
+        }
+        return null;
+    }
+
+    private static AccountSource createSource(String className) {
+        try {
+            return (AccountSource) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new RuntimeException("Failed to create the account source " + className, e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a free account", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.automation.accounts;
+
+import com.automation.config.UserCredentials;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AccountSource supplies the test accounts the {@link AccountPool} leases to sessions. It is loaded once per run.
+ * <p>
+ * Implementations need a public no-argument constructor and are selected with "accountSource", e.g. to pull
+ * pre-provisioned accounts from a test data service instead of "credentials.yaml".
+ */
+public interface AccountSource {
+    /**
+     * Loads the accounts.
+     *
+     * @return The accounts by user type (e.g. "free", "premium").
+     */
+    Map<String, List<UserCredentials>> load();
+}
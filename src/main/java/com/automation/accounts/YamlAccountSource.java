@@ -0,0 +1,20 @@
+package com.automation.accounts;
+
+import com.automation.config.DriverConfig;
+import com.automation.config.UserCredentials;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * YamlAccountSource reads the accounts of "credentials.yaml": one account per user type, or a pool of them
+ * listed under "accounts".
+ */
+public class YamlAccountSource implements AccountSource {
+    private static final String CREDENTIALS_FILE = "credentials.yaml";
+
+    @Override
+    public Map<String, List<UserCredentials>> load() {
+        return DriverConfig.getInstance(CREDENTIALS_FILE).getUsers();
+    }
+}
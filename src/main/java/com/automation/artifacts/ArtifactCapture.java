@@ -0,0 +1,255 @@
+package com.automation.artifacts;
+
+import com.automation.config.ArtifactConfig;
+import com.automation.config.DriverConfig;
+import com.automation.driver.DriverPool;
+import com.automation.logging.TestEvents;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.OutputType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ArtifactCapture saves a screenshot and the page source of a device when a test fails, or after the steps listed
+ * in "artifactsSteps" pass.
+ * <p>
+ * The test thread only fetches the base64 screenshot and the page source from the device and queues them;
+ * decoding, hashing, compression and the disk writes run on a single "artifact-writer" thread, in an
+ * {@link ArtifactStore} for the run's directory under "artifactsDir". When the writer falls behind by
+ * "artifactsQueueSize" captures, new captures are dropped rather than holding up the tests. Only the newest
+ * "artifactsKeepRuns" run directories are kept.
+ */
+public final class ArtifactCapture {
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactCapture.class);
+
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+    private static volatile ArtifactCapture instance;
+
+    private static final DateTimeFormatter RUN_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final ArtifactConfig config;
+    private final BlockingQueue<Capture> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    // Locks rather than monitors, so a virtual test thread waiting in flush() does not pin its carrier
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private final Condition written = writerLock.newCondition();
+    private Thread writer;
+    private ArtifactStore store;
+    private int pending;
+
+    private ArtifactCapture(ArtifactConfig config) {
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueSize()));
+    }
+
+    public static ArtifactCapture getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new ArtifactCapture(
+                            DriverConfig.getInstance("androidCapabilities.yaml").getArtifacts());
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Captures the device of a failed test, if "artifactsOnFailure" is on.
+     *
+     * @param driver The driver the test ran on, may be null if it holds no session.
+     * @param test   Name of the test, e.g. "LoginScreenTest.verifyHeaderText".
+     */
+    public void captureFailure(AppiumDriver driver, String test) {
+        if (config.isOnFailure()) {
+            capture(driver, test, "failure");
+        }
+    }
+
+    /**
+     * Captures the device of the calling thread after a step passed, if the step is listed in "artifactsSteps".
+     *
+     * @param step Name of the step, e.g. "LoginScreen.submitPassword".
+     */
+    public void captureStep(String step) {
+        if (config.getSteps().contains(step)) {
+            capture(DriverPool.getInstance().getLeasedDriver(), step, "step");
+        }
+    }
+
+    /**
+     * Waits until every queued capture is written and closes the manifest of the run.
+     */
+    public void flush() {
+        writerLock.lock();
+        try {
+            while (pending > 0) {
+                written.await(1, TimeUnit.SECONDS);
+            }
+            if (store != null) {
+                logger.info("Artifacts: {} bytes written, {} duplicate(s) linked, {} evicted, {} dropped",
+                        store.getTotalBytes(), store.getDuplicates(), store.getEvicted(), dropped.get());
+                // Nothing is queued while the lock is held, so the writer thread is not using the store
+                store.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private void capture(AppiumDriver driver, String name, String reason) {
+        if (driver == null || driver.getSessionId() == null) {
+            logger.debug("No session to capture for {}", name);
+            return;
+        }
+        String screenshot;
+        String pageSource;
+        try {
+            screenshot = driver.getScreenshotAs(OutputType.BASE64);
+            pageSource = driver.getPageSource();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to capture {} for {}: {}", reason, name, e.getMessage());
+            return;
+        }
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("name", name);
+        metadata.put("reason", reason);
+        metadata.put("test", MDC.get(TestEvents.TEST));
+        metadata.put("device", MDC.get(TestEvents.DEVICE));
+        metadata.put("time", System.currentTimeMillis());
+        metadata.values().removeIf(value -> value == null);
+        writerLock.lock();
+        try {
+            startWriter();
+            if (!queue.offer(new Capture(name, screenshot, pageSource, metadata))) {
+                dropped.incrementAndGet();
+                logger.warn("Artifact queue full, dropped the capture of {}", name);
+                return;
+            }
+            pending++;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private void startWriter() {
+        if (writer == null) {
+            writer = new Thread(this::write, "artifact-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private void write() {
+        while (true) {
+            Capture capture;
+            try {
+                capture = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (store == null) {
+                    store = new ArtifactStore(createRunDirectory(), config.getMaxBytes());
+                }
+                store.store(capture.name, "png", Base64.getMimeDecoder().decode(capture.screenshot),
+                        withKind(capture.metadata, "screenshot"));
+                store.storeCompressed(capture.name, "xml", capture.pageSource.getBytes(StandardCharsets.UTF_8),
+                        withKind(capture.metadata, "pageSource"));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to write the artifacts of {}: {}", capture.name, e.getMessage());
+            } finally {
+                writerLock.lock();
+                try {
+                    pending--;
+                    written.signalAll();
+                } finally {
+                    writerLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the directory of this run and deletes the oldest runs beyond "artifactsKeepRuns".
+     */
+    private Path createRunDirectory() throws IOException {
+        Path root = Paths.get(config.getDirectory());
+        Path run = root.resolve(LocalDateTime.now().format(RUN_NAME));
+        Files.createDirectories(run);
+        List<Path> runs;
+        try (Stream<Path> children = Files.list(root)) {
+            runs = children.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        }
+        for (int i = 0; i < runs.size() - Math.max(1, config.getKeepRuns()); i++) {
+            deleteRecursively(runs.get(i));
+        }
+        logger.info("Writing artifacts to {}", run);
+        return run;
+    }
+
+    private static void deleteRecursively(Path directory) {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(paths::add);
+        } catch (IOException e) {
+            logger.warn("Failed to list old artifacts in {}: {}", directory, e.getMessage());
+            return;
+        }
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Failed to delete old artifact {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private static Map<String, Object> withKind(Map<String, Object> metadata, String kind) {
+        Map<String, Object> copy = new HashMap<>(metadata);
+        copy.put("kind", kind);
+        return copy;
+    }
+
+    private static final class Capture {
+        private final String name;
+        private final String screenshot;
+        private final String pageSource;
+        private final Map<String, Object> metadata;
+
+        private Capture(String name, String screenshot, String pageSource, Map<String, Object> metadata) {
+            this.name = name;
+            this.screenshot = screenshot;
+            this.pageSource = pageSource;
+            this.metadata = metadata;
+        }
+    }
+}
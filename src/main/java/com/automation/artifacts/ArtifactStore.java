@@ -0,0 +1,210 @@
+package com.automation.artifacts;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ArtifactStore writes the artifacts of one run into its directory.
+ * <p>
+ * Identical content is stored once: an artifact whose SHA-256 matches one already on disk only gets a manifest
+ * entry pointing at the existing file. Files are written through NIO channels, text artifacts gzip-compressed.
+ * When the run directory grows past its budget, the oldest artifacts are deleted first. Every artifact is listed
+ * in "manifest.jsonl" with the test, device and label it was captured for, and every deleted file with "evicted",
+ * since the earlier entries of its content, duplicates included, still name it.
+ * <p>
+ * Not thread-safe: the store is only used by the capture writer thread.
+ */
+final class ArtifactStore {
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactStore.class);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Path> filesByHash = new HashMap<>();
+    private final Deque<StoredFile> files = new ArrayDeque<>();
+    private final Json json = new Json();
+    private FileChannel manifest;
+    private long totalBytes;
+    private long sequence;
+    private long duplicates;
+    private long evicted;
+
+    ArtifactStore(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Stores a binary artifact as is, e.g. a PNG screenshot.
+     *
+     * @return The file holding the content.
+     */
+    Path store(String name, String extension, byte[] content, Map<String, Object> metadata) throws IOException {
+        return store(name, extension, content, false, metadata);
+    }
+
+    /**
+     * Stores a text artifact gzip-compressed, e.g. a page source.
+     *
+     * @return The file holding the content.
+     */
+    Path storeCompressed(String name, String extension, byte[] content, Map<String, Object> metadata)
+            throws IOException {
+        return store(name, extension + ".gz", content, true, metadata);
+    }
+
+    long getDuplicates() {
+        return duplicates;
+    }
+
+    long getEvicted() {
+        return evicted;
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Closes the manifest; a later artifact opens it again.
+     */
+    void close() {
+        if (manifest != null) {
+            try {
+                manifest.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the artifact manifest: {}", e.getMessage());
+            }
+            manifest = null;
+        }
+    }
+
+    private Path store(String name, String extension, byte[] content, boolean compress, Map<String, Object> metadata)
+            throws IOException {
+        String hash = sha256(content);
+        Path file = filesByHash.get(hash);
+        boolean duplicate = file != null;
+        if (duplicate) {
+            duplicates++;
+        } else {
+            Files.createDirectories(directory);
+            file = directory.resolve(String.format("%05d-%s.%s", ++sequence, sanitize(name), extension));
+            long size = compress ? writeCompressed(file, content) : write(file, content);
+            filesByHash.put(hash, file);
+            files.addLast(new StoredFile(file, hash, size));
+            totalBytes += size;
+            evictOverBudget();
+        }
+        Map<String, Object> entry = new HashMap<>(metadata);
+        entry.put("file", directory.relativize(file).toString());
+        entry.put("sha256", hash);
+        entry.put("duplicate", duplicate);
+        appendToManifest(entry);
+        return file;
+    }
+
+    private static long write(Path file, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return channel.size();
+        }
+    }
+
+    private static long writeCompressed(Path file, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            try (OutputStream output = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024)) {
+                output.write(content);
+            }
+            return Files.size(file);
+        }
+    }
+
+    /**
+     * Deletes the oldest artifacts until the run fits its budget again, keeping at least the newest one.
+     */
+    private void evictOverBudget() throws IOException {
+        while (totalBytes > maxBytes && files.size() > 1) {
+            StoredFile oldest = files.removeFirst();
+            try {
+                Files.deleteIfExists(oldest.path);
+            } catch (IOException e) {
+                logger.warn("Failed to evict artifact {}: {}", oldest.path, e.getMessage());
+            }
+            filesByHash.remove(oldest.hash);
+            totalBytes -= oldest.size;
+            evicted++;
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("file", directory.relativize(oldest.path).toString());
+            entry.put("sha256", oldest.hash);
+            entry.put("evicted", true);
+            entry.put("time", System.currentTimeMillis());
+            appendToManifest(entry);
+            logger.debug("Evicted artifact {} to stay within {} bytes", oldest.path, maxBytes);
+        }
+    }
+
+    private void appendToManifest(Map<String, Object> entry) throws IOException {
+        if (manifest == null) {
+            manifest = FileChannel.open(directory.resolve("manifest.jsonl"), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        StringBuilder line = new StringBuilder();
+        try (JsonOutput output = json.newOutput(line)) {
+            output.setPrettyPrint(false).write(entry);
+        }
+        line.append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            manifest.write(buffer);
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte value : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(String.format("%02x", value));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class StoredFile {
+        private final Path path;
+        private final String hash;
+        private final long size;
+
+        private StoredFile(Path path, String hash, long size) {
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.automation.auth;
+
+import com.automation.config.AuthSnapshotConfig;
+import com.automation.config.DriverConfig;
+import com.automation.config.UserCredentials;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AuthSnapshots lets a session skip the login flow of the UI: the first login of an account through the UI is
+ * followed by a snapshot of the app data files holding it ("authSnapshotFiles"), and the next sessions using the
+ * account get these files pushed into the stopped app before it is launched.
+ * <p>
+ * Reading and writing the app data needs a debuggable build of the app. The snapshots hold session tokens, so
+ * they only live in memory for the run and are never written to disk. A snapshot that fails to restore or no
+ * longer logs in is dropped, and the next login of the account goes through the UI again.
+ */
+public final class AuthSnapshots {
+    private static final Logger logger = LoggerFactory.getLogger(AuthSnapshots.class);
+
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+    private static volatile AuthSnapshots instance;
+
+    private final boolean enabled;
+    private final List<String> files;
+    private final String appPackage;
+    // "userType/email" -> remote path -> base64 content
+    private final Map<String, Map<String, String>> snapshots = new ConcurrentHashMap<>();
+
+    private AuthSnapshots(DriverConfig config) {
+        AuthSnapshotConfig snapshotConfig = config.getAuthSnapshots();
+        this.enabled = snapshotConfig.isEnabled();
+        this.files = snapshotConfig.getFiles();
+        this.appPackage = String.valueOf(config.getProperty("appPackage"));
+        if (enabled) {
+            logger.info("Authenticated-state snapshots enabled for {} in {}", files, appPackage);
+        }
+    }
+
+    public static AuthSnapshots getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new AuthSnapshots(DriverConfig.getInstance("androidCapabilities.yaml"));
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Snapshots the login of an account the app has just completed through the UI.
+     * A file that cannot be read leaves the account without a snapshot.
+     *
+     * @param driver   The session the account is logged in on.
+     * @param userType The type of user, e.g. "free" or "premium".
+     * @param account  The account logged in.
+     */
+    public void capture(AppiumDriver driver, String userType, UserCredentials account) {
+        String key = key(userType, account);
+        if (!enabled || snapshots.containsKey(key)) {
+            return;
+        }
+        Map<String, String> contents = new LinkedHashMap<>();
+        try {
+            for (String file : files) {
+                Object content = driver.executeScript("mobile: pullFile", Map.of("remotePath", remotePath(file)));
+                contents.put(remotePath(file), String.valueOf(content));
+            }
+        } catch (WebDriverException e) {
+            logger.warn("Failed to snapshot the login of {} account {}: {}", userType, account.getEmail(),
+                    e.getMessage());
+            return;
+        }
+        snapshots.put(key, contents);
+        logger.info("Snapshotted the login of {} account {} ({} files)", userType, account.getEmail(),
+                contents.size());
+    }
+
+    /**
+     * Restores the snapshot of an account: stops the app, pushes the snapshotted files and launches it again.
+     * The caller still has to check that the app came up logged in.
+     *
+     * @return true if the snapshot was pushed, false if the account has none or restoring it failed.
+     */
+    public boolean restore(AppiumDriver driver, String userType, UserCredentials account) {
+        Map<String, String> contents = enabled ? snapshots.get(key(userType, account)) : null;
+        if (contents == null) {
+            return false;
+        }
+        try {
+            driver.executeScript("mobile: terminateApp", Map.of("appId", appPackage));
+            contents.forEach((remotePath, payload) ->
+                    driver.executeScript("mobile: pushFile", Map.of("remotePath", remotePath, "payload", payload)));
+            driver.executeScript("mobile: activateApp", Map.of("appId", appPackage));
+        } catch (WebDriverException e) {
+            logger.warn("Failed to restore the login of {} account {}: {}", userType, account.getEmail(),
+                    e.getMessage());
+            discard(userType, account);
+            try {
+                driver.executeScript("mobile: activateApp", Map.of("appId", appPackage));
+            } catch (WebDriverException activateFailure) {
+                // The UI login opens the app again
+                logger.warn("Failed to relaunch {} after the failed restore: {}", appPackage,
+                        activateFailure.getMessage());
+            }
+            return false;
+        }
+        logger.info("Restored the login of {} account {} from its snapshot", userType, account.getEmail());
+        return true;
+    }
+
+    /**
+     * Drops the snapshot of an account, e.g. when its session expired.
+     */
+    public void discard(String userType, UserCredentials account) {
+        if (snapshots.remove(key(userType, account)) != null) {
+            logger.info("Dropped the login snapshot of {} account {}", userType, account.getEmail());
+        }
+    }
+
+    private String remotePath(String file) {
+        return "@" + appPackage + "/" + file;
+    }
+
+    private static String key(String userType, UserCredentials account) {
+        return userType + "/" + account.getEmail();
+    }
+}
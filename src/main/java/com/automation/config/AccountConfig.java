@@ -0,0 +1,34 @@
+package com.automation.config;
+
+import java.util.Map;
+
+/**
+ * AccountConfig holds the settings of the test account pool, parsed once at load time.
+ */
+public final class AccountConfig {
+    private final String source;
+    private final String leaseDirectory;
+
+    AccountConfig(Map<String, Object> properties) {
+        Object sourceValue = properties.get("accountSource");
+        this.source = sourceValue == null || sourceValue.toString().trim().isEmpty()
+                ? "com.automation.accounts.YamlAccountSource" : sourceValue.toString().trim();
+        Object directoryValue = properties.get("accountLeaseDir");
+        this.leaseDirectory = directoryValue == null ? ".automation/account-leases" : directoryValue.toString();
+    }
+
+    /**
+     * @return Class name of the AccountSource the pool is loaded from ("accountSource", the accounts of
+     * "credentials.yaml" by default).
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return Directory of the lease files marking the accounts in use ("accountLeaseDir").
+     */
+    public String getLeaseDirectory() {
+        return leaseDirectory;
+    }
+}
@@ -0,0 +1,83 @@
+package com.automation.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ArtifactConfig holds the settings of screenshot and page source capture, parsed once at load time.
+ */
+public final class ArtifactConfig {
+    private final boolean onFailure;
+    private final List<String> steps;
+    private final String directory;
+    private final long maxBytes;
+    private final int keepRuns;
+    private final int queueSize;
+
+    ArtifactConfig(Map<String, Object> properties) {
+        Object onFailureValue = properties.get("artifactsOnFailure");
+        this.onFailure = onFailureValue == null || Boolean.parseBoolean(onFailureValue.toString().trim());
+        List<String> stepNames = new ArrayList<>();
+        Object stepsValue = properties.get("artifactsSteps");
+        if (stepsValue instanceof List) {
+            ((List<?>) stepsValue).forEach(step -> stepNames.add(String.valueOf(step)));
+        } else if (stepsValue != null) {
+            // Overrides from system properties or the environment come as "Screen.step,Screen.other"
+            for (String step : stepsValue.toString().split(",")) {
+                if (!step.trim().isEmpty()) {
+                    stepNames.add(step.trim());
+                }
+            }
+        }
+        this.steps = Collections.unmodifiableList(stepNames);
+        Object directoryValue = properties.get("artifactsDir");
+        this.directory = directoryValue == null ? "target/artifacts" : directoryValue.toString();
+        this.maxBytes = TimeoutConfig.parseLong(properties, "artifactsMaxMegabytes", 200) * 1024 * 1024;
+        this.keepRuns = (int) TimeoutConfig.parseLong(properties, "artifactsKeepRuns", 5);
+        this.queueSize = (int) TimeoutConfig.parseLong(properties, "artifactsQueueSize", 16);
+    }
+
+    /**
+     * @return true if a screenshot and the page source are captured when a test fails ("artifactsOnFailure", default true).
+     */
+    public boolean isOnFailure() {
+        return onFailure;
+    }
+
+    /**
+     * @return Steps captured after they pass, e.g. "LoginScreen.submitPassword" ("artifactsSteps").
+     */
+    public List<String> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return Directory holding one sub-directory per run ("artifactsDir", "target/artifacts" by default).
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return Disk budget of a run; the oldest artifacts are evicted beyond it ("artifactsMaxMegabytes", 200 MB).
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return Number of run directories kept, older ones are deleted ("artifactsKeepRuns", 5).
+     */
+    public int getKeepRuns() {
+        return keepRuns;
+    }
+
+    /**
+     * @return Captures waiting to be written before new ones are dropped ("artifactsQueueSize", 16).
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+}
@@ -0,0 +1,48 @@
+package com.automation.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AuthSnapshotConfig holds the settings of the authenticated-state snapshots, parsed once at load time.
+ */
+public final class AuthSnapshotConfig {
+    private final boolean enabled;
+    private final List<String> files;
+
+    AuthSnapshotConfig(Map<String, Object> properties) {
+        Object enabledValue = properties.get("authSnapshots");
+        this.enabled = enabledValue != null && Boolean.parseBoolean(enabledValue.toString().trim());
+        List<String> paths = new ArrayList<>();
+        Object filesValue = properties.get("authSnapshotFiles");
+        if (filesValue instanceof List) {
+            ((List<?>) filesValue).forEach(file -> paths.add(String.valueOf(file)));
+        } else if (filesValue != null) {
+            // Overrides from system properties or the environment come as "shared_prefs/a.xml,files/b"
+            for (String file : filesValue.toString().split(",")) {
+                if (!file.trim().isEmpty()) {
+                    paths.add(file.trim());
+                }
+            }
+        }
+        this.files = Collections.unmodifiableList(paths);
+    }
+
+    /**
+     * @return true if a login is snapshotted once per account and restored into the next sessions
+     * ("authSnapshots", default false). Without any "authSnapshotFiles" there is nothing to snapshot.
+     */
+    public boolean isEnabled() {
+        return enabled && !files.isEmpty();
+    }
+
+    /**
+     * @return Files of the app data holding the login, relative to the data directory of the app,
+     * e.g. "shared_prefs/auth.xml" ("authSnapshotFiles").
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+}
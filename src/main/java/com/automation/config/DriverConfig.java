@@ -5,31 +5,138 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * DriverConfig is a singleton class responsible for loading and providing
  * configuration properties from a YAML file.
  * It supports reading driver configuration settings for Appium.
+ * <p>
+ * Each file is parsed once into an immutable instance; the typed values (capabilities, timeouts, devices,
+ * users) are resolved at load time, so lookups never parse, lock or log.
+ * <p>
+ * The driver settings are only read from a capabilities file, i.e. one declaring "platformName" like
+ * androidCapabilities.yaml; other files such as credentials.yaml only provide their properties and users, and
+ * asking them for a driver setting fails. A top-level key of a capabilities file can be overridden with an
+ * environment variable (explicitWaitTime: AUTOMATION_EXPLICIT_WAIT_TIME) or, taking precedence, with a system
+ * property (-Dautomation.explicitWaitTime=30).
  */
 public class DriverConfig {
     private static final Logger logger = LoggerFactory.getLogger(DriverConfig.class);
 
+    private static final String OVERRIDE_PREFIX = "automation.";
+
     // Store instances by YAML file paths
-    private static final Map<String, DriverConfig> instances = new HashMap<>();
+    private static final Map<String, DriverConfig> instances = new ConcurrentHashMap<>();
+    // Guards the first load of a file; a lock rather than computeIfAbsent, which would pin a virtual thread
+    // to its carrier while the YAML is read
+    private static final ReentrantLock loadLock = new ReentrantLock();
 
     // Map to hold configuration properties loaded from the YAML file
     private final Map<String, Object> properties;
+    private final String yamlFilePath;
+
+    private final Map<String, Object> capabilities;
+    private final TimeoutConfig timeouts;
+    private final MockServerConfig mockServer;
+    private final ImpactConfig impact;
+    private final ArtifactConfig artifacts;
+    private final HttpConfig http;
+    private final AccountConfig accountPool;
+    private final AuthSnapshotConfig authSnapshots;
+    private final PerformanceConfig performance;
+    private final JournalConfig journal;
+    private final ResourceSamplingConfig resourceSampling;
+    private final List<Map<String, Object>> devices;
+    private final Map<String, List<UserCredentials>> users;
+    private final int sessionPrewarmDepth;
+    private final int sessionCreateRetries;
+    private final int stepRetries;
+    private final int deviceBreakerErrorRate;
+    private final int deviceBreakerWindow;
+    private final boolean serverSideWait;
+    private final boolean commandTimings;
+    private final String commandTimingsFile;
+    private final String schedulerHistoryFile;
+    private final boolean schedulerVirtualThreads;
+    private final boolean sessionReuse;
+    private final String appResetDeepLink;
 
     /**
      * Private constructor to enforce singleton pattern and load config.
      *
      * @param yamlFilePath Path to the YAML configuration file.
      */
-    public DriverConfig(String yamlFilePath) {
-        properties = new HashMap<>();
-        loadConfig(yamlFilePath);
+    private DriverConfig(String yamlFilePath) {
+        Map<String, Object> loaded = loadConfig(yamlFilePath);
+        boolean driverSettings = loaded.containsKey("platformName");
+        if (driverSettings) {
+            applyOverrides(loaded);
+        }
+        this.yamlFilePath = yamlFilePath;
+        this.properties = Collections.unmodifiableMap(loaded);
+        this.users = parseUsers(properties);
+        if (!driverSettings) {
+            this.capabilities = null;
+            this.timeouts = null;
+            this.mockServer = null;
+            this.impact = null;
+            this.artifacts = null;
+            this.http = null;
+            this.accountPool = null;
+            this.authSnapshots = null;
+            this.performance = null;
+            this.journal = null;
+            this.resourceSampling = null;
+            this.devices = null;
+            this.sessionPrewarmDepth = 0;
+            this.sessionCreateRetries = 0;
+            this.stepRetries = 0;
+            this.deviceBreakerErrorRate = 0;
+            this.deviceBreakerWindow = 0;
+            this.serverSideWait = false;
+            this.commandTimings = false;
+            this.commandTimingsFile = null;
+            this.schedulerHistoryFile = null;
+            this.schedulerVirtualThreads = false;
+            this.sessionReuse = false;
+            this.appResetDeepLink = null;
+            return;
+        }
+        this.capabilities = parseCapabilities(properties);
+        this.timeouts = new TimeoutConfig(properties);
+        this.mockServer = new MockServerConfig(properties);
+        this.impact = new ImpactConfig(properties);
+        this.artifacts = new ArtifactConfig(properties);
+        this.http = new HttpConfig(properties);
+        this.accountPool = new AccountConfig(properties);
+        this.authSnapshots = new AuthSnapshotConfig(properties);
+        this.performance = new PerformanceConfig(properties);
+        this.journal = new JournalConfig(properties);
+        this.resourceSampling = new ResourceSamplingConfig(properties);
+        this.devices = parseDevices(properties, mockServer);
+        this.sessionPrewarmDepth = (int) TimeoutConfig.parseLong(properties, "sessionPrewarmDepth", 0);
+        this.sessionCreateRetries = (int) TimeoutConfig.parseLong(properties, "sessionCreateRetries", 2);
+        this.stepRetries = (int) TimeoutConfig.parseLong(properties, "stepRetries", 2);
+        this.deviceBreakerErrorRate = (int) TimeoutConfig.parseLong(properties, "deviceBreakerErrorRate", 50);
+        this.deviceBreakerWindow = (int) TimeoutConfig.parseLong(properties, "deviceBreakerWindow", 10);
+        this.serverSideWait = parseBoolean(properties, "serverSideWait", true);
+        this.commandTimings = parseBoolean(properties, "commandTimings", true);
+        this.commandTimingsFile = stringOrDefault(properties, "commandTimingsFile",
+                "target/metrics/command-timings.json");
+        this.schedulerHistoryFile = stringOrDefault(properties, "schedulerHistoryFile",
+                ".automation/test-history.json");
+        this.schedulerVirtualThreads = parseBoolean(properties, "schedulerVirtualThreads", false);
+        this.sessionReuse = parseBoolean(properties, "sessionReuse", false);
+        this.appResetDeepLink = stringOrNull(properties.get("appResetDeepLink"));
     }
 
     /**
@@ -40,32 +147,183 @@ public class DriverConfig {
      * @return The singleton instance of DriverConfig for the specified file.
      */
     public static DriverConfig getInstance(String yamlFilePath) {
-        return instances.computeIfAbsent(yamlFilePath, DriverConfig::new);
+        DriverConfig config = instances.get(yamlFilePath);
+        if (config != null) {
+            return config;
+        }
+        loadLock.lock();
+        try {
+            config = instances.get(yamlFilePath);
+            if (config == null) {
+                config = new DriverConfig(yamlFilePath);
+                instances.put(yamlFilePath, config);
+            }
+            return config;
+        } finally {
+            loadLock.unlock();
+        }
     }
 
     /**
      * Loads configuration properties from the specified YAML file.
      *
      * @param yamlFilePath Path to the YAML configuration file.
+     * @return The properties of the file.
      */
-    private void loadConfig(String yamlFilePath) {
+    private static Map<String, Object> loadConfig(String yamlFilePath) {
         logger.info("Loading configuration from file: {}", yamlFilePath);
         Yaml yaml = new Yaml();
 
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream(yamlFilePath)) {
+        try (InputStream input = DriverConfig.class.getClassLoader().getResourceAsStream(yamlFilePath)) {
             if (input == null) {
                 logger.error("Configuration file not found: {}", yamlFilePath);
                 throw new RuntimeException("Could not find configuration file: " + yamlFilePath);
             }
             // Load properties into the map
-            properties.putAll(yaml.load(input));
+            Map<String, Object> loaded = new HashMap<>();
+            Map<String, Object> document = yaml.load(input);
+            if (document != null) {
+                loaded.putAll(document);
+            }
             logger.info("Configuration loaded successfully from file: {}", yamlFilePath);
+            return loaded;
         } catch (Exception e) {
             logger.error("Failed to load configuration from YAML file: {}", yamlFilePath, e);
             throw new RuntimeException("Failed to load configuration from YAML file", e);
         }
     }
 
+    /**
+     * Applies environment variable overrides of the keys in the file, then system property overrides
+     * of any key. Override values are parsed as YAML scalars, so "true" and "30" keep their types.
+     */
+    private static void applyOverrides(Map<String, Object> loaded) {
+        Yaml yaml = new Yaml();
+        for (String key : new ArrayList<>(loaded.keySet())) {
+            String value = System.getenv(toEnvironmentName(key));
+            if (value != null) {
+                logger.info("Property {} overridden by environment variable {}", key, toEnvironmentName(key));
+                loaded.put(key, yaml.load(value));
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(OVERRIDE_PREFIX)) {
+                String key = name.substring(OVERRIDE_PREFIX.length());
+                logger.info("Property {} overridden by system property {}", key, name);
+                loaded.put(key, yaml.load(System.getProperty(name)));
+            }
+        }
+    }
+
+    /**
+     * Converts a camelCase key to its environment variable name, e.g. appiumServerURL to AUTOMATION_APPIUM_SERVER_URL.
+     */
+    static String toEnvironmentName(String key) {
+        String snake = key.replaceAll("([a-z0-9])([A-Z])", "$1_$2");
+        return "AUTOMATION_" + snake.toUpperCase(Locale.ROOT);
+    }
+
+    private static Map<String, Object> parseCapabilities(Map<String, Object> properties) {
+        // W3C-compatible names of the shared capabilities
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("platformName", properties.get("platformName"));
+        result.put("appium:deviceName", properties.get("deviceName"));
+        result.put("appium:automationName", properties.get("automationName"));
+        result.put("appium:appPackage", properties.get("appPackage"));
+        result.put("appium:appActivity", properties.get("appActivity"));
+        result.put("appium:app", properties.get("app"));
+        result.put("appium:noReset", properties.get("noReset"));
+        result.put("appium:fullReset", properties.get("fullReset"));
+        return Collections.unmodifiableMap(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> parseDevices(Map<String, Object> properties,
+                                                         MockServerConfig mockServer) {
+        Object devices = properties.get("devices");
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (devices instanceof List) {
+            for (Object device : (List<Object>) devices) {
+                if (device instanceof Map) {
+                    result.add(Collections.unmodifiableMap(new LinkedHashMap<>((Map<String, Object>) device)));
+                } else {
+                    logger.warn("Ignoring malformed device entry: {}", device);
+                }
+            }
+        }
+        if (result.isEmpty() && mockServer.isEnabled()) {
+            for (int i = 1; i <= mockServer.getDevices(); i++) {
+                Map<String, Object> device = new LinkedHashMap<>();
+                device.put("deviceName", "mock-device-" + i);
+                device.put("udid", "mock-device-" + i);
+                result.add(Collections.unmodifiableMap(device));
+            }
+        }
+        if (result.isEmpty()) {
+            Map<String, Object> device = new LinkedHashMap<>();
+            device.put("deviceName", properties.get("deviceName"));
+            result.add(Collections.unmodifiableMap(device));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<UserCredentials>> parseUsers(Map<String, Object> properties) {
+        Object users = properties.get("users");
+        Map<String, List<UserCredentials>> result = new LinkedHashMap<>();
+        if (users instanceof Map) {
+            ((Map<String, Object>) users).forEach((userType, details) -> {
+                if (details instanceof Map) {
+                    // Either one account, or a pool of them under "accounts"
+                    Map<String, Object> userDetails = (Map<String, Object>) details;
+                    Object accounts = userDetails.get("accounts");
+                    List<UserCredentials> pool = new ArrayList<>();
+                    if (accounts instanceof List) {
+                        for (Object account : (List<Object>) accounts) {
+                            if (account instanceof Map) {
+                                Map<String, Object> accountDetails = (Map<String, Object>) account;
+                                pool.add(new UserCredentials(stringOrNull(accountDetails.get("email")),
+                                        stringOrNull(accountDetails.get("password"))));
+                            }
+                        }
+                    } else {
+                        pool.add(new UserCredentials(stringOrNull(userDetails.get("email")),
+                                stringOrNull(userDetails.get("password"))));
+                    }
+                    result.put(userType, Collections.unmodifiableList(pool));
+                } else {
+                    logger.warn("User details not found for user type: {}", userType);
+                }
+            });
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String stringOrNull(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static String stringOrDefault(Map<String, Object> properties, String key, String defaultValue) {
+        Object value = properties.get(key);
+        return value == null ? defaultValue : value.toString();
+    }
+
+    private static boolean parseBoolean(Map<String, Object> properties, String key, boolean defaultValue) {
+        Object value = properties.get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.toString().trim());
+    }
+
+    /**
+     * Returns a driver setting, failing if this file is not a capabilities file and has none.
+     */
+    private <T> T driverSetting(T value) {
+        if (devices == null) {
+            throw new RuntimeException(yamlFilePath + " is not a capabilities file (no platformName), "
+                    + "it holds no driver settings");
+        }
+        return value;
+    }
+
     /**
      * Retrieves a property value by key from the loaded properties.
      *
@@ -74,14 +332,111 @@ public class DriverConfig {
      */
     public Object getProperty(String key) {
         Object value = properties.get(key);
-        if (value != null) {
-            logger.debug("Property retrieved: {} = {}", key, value);
-        } else {
+        if (value == null) {
             logger.warn("Property not found for key: {}", key);
         }
         return value;
     }
 
+    /**
+     * Gets the shared capabilities under their W3C names ("platformName", "appium:deviceName"...).
+     *
+     * @return An unmodifiable map of capabilities.
+     */
+    public Map<String, Object> getCapabilities() {
+        return driverSetting(capabilities);
+    }
+
+    /**
+     * Gets the timeouts and polling intervals of this configuration.
+     *
+     * @return The parsed TimeoutConfig.
+     */
+    public TimeoutConfig getTimeouts() {
+        return driverSetting(timeouts);
+    }
+
+    /**
+     * Gets the settings of the embedded mock Appium server.
+     *
+     * @return The parsed MockServerConfig.
+     */
+    public MockServerConfig getMockServer() {
+        return driverSetting(mockServer);
+    }
+
+    /**
+     * Gets the test impact selection settings.
+     *
+     * @return The parsed ImpactConfig.
+     */
+    public ImpactConfig getImpact() {
+        return driverSetting(impact);
+    }
+
+    /**
+     * Gets the screenshot and page source capture settings.
+     *
+     * @return The parsed ArtifactConfig.
+     */
+    public ArtifactConfig getArtifacts() {
+        return driverSetting(artifacts);
+    }
+
+    /**
+     * Gets the settings of the HTTP client talking to the Appium server.
+     *
+     * @return The parsed HttpConfig.
+     */
+    public HttpConfig getHttp() {
+        return driverSetting(http);
+    }
+
+    /**
+     * Gets the settings of the test account pool.
+     *
+     * @return The parsed AccountConfig.
+     */
+    public AccountConfig getAccountPool() {
+        return driverSetting(accountPool);
+    }
+
+    /**
+     * Gets the settings of the authenticated-state snapshots.
+     *
+     * @return The parsed AuthSnapshotConfig.
+     */
+    public AuthSnapshotConfig getAuthSnapshots() {
+        return driverSetting(authSnapshots);
+    }
+
+    /**
+     * Gets the screen performance budgets and baseline settings.
+     *
+     * @return The parsed PerformanceConfig.
+     */
+    public PerformanceConfig getPerformance() {
+        return driverSetting(performance);
+    }
+
+    /**
+     * Gets the settings of the results journal and of resumed runs.
+     *
+     * @return The parsed JournalConfig.
+     */
+    public JournalConfig getJournal() {
+        return driverSetting(journal);
+    }
+
+    /**
+     * Gets the settings of the device resource sampler.
+     *
+     * @return The parsed ResourceSamplingConfig.
+     */
+    public ResourceSamplingConfig getResourceSampling() {
+        return driverSetting(resourceSampling);
+    }
+
     /**
      * Gets the explicit wait time for the driver.
      * If the value is not set in the configuration, a default of 15 seconds is returned.
@@ -89,9 +444,164 @@ public class DriverConfig {
      * @return The explicit wait time in seconds.
      */
     public int getExplicitWaitTime() {
-        int waitTime = Integer.parseInt(properties.getOrDefault("explicitWaitTime", "15").toString());
-        logger.debug("Explicit wait time retrieved: {} seconds", waitTime);
-        return waitTime;
+        return (int) driverSetting(timeouts).getExplicitWait().getSeconds();
+    }
+
+    /**
+     * Gets how many sessions are opened in the background when the suite starts.
+     * If the value is not set in the configuration, no session is pre-warmed.
+     *
+     * @return The number of sessions to pre-warm.
+     */
+    public int getSessionPrewarmDepth() {
+        return driverSetting(sessionPrewarmDepth);
+    }
+
+    /**
+     * Gets how many times a failed session creation is retried.
+     * If the value is not set in the configuration, a default of 2 retries is returned.
+     *
+     * @return The number of retries after the first attempt.
+     */
+    public int getSessionCreateRetries() {
+        return driverSetting(sessionCreateRetries);
+    }
+
+    /**
+     * Gets how many times a screen step failing on a transient error is run again.
+     * If the value is not set in the configuration, a default of 2 retries is returned.
+     *
+     * @return The number of retries after the first attempt.
+     */
+    public int getStepRetries() {
+        return driverSetting(stepRetries);
+    }
+
+    /**
+     * Gets the share of failed steps and sessions, over the last {@link #getDeviceBreakerWindow()} outcomes
+     * of a device, at which the device is taken out of rotation and its session replaced.
+     * If the value is not set in the configuration, a default of 50 percent is returned.
+     *
+     * @return The error rate threshold in percent.
+     */
+    public int getDeviceBreakerErrorRate() {
+        return driverSetting(deviceBreakerErrorRate);
+    }
+
+    /**
+     * Gets how many recent step and session outcomes of a device its error rate is computed over.
+     * The breaker does not trip before the window is full.
+     * If the value is not set in the configuration, a default of 10 outcomes is returned.
+     *
+     * @return The window size.
+     */
+    public int getDeviceBreakerWindow() {
+        return driverSetting(deviceBreakerWindow);
+    }
+
+    /**
+     * Checks whether waits for an element to appear are delegated to the server as an implicit wait,
+     * so the server polls its own view hierarchy instead of the client sending one request per poll.
+     * Defaults to true.
+     *
+     * @return true if server-side waits are enabled.
+     */
+    public boolean isServerSideWaitEnabled() {
+        return driverSetting(serverSideWait);
+    }
+
+    /**
+     * Checks whether every WebDriver command is timed and attributed to its test and screen method.
+     * Defaults to true.
+     *
+     * @return true if command timings are recorded.
+     */
+    public boolean isCommandTimingsEnabled() {
+        return driverSetting(commandTimings);
+    }
+
+    /**
+     * Gets the file the command latency histograms are written to at the end of the suite.
+     *
+     * @return The report path, "target/metrics/command-timings.json" by default.
+     */
+    public String getCommandTimingsFile() {
+        return driverSetting(commandTimingsFile);
+    }
+
+    /**
+     * Gets the file the scheduler keeps the duration and failure history of the test classes in.
+     *
+     * @return The history path, ".automation/test-history.json" by default.
+     */
+    public String getSchedulerHistoryFile() {
+        return driverSetting(schedulerHistoryFile);
+    }
+
+    /**
+     * Checks whether the scheduled runs drive each device from a virtual thread instead of a platform thread.
+     * Defaults to false.
+     *
+     * @return true if "schedulerVirtualThreads" is enabled.
+     */
+    public boolean isSchedulerVirtualThreads() {
+        return driverSetting(schedulerVirtualThreads);
+    }
+
+    /**
+     * Checks whether sessions are kept alive between test classes and the app is reset instead.
+     * Defaults to false, i.e. every test class quits its session.
+     *
+     * @return true if session reuse is enabled.
+     */
+    public boolean isSessionReuseEnabled() {
+        return driverSetting(sessionReuse);
+    }
+
+    /**
+     * Gets the deep link that brings a reused session back to the app's start screen.
+     * If it is not set, the app is reset by terminating and activating it instead.
+     *
+     * @return The reset deep link, or null if not configured.
+     */
+    public String getAppResetDeepLink() {
+        return driverSetting(appResetDeepLink);
+    }
+
+    /**
+     * Retrieves the devices the driver pool may open sessions on.
+     * Each entry holds the capabilities specific to one device or emulator (deviceName, udid, systemPort...).
+     * If no "devices" list is configured, the top-level deviceName is used as the only device, or
+     * "mockServerDevices" simulated devices when the mock server is enabled.
+     *
+     * @return An unmodifiable list of per-device capability maps.
+     */
+    public List<Map<String, Object>> getDevices() {
+        return driverSetting(devices);
+    }
+
+    /**
+     * Retrieves the account of a user type.
+     *
+     * @param userType The type of user (e.g., "free" or "premium").
+     * @return The credentials, or null if the user type is not configured.
+     */
+    public UserCredentials getUser(String userType) {
+        List<UserCredentials> pool = users.get(userType);
+        if (pool == null || pool.isEmpty()) {
+            logger.warn("No credentials found for user type: {}", userType);
+            return null;
+        }
+        return pool.get(0);
+    }
+
+    /**
+     * Retrieves every account of every user type, for the account pool to lease them to sessions.
+     *
+     * @return The accounts by user type, in file order.
+     */
+    public Map<String, List<UserCredentials>> getUsers() {
+        return users;
     }
 
     /**
@@ -100,25 +610,13 @@ public class DriverConfig {
      * @param userType The type of user (e.g., "free" or "premium").
      * @return A map containing the username and password for the specified user type, or an empty map if not found.
      */
-    @SuppressWarnings("unchecked")
     public Map<String, String> getUserCredentials(String userType) {
         Map<String, String> credentials = new HashMap<>();
-        Map<String, Object> users = (Map<String, Object>) properties.get("users");
-
-        if (users != null && users.containsKey(userType)) {
-            Map<String, String> userDetails = (Map<String, String>) users.get(userType);
-            if (userDetails != null) {
-                credentials.put("email", userDetails.getOrDefault("email", ""));
-                credentials.put("password", userDetails.getOrDefault("password", ""));
-                logger.debug("Retrieved credentials for {}: {}", userType, credentials);
-            } else {
-                logger.warn("User details not found for user type: {}", userType);
-            }
-        } else {
-            logger.warn("No credentials found for user type: {}", userType);
+        UserCredentials user = getUser(userType);
+        if (user != null) {
+            credentials.put("email", user.getEmail());
+            credentials.put("password", user.getPassword());
         }
         return credentials;
     }
-
-
 }
@@ -0,0 +1,56 @@
+package com.automation.config;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HttpConfig holds the settings of the HTTP client sending the commands to the Appium server, parsed once at load time.
+ */
+public final class HttpConfig {
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration keepAlive;
+    private final String version;
+
+    HttpConfig(Map<String, Object> properties) {
+        this.connectTimeout = Duration.ofSeconds(TimeoutConfig.parseLong(properties, "httpConnectTimeout", 10));
+        this.readTimeout = Duration.ofSeconds(TimeoutConfig.parseLong(properties, "httpReadTimeout", 180));
+        this.keepAlive = Duration.ofSeconds(TimeoutConfig.parseLong(properties, "httpKeepAlive", 120));
+        Object versionValue = properties.get("httpVersion");
+        String parsedVersion = versionValue == null ? "HTTP_1_1"
+                : versionValue.toString().trim().toUpperCase(Locale.ROOT).replace('/', '_').replace('.', '_');
+        if (!"HTTP_1_1".equals(parsedVersion) && !"HTTP_2".equals(parsedVersion)) {
+            throw new RuntimeException("Expected HTTP_1_1 or HTTP_2 for 'httpVersion' but got: " + versionValue);
+        }
+        this.version = parsedVersion;
+    }
+
+    /**
+     * @return How long opening a connection to the Appium server may take ("httpConnectTimeout", seconds).
+     */
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @return How long a command may wait for its response, session creation included ("httpReadTimeout", seconds).
+     */
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @return How long an idle connection is kept open for the next command ("httpKeepAlive", seconds).
+     */
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @return "HTTP_1_1", or "HTTP_2" to negotiate HTTP/2 where the server supports it ("httpVersion").
+     */
+    public String getVersion() {
+        return version;
+    }
+}
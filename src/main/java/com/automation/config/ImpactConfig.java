@@ -0,0 +1,62 @@
+package com.automation.config;
+
+import java.util.Map;
+
+/**
+ * ImpactConfig holds the settings of test impact selection, parsed once at load time.
+ * Selection is enabled by giving either a git revision to diff against or a directory of UI dumps.
+ */
+public final class ImpactConfig {
+    private final String base;
+    private final String uiDump;
+    private final String uiBaseline;
+    private final String indexFile;
+
+    ImpactConfig(Map<String, Object> properties) {
+        this.base = stringOrNull(properties.get("impactBase"));
+        this.uiDump = stringOrNull(properties.get("impactUiDump"));
+        this.uiBaseline = stringOrNull(properties.get("impactUiBaseline"));
+        Object indexValue = properties.get("impactIndexFile");
+        this.indexFile = indexValue == null ? ".automation/impact-index.json" : indexValue.toString();
+    }
+
+    private static String stringOrNull(Object value) {
+        return value == null || value.toString().trim().isEmpty() ? null : value.toString().trim();
+    }
+
+    /**
+     * @return true if only the tests affected by a change are run.
+     */
+    public boolean isEnabled() {
+        return base != null || uiDump != null;
+    }
+
+    /**
+     * @return Git revision the screens and tests are diffed against ("impactBase", e.g. "origin/main"), or null.
+     */
+    public String getBase() {
+        return base;
+    }
+
+    /**
+     * @return Directory of page source dumps of the new app build ("impactUiDump"), or null.
+     */
+    public String getUiDump() {
+        return uiDump;
+    }
+
+    /**
+     * @return Directory of page source dumps of the previous app build, by the same file names
+     * ("impactUiBaseline"), or null.
+     */
+    public String getUiBaseline() {
+        return uiBaseline;
+    }
+
+    /**
+     * @return File the test-to-locator index is cached in ("impactIndexFile", ".automation/impact-index.json").
+     */
+    public String getIndexFile() {
+        return indexFile;
+    }
+}
@@ -0,0 +1,65 @@
+package com.automation.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * JournalConfig holds the settings of the results journal and of resumed runs, parsed once at load time.
+ */
+public final class JournalConfig {
+    private final boolean enabled;
+    private final String file;
+    private final Duration syncInterval;
+    private final int syncBatch;
+    private final boolean resume;
+
+    /**
+     * @param properties The configuration properties, e.g. {@code resume: true}.
+     */
+    public JournalConfig(Map<String, Object> properties) {
+        Object enabledValue = properties.get("resultsJournal");
+        this.enabled = enabledValue == null || Boolean.parseBoolean(enabledValue.toString().trim());
+        Object fileValue = properties.get("resultsJournalFile");
+        this.file = fileValue == null ? ".automation/results-journal.jsonl" : fileValue.toString();
+        this.syncInterval = Duration.ofMillis(TimeoutConfig.parseLong(properties, "resultsJournalSyncMillis", 1000));
+        this.syncBatch = (int) Math.max(1, TimeoutConfig.parseLong(properties, "resultsJournalSyncBatch", 32));
+        Object resumeValue = properties.get("resume");
+        this.resume = resumeValue != null && Boolean.parseBoolean(resumeValue.toString().trim());
+    }
+
+    /**
+     * @return true if every test outcome is appended to the journal ("resultsJournal", default true).
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The journal file ("resultsJournalFile").
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * @return Longest time an appended outcome waits to be synced to disk ("resultsJournalSyncMillis").
+     */
+    public Duration getSyncInterval() {
+        return syncInterval;
+    }
+
+    /**
+     * @return Number of outcomes after which the journal is synced at once ("resultsJournalSyncBatch").
+     */
+    public int getSyncBatch() {
+        return syncBatch;
+    }
+
+    /**
+     * @return true if the run continues the journaled runs, skipping the tests that passed in them
+     * ("resume", e.g. -Dautomation.resume=true). A run that does not resume starts a new journal.
+     */
+    public boolean isResume() {
+        return resume;
+    }
+}
@@ -0,0 +1,88 @@
+package com.automation.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MockServerConfig holds the settings of the mock Appium server, parsed once at load time. The server itself is
+ * test support and only on the test classpath.
+ */
+public final class MockServerConfig {
+    private final boolean enabled;
+    private final String provider;
+    private final String app;
+    private final int port;
+    private final int devices;
+    private final long latencyMillis;
+    private final Map<String, Long> commandLatencyMillis;
+
+    @SuppressWarnings("unchecked")
+    MockServerConfig(Map<String, Object> properties) {
+        Object enabledValue = properties.get("mockServer");
+        this.enabled = enabledValue != null && Boolean.parseBoolean(enabledValue.toString().trim());
+        Object providerValue = properties.get("mockServerProvider");
+        this.provider = providerValue == null || providerValue.toString().isBlank()
+                ? "com.automation.mock.MockServerProvider" : providerValue.toString();
+        Object appValue = properties.get("mockServerApp");
+        this.app = appValue == null ? "mockApp.xml" : appValue.toString();
+        this.port = (int) TimeoutConfig.parseLong(properties, "mockServerPort", 0);
+        this.devices = (int) TimeoutConfig.parseLong(properties, "mockServerDevices", 1);
+        this.latencyMillis = TimeoutConfig.parseLong(properties, "mockServerLatencyMillis", 0);
+        Map<String, Long> latencies = new LinkedHashMap<>();
+        Object commandLatencies = properties.get("mockServerCommandLatencyMillis");
+        if (commandLatencies instanceof Map) {
+            Map<String, Object> values = (Map<String, Object>) commandLatencies;
+            values.keySet().forEach(command ->
+                    latencies.put(command, TimeoutConfig.parseLong(values, command, latencyMillis)));
+        }
+        this.commandLatencyMillis = Collections.unmodifiableMap(latencies);
+    }
+
+    /**
+     * @return true if sessions are opened on the embedded mock server instead of "appiumServerURL" ("mockServer").
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return AppiumServerProvider class serving the sessions ("mockServerProvider"); the mock Appium server of
+     * the test sources by default.
+     */
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * @return Classpath resource of the scripted app ("mockServerApp", "mockApp.xml" by default).
+     */
+    public String getApp() {
+        return app;
+    }
+
+    /**
+     * @return Port the mock server listens on, 0 for any free port ("mockServerPort").
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return Number of simulated devices when no "devices" are listed ("mockServerDevices", 1 by default).
+     */
+    public int getDevices() {
+        return devices;
+    }
+
+    /**
+     * Gets the delay the mock server adds to a command, to simulate a device.
+     *
+     * @param command Command name, e.g. "findElement" or "newSession".
+     * @return The delay in milliseconds ("mockServerCommandLatencyMillis" of the command, else "mockServerLatencyMillis").
+     */
+    public long getLatencyMillis(String command) {
+        Long latency = commandLatencyMillis.get(command);
+        return latency == null ? latencyMillis : latency;
+    }
+}
@@ -0,0 +1,152 @@
+package com.automation.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PerformanceConfig holds the settings of the screen performance budgets, parsed once at load time.
+ * <p>
+ * Budgets are declared per metric as percentiles of its samples in milliseconds, e.g.
+ * {@code appStartup: {p50: 3000, p90: 5000, max: 8000}}.
+ */
+public final class PerformanceConfig {
+    private final int samples;
+    private final int warmupSamples;
+    private final Map<String, Map<Double, Long>> budgets;
+    private final String baselineFile;
+    private final String appBuild;
+    private final boolean appBuildSet;
+    private final int regressionTolerancePercent;
+    private final long regressionMinMillis;
+    private final boolean updateBaselines;
+
+    PerformanceConfig(Map<String, Object> properties) {
+        this.samples = (int) Math.max(1, TimeoutConfig.parseLong(properties, "perfSamples", 5));
+        this.warmupSamples = (int) Math.max(0, TimeoutConfig.parseLong(properties, "perfWarmupSamples", 1));
+        this.budgets = parseBudgets(properties.get("perfBudgets"));
+        Object baselineValue = properties.get("perfBaselineFile");
+        this.baselineFile = baselineValue == null ? ".automation/perf-baselines.json" : baselineValue.toString();
+        Object buildValue = properties.get("perfAppBuild");
+        this.appBuildSet = buildValue != null && !buildValue.toString().trim().isEmpty();
+        this.appBuild = appBuildSet ? buildValue.toString().trim() : "unknown";
+        this.regressionTolerancePercent = (int) TimeoutConfig.parseLong(properties, "perfRegressionTolerance", 20);
+        this.regressionMinMillis = TimeoutConfig.parseLong(properties, "perfRegressionMinMillis", 250);
+        Object updateValue = properties.get("perfUpdateBaselines");
+        this.updateBaselines = updateValue != null && Boolean.parseBoolean(updateValue.toString().trim());
+    }
+
+    private static Map<String, Map<Double, Long>> parseBudgets(Object value) {
+        Map<String, Map<Double, Long>> parsed = new LinkedHashMap<>();
+        if (value == null || value.toString().trim().isEmpty()) {
+            return parsed;
+        }
+        if (!(value instanceof Map)) {
+            throw new RuntimeException("Expected a map of metrics for 'perfBudgets' but got: " + value);
+        }
+        ((Map<?, ?>) value).forEach((metric, percentiles) -> {
+            if (!(percentiles instanceof Map)) {
+                throw new RuntimeException("Expected percentiles such as {p90: 2000} for the budget of '" + metric
+                        + "' but got: " + percentiles);
+            }
+            Map<Double, Long> limits = new TreeMap<>();
+            ((Map<?, ?>) percentiles).forEach((percentile, millis) ->
+                    limits.put(parsePercentile(metric, percentile.toString()), parseMillis(metric, millis)));
+            parsed.put(metric.toString(), Collections.unmodifiableMap(limits));
+        });
+        return Collections.unmodifiableMap(parsed);
+    }
+
+    private static double parsePercentile(Object metric, String label) {
+        String normalized = label.trim().toLowerCase(Locale.ROOT);
+        if ("max".equals(normalized)) {
+            return 100;
+        }
+        try {
+            double percentile = Double.parseDouble(normalized.startsWith("p") ? normalized.substring(1) : normalized);
+            if (percentile > 0 && percentile <= 100) {
+                return percentile;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new RuntimeException("Expected a percentile such as p50, p99.9 or max in the budget of '" + metric
+                + "' but got: " + label);
+    }
+
+    private static long parseMillis(Object metric, Object millis) {
+        try {
+            return Long.parseLong(millis.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Expected milliseconds in the budget of '" + metric + "' but got: " + millis, e);
+        }
+    }
+
+    /**
+     * @return How many timed samples a metric takes ("perfSamples", default 5).
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return How many untimed runs come first, so caches and the JIT of the app are warm ("perfWarmupSamples", default 1).
+     */
+    public int getWarmupSamples() {
+        return warmupSamples;
+    }
+
+    /**
+     * @param metric The metric, e.g. "appStartup".
+     * @return Its budget, percentile (100 for "max") to milliseconds, empty if it has none ("perfBudgets").
+     */
+    public Map<Double, Long> getBudget(String metric) {
+        return budgets.getOrDefault(metric, Collections.emptyMap());
+    }
+
+    /**
+     * @return File of the baselines the metrics are compared with ("perfBaselineFile").
+     */
+    public String getBaselineFile() {
+        return baselineFile;
+    }
+
+    /**
+     * @return Label of the app build under test, recorded with its baselines ("perfAppBuild", e.g. the CI build number).
+     */
+    public String getAppBuild() {
+        return appBuild;
+    }
+
+    /**
+     * @return true if "perfAppBuild" names the build under test, which baselines need to be told apart.
+     */
+    public boolean isAppBuildSet() {
+        return appBuildSet;
+    }
+
+    /**
+     * @return How many percent slower than its baseline a percentile may get ("perfRegressionTolerance", default 20).
+     */
+    public int getRegressionTolerancePercent() {
+        return regressionTolerancePercent;
+    }
+
+    /**
+     * @return How many milliseconds slower than its baseline a percentile may always get, so fast metrics are not
+     * failed by jitter ("perfRegressionMinMillis", default 250).
+     */
+    public long getRegressionMinMillis() {
+        return regressionMinMillis;
+    }
+
+    /**
+     * @return true if the baselines are replaced by the samples of this run when they pass ("perfUpdateBaselines").
+     * A metric without a baseline always records one.
+     */
+    public boolean isUpdateBaselines() {
+        return updateBaselines;
+    }
+}
@@ -0,0 +1,79 @@
+package com.automation.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResourceSamplingConfig holds the settings of the device resource sampler, parsed once at load time.
+ */
+public final class ResourceSamplingConfig {
+    private static final List<String> DEFAULT_DATA = List.of("cpuinfo", "memoryinfo", "networkinfo");
+
+    private final boolean enabled;
+    private final Duration interval;
+    private final int bufferSize;
+    private final List<String> data;
+    private final String file;
+
+    ResourceSamplingConfig(Map<String, Object> properties) {
+        Object enabledValue = properties.get("resourceSampling");
+        this.enabled = enabledValue != null && Boolean.parseBoolean(enabledValue.toString().trim());
+        this.interval = Duration.ofMillis(
+                Math.max(100, TimeoutConfig.parseLong(properties, "resourceSamplingInterval", 1000)));
+        this.bufferSize = (int) Math.max(16, TimeoutConfig.parseLong(properties, "resourceSamplingBuffer", 1024));
+        List<String> types = new ArrayList<>();
+        Object dataValue = properties.get("resourceSamplingData");
+        if (dataValue instanceof List) {
+            ((List<?>) dataValue).forEach(type -> types.add(String.valueOf(type).trim()));
+        } else if (dataValue != null) {
+            // Overrides from system properties or the environment come as "cpuinfo,memoryinfo"
+            for (String type : dataValue.toString().split(",")) {
+                if (!type.trim().isEmpty()) {
+                    types.add(type.trim());
+                }
+            }
+        }
+        this.data = Collections.unmodifiableList(types.isEmpty() ? DEFAULT_DATA : types);
+        Object fileValue = properties.get("resourceSamplingFile");
+        this.file = fileValue == null ? "target/metrics/resource-samples.json" : fileValue.toString();
+    }
+
+    /**
+     * @return true if the app's CPU, memory, network and frame counters are sampled per session ("resourceSampling").
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Time between two samples of a session ("resourceSamplingInterval", milliseconds, default 1000).
+     */
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return Number of samples kept per session; the oldest are overwritten ("resourceSamplingBuffer").
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return Data sampled: "cpuinfo", "memoryinfo" and "networkinfo" from "mobile: getPerformanceData", and
+     * "gfxinfo" for rendered and janky frames, which needs the server's --relaxed-security ("resourceSamplingData").
+     */
+    public List<String> getData() {
+        return data;
+    }
+
+    /**
+     * @return File the per-test summaries are written to at the end of the suite ("resourceSamplingFile").
+     */
+    public String getFile() {
+        return file;
+    }
+}
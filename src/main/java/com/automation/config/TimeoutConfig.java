@@ -0,0 +1,126 @@
+package com.automation.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * TimeoutConfig holds every timeout and polling interval of a configuration file, parsed once at load time.
+ */
+public final class TimeoutConfig {
+    private final Duration explicitWait;
+    private final Duration waitInitialPollInterval;
+    private final Duration waitMaxPollInterval;
+    private final Duration driverLeaseTimeout;
+    private final Duration sessionCreateTimeout;
+    private final Duration sessionRetryBackoff;
+    private final Duration defaultTestDuration;
+    private final Duration stepRetryBackoff;
+    private final Duration deviceBreakerCooldown;
+    private final Duration accountLeaseTimeout;
+    private final Duration accountLeaseExpiry;
+
+    TimeoutConfig(Map<String, Object> properties) {
+        this.explicitWait = Duration.ofSeconds(parseLong(properties, "explicitWaitTime", 15));
+        this.waitInitialPollInterval = Duration.ofMillis(parseLong(properties, "waitInitialPollInterval", 50));
+        this.waitMaxPollInterval = Duration.ofMillis(parseLong(properties, "waitMaxPollInterval", 500));
+        this.driverLeaseTimeout = Duration.ofSeconds(parseLong(properties, "driverLeaseTimeout", 300));
+        this.sessionCreateTimeout = Duration.ofSeconds(parseLong(properties, "sessionCreateTimeout", 180));
+        this.sessionRetryBackoff = Duration.ofMillis(parseLong(properties, "sessionRetryBackoff", 2000));
+        this.defaultTestDuration = Duration.ofSeconds(parseLong(properties, "schedulerDefaultTestDuration", 60));
+        this.stepRetryBackoff = Duration.ofMillis(parseLong(properties, "stepRetryBackoff", 500));
+        this.deviceBreakerCooldown = Duration.ofSeconds(parseLong(properties, "deviceBreakerCooldown", 30));
+        this.accountLeaseTimeout = Duration.ofSeconds(parseLong(properties, "accountLeaseTimeout", 300));
+        this.accountLeaseExpiry = Duration.ofSeconds(parseLong(properties, "accountLeaseExpiry", 3600));
+    }
+
+    static long parseLong(Map<String, Object> properties, String key, long defaultValue) {
+        Object value = properties.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Expected a number for '" + key + "' but got: " + value, e);
+        }
+    }
+
+    /**
+     * @return Default timeout of explicit waits ("explicitWaitTime", seconds).
+     */
+    public Duration getExplicitWait() {
+        return explicitWait;
+    }
+
+    /**
+     * @return First polling interval of explicit waits ("waitInitialPollInterval", milliseconds).
+     */
+    public Duration getWaitInitialPollInterval() {
+        return waitInitialPollInterval;
+    }
+
+    /**
+     * @return Longest polling interval of explicit waits ("waitMaxPollInterval", milliseconds).
+     */
+    public Duration getWaitMaxPollInterval() {
+        return waitMaxPollInterval;
+    }
+
+    /**
+     * @return How long a test thread waits for a free device ("driverLeaseTimeout", seconds).
+     */
+    public Duration getDriverLeaseTimeout() {
+        return driverLeaseTimeout;
+    }
+
+    /**
+     * @return How long opening a session may take, retries included ("sessionCreateTimeout", seconds).
+     */
+    public Duration getSessionCreateTimeout() {
+        return sessionCreateTimeout;
+    }
+
+    /**
+     * @return Delay before the first session creation retry ("sessionRetryBackoff", milliseconds).
+     */
+    public Duration getSessionRetryBackoff() {
+        return sessionRetryBackoff;
+    }
+
+    /**
+     * @return Duration assumed for a test class the scheduler has no history of ("schedulerDefaultTestDuration", seconds).
+     */
+    public Duration getDefaultTestDuration() {
+        return defaultTestDuration;
+    }
+
+    /**
+     * @return Pause before a failed screen step is run again ("stepRetryBackoff", milliseconds).
+     */
+    public Duration getStepRetryBackoff() {
+        return stepRetryBackoff;
+    }
+
+    /**
+     * @return Pause before a failed background session replacement of a tripped device is tried again
+     * ("deviceBreakerCooldown", seconds).
+     */
+    public Duration getDeviceBreakerCooldown() {
+        return deviceBreakerCooldown;
+    }
+
+    /**
+     * @return How long a session waits for a free test account ("accountLeaseTimeout", seconds).
+     */
+    public Duration getAccountLeaseTimeout() {
+        return accountLeaseTimeout;
+    }
+
+    /**
+     * @return Age after which the lease of an account taken on another host is considered abandoned
+     * ("accountLeaseExpiry", seconds).
+     */
+    public Duration getAccountLeaseExpiry() {
+        return accountLeaseExpiry;
+    }
+}
@@ -0,0 +1,27 @@
+package com.automation.config;
+
+/**
+ * UserCredentials is the login of one test account. The password never appears in {@link #toString()}.
+ */
+public final class UserCredentials {
+    private final String email;
+    private final String password;
+
+    public UserCredentials(String email, String password) {
+        this.email = email == null ? "" : email;
+        this.password = password == null ? "" : password;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String toString() {
+        return "UserCredentials{email=" + email + ", password=****}";
+    }
+}
@@ -0,0 +1,22 @@
+package com.automation.driver;
+
+import com.automation.config.DriverConfig;
+
+import java.net.URL;
+
+/**
+ * AppiumServerProvider supplies the server sessions are opened on when "mockServer" is enabled, in place of
+ * "appiumServerURL". The mock Appium server lives in the test sources, so the framework only knows it through
+ * this interface.
+ * <p>
+ * Implementations need a public no-argument constructor and are selected with "mockServerProvider".
+ */
+public interface AppiumServerProvider {
+    /**
+     * Gets the server to open sessions on, starting it if needed.
+     *
+     * @param config The configuration holding the server settings.
+     * @return The base URL of the server.
+     */
+    URL getServerUrl(DriverConfig config);
+}
@@ -0,0 +1,112 @@
+package com.automation.driver;
+
+/**
+ * DeviceCircuitBreaker tracks the recent step and session outcomes of one device and tells when the device
+ * should be taken out of rotation.
+ * <p>
+ * The breaker is closed while the error rate over the last "deviceBreakerWindow" outcomes stays below
+ * "deviceBreakerErrorRate". Crossing it opens the breaker: the pool stops leasing the device and replaces its
+ * session in the background. Once a new session is open the breaker is half-open, and the first outcome on the
+ * new session decides whether it closes again or opens for another replacement.
+ */
+final class DeviceCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int errorRatePercent;
+    private final boolean[] outcomes;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long trips;
+
+    DeviceCircuitBreaker(int errorRatePercent, int window) {
+        this.errorRatePercent = errorRatePercent;
+        this.outcomes = new boolean[Math.max(1, window)];
+    }
+
+    /**
+     * Records a successful step or session.
+     */
+    synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            clear();
+        }
+        if (state == State.CLOSED) {
+            add(false);
+        }
+    }
+
+    /**
+     * Records a failed step or session.
+     *
+     * @return true if this failure opened the breaker.
+     */
+    synchronized boolean recordFailure() {
+        if (state == State.OPEN) {
+            return false;
+        }
+        if (state == State.CLOSED) {
+            add(true);
+            if (recorded < outcomes.length || failures * 100 < errorRatePercent * recorded) {
+                return false;
+            }
+        }
+        state = State.OPEN;
+        trips++;
+        return true;
+    }
+
+    /**
+     * Lets the device be leased again on a replaced session, on probation.
+     */
+    synchronized void halfOpen() {
+        if (state == State.OPEN) {
+            state = State.HALF_OPEN;
+            clear();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized boolean isOpen() {
+        return state == State.OPEN;
+    }
+
+    synchronized long getTrips() {
+        return trips;
+    }
+
+    private void add(boolean failed) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void clear() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return state + " (" + failures + "/" + recorded + " failed, " + trips + " trip(s))";
+    }
+}
@@ -1,20 +1,49 @@
 package com.automation.driver;
 
 import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.remote.AppiumCommandExecutor;
 import org.openqa.selenium.remote.DesiredCapabilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import com.automation.config.DriverConfig;
 
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
 
 /**
  * DriverGenerator is responsible for creating and configuring the AppiumDriver instance.
+ * Sessions can be created on the calling thread or in the background with {@link #createDriverAsync(Map)}.
+ * All sessions of a generator send their commands through one shared, keep-alive HTTP client
+ * (see {@link SharedHttpClientFactory}).
  */
 public class DriverGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(DriverGenerator.class);
+
+    // Background threads negotiating sessions; daemon so a hanging session never blocks JVM exit
+    private static final ExecutorService sessionFactory = Executors.newCachedThreadPool(new SessionThreadFactory());
+
     private final DriverConfig config;
+    private final SharedHttpClientFactory httpClients;
+    private final AppiumServerProvider mockServer;
 
     public DriverGenerator(String yamlFilePath) {
-        this.config = new DriverConfig(yamlFilePath);  // Load capabilities from YAML
+        this.config = DriverConfig.getInstance(yamlFilePath);  // Load capabilities from YAML
+        this.httpClients = new SharedHttpClientFactory(config.getHttp());
+        this.mockServer = config.getMockServer().isEnabled()
+                ? createProvider(config.getMockServer().getProvider()) : null;
     }
 
     /**
@@ -23,30 +52,163 @@ public class DriverGenerator {
      * @return AppiumDriver<WebElement> instance
      */
     public AppiumDriver createDriver() {
-        DesiredCapabilities capabilities = new DesiredCapabilities();
+        return createDriver(Collections.emptyMap());
+    }
 
+    /**
+     * Creates an instance of AppiumDriver for a specific device. The device entries override the
+     * top-level capabilities, so a single YAML file can describe every device on the grid host.
+     *
+     * @param deviceCapabilities Capabilities of the target device (e.g. deviceName, udid, systemPort).
+     * @return AppiumDriver instance bound to the given device
+     */
+    public AppiumDriver createDriver(Map<String, Object> deviceCapabilities) {
         // Populate DesiredCapabilities with W3C-compatible format
-        capabilities.setCapability("platformName", config.getProperty("platformName"));
-        capabilities.setCapability("appium:deviceName", config.getProperty("deviceName"));
-        capabilities.setCapability("appium:automationName", config.getProperty("automationName"));
-        capabilities.setCapability("appium:appPackage", config.getProperty("appPackage"));
-        capabilities.setCapability("appium:appActivity", config.getProperty("appActivity"));
-        capabilities.setCapability("appium:app", config.getProperty("app"));
-        capabilities.setCapability("appium:noReset", config.getProperty("noReset"));
-        capabilities.setCapability("appium:fullReset", config.getProperty("fullReset"));
+        DesiredCapabilities capabilities = new DesiredCapabilities(config.getCapabilities());
+
+        // Device specific capabilities win over the shared ones
+        deviceCapabilities.forEach((name, value) -> capabilities.setCapability(toW3cName(name), value));
 
         String appiumServerURL;
         try {
-            // Ensure the appiumServerURL is a string and not null
-            appiumServerURL = (String) config.getProperty("appiumServerURL");
-            if (appiumServerURL == null || appiumServerURL.isEmpty()) {
-                throw new MalformedURLException("Appium server URL is missing or empty in the configuration.");
+            URL serverUrl;
+            if (mockServer != null) {
+                serverUrl = mockServer.getServerUrl(config);
+            } else {
+                // Ensure the appiumServerURL is a string and not null
+                appiumServerURL = (String) config.getProperty("appiumServerURL");
+                if (appiumServerURL == null || appiumServerURL.isEmpty()) {
+                    throw new MalformedURLException("Appium server URL is missing or empty in the configuration.");
+                }
+                serverUrl = URI.create(appiumServerURL).toURL();
+            }
+            if (config.isCommandTimingsEnabled()) {
+                return new AppiumDriver(new TimedCommandExecutor(serverUrl, httpClients), capabilities);
             }
-            return new AppiumDriver(new URL(appiumServerURL), capabilities);
-        } catch (MalformedURLException e) {
+            return new AppiumDriver(
+                    new AppiumCommandExecutor(MobileCommand.commandRepository, serverUrl, httpClients), capabilities);
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            // URI.create rejects malformed URIs, toURL relative or unknown-scheme ones
             throw new RuntimeException("Invalid Appium server URL specified in configuration", e);
         } catch (ClassCastException e) {
             throw new RuntimeException("Expected a String for Appium server URL, but got something else.", e);
         }
     }
+
+    /**
+     * Starts creating an AppiumDriver for a specific device in the background.
+     *
+     * @see #createDriverAsync(Map, LongConsumer)
+     */
+    public CompletableFuture<AppiumDriver> createDriverAsync(Map<String, Object> deviceCapabilities) {
+        return createDriverAsync(deviceCapabilities, creationNanos -> {
+        });
+    }
+
+    /**
+     * Starts creating an AppiumDriver for a specific device in the background.
+     * <p>
+     * Failed attempts are retried "sessionCreateRetries" times, waiting "sessionRetryBackoff" milliseconds
+     * before the first retry and twice as long before each further one. The future fails with a
+     * TimeoutException after "sessionCreateTimeout" seconds. No attempt starts once the future is done or a retry
+     * would start after the timeout, so an abandoned creation does not compete for the device with the next one;
+     * a session that still opens after that is quit.
+     *
+     * @param deviceCapabilities Capabilities of the target device (e.g. deviceName, udid, systemPort).
+     * @param creationNanos      Told how long the attempt that opened the session took, retries and backoff excluded.
+     * @return A future completed with the opened session
+     */
+    public CompletableFuture<AppiumDriver> createDriverAsync(Map<String, Object> deviceCapabilities,
+                                                             LongConsumer creationNanos) {
+        long timeoutMillis = config.getTimeouts().getSessionCreateTimeout().toMillis();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        CompletableFuture<AppiumDriver> result = new CompletableFuture<>();
+        CompletableFuture<AppiumDriver> session = CompletableFuture.supplyAsync(
+                () -> createDriverWithRetry(deviceCapabilities, deadline, result::isDone, creationNanos),
+                sessionFactory);
+        session.whenComplete((driver, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else if (!result.complete(driver)) {
+                // Nobody will pick up a session that arrives after the timeout
+                quitQuietly(driver);
+            }
+        });
+        result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    private static AppiumServerProvider createProvider(String className) {
+        try {
+            return (AppiumServerProvider) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("mockServer is enabled but " + className + " is not on the classpath; "
+                    + "the mock Appium server is part of the test sources", e);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new RuntimeException("Failed to create the Appium server provider " + className, e);
+        }
+    }
+
+    private AppiumDriver createDriverWithRetry(Map<String, Object> deviceCapabilities, long deadline,
+                                               BooleanSupplier abandoned, LongConsumer creationNanos) {
+        int retries = config.getSessionCreateRetries();
+        long backoff = config.getTimeouts().getSessionRetryBackoff().toMillis();
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                AppiumDriver driver = createDriver(deviceCapabilities);
+                if (!abandoned.getAsBoolean()) {
+                    creationNanos.accept(System.nanoTime() - start);
+                }
+                return driver;
+            } catch (RuntimeException e) {
+                if (attempt >= retries || abandoned.getAsBoolean()
+                        || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff) >= deadline) {
+                    throw e;
+                }
+                logger.warn("Session creation on {} failed (attempt {} of {}), retrying in {} ms: {}",
+                        deviceCapabilities, attempt + 1, retries + 1, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                if (abandoned.getAsBoolean()) {
+                    // The caller timed out or gave up while we waited
+                    throw e;
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    private static void quitQuietly(AppiumDriver driver) {
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to quit a session nobody waits for anymore: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the "appium:" vendor prefix to non-standard capability names.
+     */
+    private static String toW3cName(String name) {
+        if ("platformName".equals(name) || name.contains(":")) {
+            return name;
+        }
+        return "appium:" + name;
+    }
+
+    private static final class SessionThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "session-factory-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -4,34 +4,28 @@ import io.appium.java_client.AppiumDriver;
 
 
 /**
- * DriverInstance manages a single instance of AppiumDriver for the test execution lifecycle.
+ * DriverInstance gives the calling thread access to its AppiumDriver.
+ * Sessions are owned by {@link DriverPool}; this class is kept for callers of the former singleton.
  */
 public class DriverInstance {
-    private static DriverInstance instance;
-    private AppiumDriver driver;  // Specify type here
-    private final DriverGenerator driverGenerator;
-
-    // Private constructor for singleton pattern
-    private DriverInstance(String yamlFilePath) {
-        this.driverGenerator = new DriverGenerator(yamlFilePath);
-        this.driver = driverGenerator.createDriver(); // Initialize the driver here
+    private final DriverPool driverPool;
+
+    private DriverInstance(DriverPool driverPool) {
+        this.driverPool = driverPool;
     }
 
     /**
-     * Get the singleton instance of DriverInstance.
+     * Get a DriverInstance backed by the pool of the given configuration.
      *
      * @param yamlFilePath the path to the YAML configuration file
      * @return DriverInstance
      */
     public static DriverInstance getInstance(String yamlFilePath) {
-        if (instance == null) {
-            instance = new DriverInstance(yamlFilePath);
-        }
-        return instance;
+        return new DriverInstance(DriverPool.getInstance(yamlFilePath));
     }
 
     /**
-     * Get the singleton instance with a default YAML configuration.
+     * Get a DriverInstance with a default YAML configuration.
      *
      * @return DriverInstance
      */
@@ -40,21 +34,18 @@ public class DriverInstance {
     }
 
     /**
-     * Gets the AppiumDriver instance.
+     * Gets the AppiumDriver leased by the calling thread.
      *
-     * @return AppiumDriver<MobileElement> instance
+     * @return AppiumDriver instance
      */
     public AppiumDriver getDriver() {
-        return driver; // Driver is initialized in the constructor
+        return driverPool.getDriver();
     }
 
     /**
-     * Quits the driver and sets it to null.
+     * Quits the calling thread's driver and returns its device to the pool.
      */
     public void quitDriver() {
-        if (driver != null) {
-            driver.quit();
-            driver = null;
-        }
+        driverPool.quitDriver();
     }
 }
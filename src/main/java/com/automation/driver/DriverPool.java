@@ -0,0 +1,648 @@
+package com.automation.driver;
+
+import com.automation.config.DriverConfig;
+import com.automation.logging.TestEvents;
+import com.automation.metrics.ResourceSampling;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * DriverPool hands out AppiumDriver sessions to test threads, one session per configured device.
+ * <p>
+ * A thread leases a device the first time it asks for a driver and keeps it until it releases it,
+ * so every method of a test class talks to the same session while other threads work on other devices.
+ * Leases are per thread, so test classes can run in parallel but the methods of one class must stay on the
+ * thread that leased the device: TestNG parallel="methods" would make every worker thread lease and keep a
+ * device of its own.
+ * Sessions are opened lazily and health-checked before they are handed out; a dead session is replaced
+ * with a new one on the same device.
+ * <p>
+ * With "sessionReuse" enabled, {@link #recycleDriver()} resets the app and keeps the session warm for the
+ * next test class instead of paying for a new session; {@link #getMetrics()} reports the time this saved.
+ * {@link #prewarm()} opens up to "sessionPrewarmDepth" sessions in the background at suite start,
+ * so the first test of each worker picks up a session that is already open.
+ * <p>
+ * A scheduler dispatching test classes to specific devices pins its worker threads with
+ * {@link #pinDevice(String)}; a pinned thread only ever leases its own device.
+ * <p>
+ * Every device has a {@link DeviceCircuitBreaker} fed with its passed screen steps, lost sessions and session starts.
+ * When a device's error rate crosses the threshold, it is no longer leased once its current holder releases it:
+ * its session is replaced in the background and the device rejoins the pool when the new session is open.
+ */
+public class DriverPool {
+    private static final Logger logger = LoggerFactory.getLogger(DriverPool.class);
+
+    private static final String DEFAULT_CONFIG = "androidCapabilities.yaml";
+    private static final long PINNED_LEASE_POLL_MILLIS = 50;
+
+    // Store pools by YAML file paths
+    private static final Map<String, DriverPool> pools = new ConcurrentHashMap<>();
+    private static final ReentrantLock poolsLock = new ReentrantLock();
+
+    private final DriverGenerator driverGenerator;
+    private final List<DeviceSlot> slots;
+    private final BlockingQueue<DeviceSlot> idleSlots;
+    private final ThreadLocal<DeviceSlot> leasedSlot = new ThreadLocal<>();
+    private final ThreadLocal<DeviceSlot> pinnedSlot = new ThreadLocal<>();
+    private final long leaseTimeoutSeconds;
+    private final int prewarmDepth;
+    private final boolean sessionReuse;
+    private final String appPackage;
+    private final String appResetDeepLink;
+    private final long breakerCooldownMillis;
+    private final AtomicBoolean shutDown = new AtomicBoolean();
+    private final SessionMetrics metrics = new SessionMetrics();
+    private final List<Consumer<SessionId>> sessionResetListeners = new CopyOnWriteArrayList<>();
+
+    private DriverPool(String yamlFilePath) {
+        DriverConfig config = DriverConfig.getInstance(yamlFilePath);
+        this.driverGenerator = new DriverGenerator(yamlFilePath);
+        this.leaseTimeoutSeconds = config.getTimeouts().getDriverLeaseTimeout().getSeconds();
+        this.prewarmDepth = config.getSessionPrewarmDepth();
+        this.sessionReuse = config.isSessionReuseEnabled();
+        this.appPackage = String.valueOf(config.getProperty("appPackage"));
+        this.appResetDeepLink = config.getAppResetDeepLink();
+        this.breakerCooldownMillis = config.getTimeouts().getDeviceBreakerCooldown().toMillis();
+
+        List<DeviceSlot> deviceSlots = new ArrayList<>();
+        for (Map<String, Object> device : config.getDevices()) {
+            deviceSlots.add(new DeviceSlot(device,
+                    new DeviceCircuitBreaker(config.getDeviceBreakerErrorRate(), config.getDeviceBreakerWindow())));
+        }
+        this.slots = Collections.unmodifiableList(deviceSlots);
+        this.idleSlots = new ArrayBlockingQueue<>(slots.size(), true, slots);
+        logger.info("Driver pool created with {} device(s): {}", slots.size(), slots);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "driver-pool-shutdown"));
+    }
+
+    /**
+     * Provides access to the pool for the given capabilities file.
+     *
+     * @param yamlFilePath Path to the YAML configuration file.
+     * @return The shared DriverPool for the specified file.
+     */
+    public static DriverPool getInstance(String yamlFilePath) {
+        DriverPool pool = pools.get(yamlFilePath);
+        if (pool != null) {
+            return pool;
+        }
+        poolsLock.lock();
+        try {
+            pool = pools.get(yamlFilePath);
+            if (pool == null) {
+                pool = new DriverPool(yamlFilePath);
+                pools.put(yamlFilePath, pool);
+            }
+            return pool;
+        } finally {
+            poolsLock.unlock();
+        }
+    }
+
+    /**
+     * Provides access to the pool with the default capabilities file.
+     *
+     * @return The shared DriverPool for "androidCapabilities.yaml".
+     */
+    public static DriverPool getInstance() {
+        return getInstance(DEFAULT_CONFIG);
+    }
+
+    /**
+     * Gets the driver leased by the calling thread, leasing a free device first if the thread holds none.
+     *
+     * @return AppiumDriver owned by the calling thread
+     */
+    public AppiumDriver getDriver() {
+        return getDriver(false);
+    }
+
+    /**
+     * Gets the driver leased by the calling thread, leasing a free device first if the thread holds none.
+     *
+     * @param freshSession true to quit a warm session of the device and open a new one.
+     * @return AppiumDriver owned by the calling thread
+     */
+    public AppiumDriver getDriver(boolean freshSession) {
+        DeviceSlot slot = leasedSlot.get();
+        if (slot == null) {
+            slot = lease(freshSession);
+        }
+        return slot.driver;
+    }
+
+    /**
+     * Gets the driver leased by the calling thread without leasing one, e.g. to capture the state of a failed test.
+     *
+     * @return The driver, or null if the thread holds no device or its session is gone.
+     */
+    public AppiumDriver getLeasedDriver() {
+        DeviceSlot slot = leasedSlot.get();
+        return slot == null ? null : slot.driver;
+    }
+
+    /**
+     * Gets the device leased by the calling thread without leasing one.
+     *
+     * @return The device id (udid, or deviceName if no udid is configured), or null if the thread holds no device.
+     */
+    public String getLeasedDeviceId() {
+        DeviceSlot slot = leasedSlot.get();
+        return slot == null ? null : slot.toString();
+    }
+
+    /**
+     * Gets the devices of the pool, in configuration order.
+     *
+     * @return The device ids (udid, or deviceName if no udid is configured).
+     */
+    public List<String> getDeviceIds() {
+        List<String> deviceIds = new ArrayList<>();
+        slots.forEach(slot -> deviceIds.add(slot.toString()));
+        return deviceIds;
+    }
+
+    /**
+     * Checks whether a device can be leased, i.e. its circuit breaker is not open.
+     *
+     * @param deviceId A device id of {@link #getDeviceIds()}.
+     * @return false while the device is out of rotation for a session replacement.
+     */
+    public boolean isDeviceAvailable(String deviceId) {
+        return !slot(deviceId).breaker.isOpen();
+    }
+
+    /**
+     * Records that a step on the calling thread's device succeeded.
+     */
+    public void recordStepSuccess() {
+        DeviceSlot slot = leasedSlot.get();
+        if (slot != null) {
+            slot.breaker.recordSuccess();
+        }
+    }
+
+    /**
+     * Records that a step on the calling thread's device lost its session or its connection. If this opens the device's circuit breaker,
+     * the device leaves the rotation when the thread releases it.
+     */
+    public void recordStepFailure() {
+        DeviceSlot slot = leasedSlot.get();
+        if (slot != null) {
+            recordFailure(slot);
+        }
+    }
+
+    /**
+     * Replaces the calling thread's session after it was lost, keeping the device when its breaker is closed.
+     * A device whose breaker is open is released for a background replacement and another device is leased
+     * (for a pinned thread, the same device once its new session is open).
+     *
+     * @return The new driver of the calling thread.
+     */
+    public AppiumDriver replaceDriver() {
+        DeviceSlot slot = leasedSlot.get();
+        if (slot != null) {
+            if (!slot.breaker.isOpen()) {
+                closeSession(slot);
+            }
+            releaseDriver();
+        }
+        return getDriver(false);
+    }
+
+    /**
+     * Makes the calling thread lease the given device from now on, waiting for it if another thread holds it.
+     *
+     * @param deviceId A device id of {@link #getDeviceIds()}.
+     */
+    public void pinDevice(String deviceId) {
+        pinnedSlot.set(slot(deviceId));
+    }
+
+    /**
+     * Lets the calling thread lease any free device again.
+     */
+    public void unpinDevice() {
+        pinnedSlot.remove();
+    }
+
+    /**
+     * Clears everything the pool keeps for the calling thread: a device it still holds is released and its pin
+     * dropped. Call it when a task ends on a thread that is reused, so no lease outlives the task.
+     */
+    public void detachThread() {
+        if (leasedSlot.get() != null) {
+            logger.warn("Thread {} still held device {}, releasing it", Thread.currentThread().getName(),
+                    leasedSlot.get());
+            releaseDriver();
+        }
+        pinnedSlot.remove();
+    }
+
+    /**
+     * Starts opening sessions in the background on up to "sessionPrewarmDepth" devices that have none.
+     * Returns immediately; a thread leasing one of these devices waits only for what is left of the negotiation.
+     */
+    public void prewarm() {
+        int started = 0;
+        for (DeviceSlot slot : slots) {
+            if (started >= prewarmDepth) {
+                break;
+            }
+            if (slot.driver != null || slot.pendingDriver.get() != null) {
+                continue;
+            }
+            // Claim the slot before opening anything, so a concurrent call never opens a session it cannot keep
+            CompletableFuture<AppiumDriver> claim = new CompletableFuture<>();
+            if (slot.pendingDriver.compareAndSet(null, claim)) {
+                openSession(slot).whenComplete((driver, error) -> {
+                    if (error == null) {
+                        claim.complete(driver);
+                    } else {
+                        claim.completeExceptionally(error);
+                    }
+                });
+                started++;
+            }
+        }
+        if (started > 0) {
+            logger.info("Pre-warming {} session(s) in the background", started);
+        }
+    }
+
+    /**
+     * Registers a callback invoked with the id of a session that was quit or whose app was reset,
+     * so state tied to that session (screens, cached elements) can be dropped.
+     *
+     * @param listener Callback receiving the session id.
+     */
+    public void addSessionResetListener(Consumer<SessionId> listener) {
+        sessionResetListeners.add(listener);
+    }
+
+    /**
+     * Checks whether sessions are recycled between test classes.
+     *
+     * @return true if "sessionReuse" is enabled in the configuration.
+     */
+    public boolean isSessionReuseEnabled() {
+        return sessionReuse;
+    }
+
+    /**
+     * Gets the session creation and reuse counters of this pool.
+     *
+     * @return SessionMetrics of this pool
+     */
+    public SessionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Resets the app on the calling thread's session and returns its device to the pool with the session
+     * still open. Falls back to {@link #quitDriver()} when session reuse is disabled or the reset fails.
+     */
+    public void recycleDriver() {
+        DeviceSlot slot = leasedSlot.get();
+        if (slot == null) {
+            logger.warn("Thread {} holds no driver to recycle", Thread.currentThread().getName());
+            return;
+        }
+        if (!sessionReuse) {
+            quitDriver();
+            return;
+        }
+        try {
+            resetApp(slot.driver);
+            notifySessionReset(slot.driver.getSessionId());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to reset the app on device {}, quitting its session: {}", slot, e.getMessage());
+            closeSession(slot);
+        }
+        releaseDriver();
+    }
+
+    /**
+     * Returns the calling thread's device to the pool, keeping its session open for the next lease.
+     */
+    public void releaseDriver() {
+        DeviceSlot slot = leasedSlot.get();
+        if (slot == null) {
+            logger.warn("Thread {} holds no driver to release", Thread.currentThread().getName());
+            return;
+        }
+        leasedSlot.remove();
+        MDC.remove(TestEvents.DEVICE);
+        if (slot.breaker.isOpen()) {
+            replaceInBackground(slot);
+        } else {
+            idleSlots.offer(slot);
+        }
+        logger.info("Released device {}", slot);
+    }
+
+    /**
+     * Quits the calling thread's session and returns its device to the pool.
+     * The next lease of that device opens a new session.
+     */
+    public void quitDriver() {
+        DeviceSlot slot = leasedSlot.get();
+        if (slot == null) {
+            logger.warn("Thread {} holds no driver to quit", Thread.currentThread().getName());
+            return;
+        }
+        closeSession(slot);
+        releaseDriver();
+    }
+
+    /**
+     * Quits every idle session and every pre-warmed session nobody picked up. Devices still leased are quit by
+     * their owning threads. Only the first call, from the suite or the JVM shutdown hook, does anything.
+     */
+    public void shutdown() {
+        if (!shutDown.compareAndSet(false, true)) {
+            return;
+        }
+        for (DeviceSlot slot : slots) {
+            CompletableFuture<AppiumDriver> pending = slot.pendingDriver.getAndSet(null);
+            if (pending != null) {
+                // A session still being negotiated is quit as soon as it is open
+                pending.thenAccept(driver -> quitPrewarmed(slot, driver));
+            }
+        }
+        List<DeviceSlot> drained = new ArrayList<>();
+        idleSlots.drainTo(drained);
+        drained.forEach(this::closeSession);
+        idleSlots.addAll(drained);
+        logger.info("Driver pool shut down, {}", metrics);
+    }
+
+    /**
+     * Brings the app back to its start screen, either through the configured deep link
+     * or by terminating and activating it. Both are far cheaper than a new session.
+     */
+    private void resetApp(AppiumDriver driver) {
+        if (appResetDeepLink != null) {
+            driver.executeScript("mobile: deepLink", Map.of("url", appResetDeepLink, "package", appPackage));
+        } else {
+            driver.executeScript("mobile: terminateApp", Map.of("appId", appPackage));
+            driver.executeScript("mobile: activateApp", Map.of("appId", appPackage));
+        }
+        logger.debug("App {} reset", appPackage);
+    }
+
+    private DeviceSlot lease(boolean freshSession) {
+        DeviceSlot slot;
+        try {
+            DeviceSlot pinned = pinnedSlot.get();
+            slot = pinned == null ? idleSlots.poll(leaseTimeoutSeconds, TimeUnit.SECONDS) : takeIdle(pinned);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a free device", e);
+        }
+        if (slot == null) {
+            throw new RuntimeException("No device became free within " + leaseTimeoutSeconds + " seconds");
+        }
+
+        try {
+            boolean prewarmed = takePrewarmedDriver(slot);
+            if (freshSession && !prewarmed) {
+                closeSession(slot);
+            }
+            if (!slot.isHealthy()) {
+                if (slot.driver != null) {
+                    recordFailure(slot);
+                }
+                closeSession(slot);
+                logger.info("Opening a new session on device {}", slot);
+                slot.driver = awaitSession(openSession(slot));
+                slot.breaker.recordSuccess();
+            } else if (!prewarmed) {
+                metrics.recordReuse();
+            }
+        } catch (RuntimeException e) {
+            if (recordFailure(slot)) {
+                replaceInBackground(slot);
+            } else {
+                idleSlots.offer(slot);
+            }
+            throw e;
+        }
+        leasedSlot.set(slot);
+        MDC.put(TestEvents.DEVICE, slot.toString());
+        logger.info("Thread {} leased device {}", Thread.currentThread().getName(), slot);
+        return slot;
+    }
+
+    /**
+     * Waits for a specific device to be returned to the pool and takes it.
+     *
+     * @return The slot, or null if it did not become free within the lease timeout.
+     */
+    private DeviceSlot takeIdle(DeviceSlot slot) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(leaseTimeoutSeconds);
+        while (!idleSlots.remove(slot)) {
+            if (System.nanoTime() >= deadline) {
+                return null;
+            }
+            Thread.sleep(PINNED_LEASE_POLL_MILLIS);
+        }
+        return slot;
+    }
+
+    /**
+     * Quits the session of a device taken out of rotation and opens a new one in the background.
+     * The device rejoins the pool with a half-open breaker once the session is open; a failed attempt
+     * is tried again after the "deviceBreakerCooldown".
+     */
+    private void replaceInBackground(DeviceSlot slot) {
+        if (shutDown.get()) {
+            idleSlots.offer(slot);
+            return;
+        }
+        logger.warn("Device {} is out of rotation, breaker {}; replacing its session in the background",
+                slot, slot.breaker);
+        CompletableFuture.runAsync(() -> closeSession(slot))
+                .thenCompose(ignored -> openSession(slot))
+                .whenComplete((driver, error) -> {
+                    if (error == null) {
+                        slot.driver = driver;
+                        slot.breaker.halfOpen();
+                        metrics.recordReplacement();
+                        if (shutDown.get()) {
+                            // Nobody quits sessions opened after the pool was shut down
+                            closeSession(slot);
+                        }
+                        idleSlots.offer(slot);
+                        logger.info("Replaced the session of device {}, back in rotation", slot);
+                    } else {
+                        logger.warn("Failed to replace the session of device {}, trying again in {} ms: {}",
+                                slot, breakerCooldownMillis, error.getMessage());
+                        CompletableFuture.delayedExecutor(breakerCooldownMillis, TimeUnit.MILLISECONDS)
+                                .execute(() -> replaceInBackground(slot));
+                    }
+                });
+    }
+
+    /**
+     * Records a failure on a device.
+     *
+     * @return true if it opened the device's breaker.
+     */
+    private boolean recordFailure(DeviceSlot slot) {
+        boolean tripped = slot.breaker.recordFailure();
+        if (tripped) {
+            metrics.recordBreakerTrip();
+            logger.warn("Device {} crossed its error rate threshold, taking it out of rotation", slot);
+        }
+        return tripped;
+    }
+
+    private DeviceSlot slot(String deviceId) {
+        for (DeviceSlot slot : slots) {
+            if (slot.toString().equals(deviceId)) {
+                return slot;
+            }
+        }
+        throw new RuntimeException("Unknown device: " + deviceId + ", configured devices are " + slots);
+    }
+
+    /**
+     * Waits for a session pre-warmed on the device and makes it the slot's driver.
+     *
+     * @return true if a pre-warmed session was picked up.
+     */
+    private boolean takePrewarmedDriver(DeviceSlot slot) {
+        CompletableFuture<AppiumDriver> pending = slot.pendingDriver.getAndSet(null);
+        if (pending == null) {
+            return false;
+        }
+        try {
+            AppiumDriver prewarmed = awaitSession(pending);
+            closeSession(slot);
+            slot.driver = prewarmed;
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Pre-warmed session on device {} failed: {}", slot, e.getMessage());
+            return false;
+        }
+    }
+
+    private void quitPrewarmed(DeviceSlot slot, AppiumDriver driver) {
+        ResourceSampling.getInstance().stop(driver.getSessionId());
+        try {
+            driver.quit();
+            logger.info("Quit the unused pre-warmed session on device {}", slot);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to quit the pre-warmed session on device {}: {}", slot, e.getMessage());
+        }
+    }
+
+    private void closeSession(DeviceSlot slot) {
+        SessionId sessionId = slot.quit();
+        if (sessionId != null) {
+            notifySessionReset(sessionId);
+        }
+    }
+
+    private void notifySessionReset(SessionId sessionId) {
+        for (Consumer<SessionId> listener : sessionResetListeners) {
+            listener.accept(sessionId);
+        }
+    }
+
+    private CompletableFuture<AppiumDriver> openSession(DeviceSlot slot) {
+        return driverGenerator.createDriverAsync(slot.capabilities, metrics::recordCreation).thenApply(driver -> {
+            ResourceSampling.getInstance().start(driver, slot.toString());
+            return driver;
+        });
+    }
+
+    private static AppiumDriver awaitSession(CompletableFuture<AppiumDriver> session) {
+        try {
+            return session.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Failed to open an Appium session", cause);
+        }
+    }
+
+    /**
+     * One device of the pool and the session currently open on it, if any.
+     * A slot is only touched by the thread that leased it, except for a session being pre-warmed.
+     */
+    private static final class DeviceSlot {
+        private final Map<String, Object> capabilities;
+        private final DeviceCircuitBreaker breaker;
+        private final AtomicReference<CompletableFuture<AppiumDriver>> pendingDriver = new AtomicReference<>();
+        private volatile AppiumDriver driver;
+
+        private DeviceSlot(Map<String, Object> capabilities, DeviceCircuitBreaker breaker) {
+            this.capabilities = capabilities;
+            this.breaker = breaker;
+        }
+
+        private boolean isHealthy() {
+            if (driver == null || driver.getSessionId() == null) {
+                return false;
+            }
+            try {
+                driver.getSettings();
+                return true;
+            } catch (RuntimeException e) {
+                logger.warn("Session on device {} failed its health check: {}", this, e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * Quits the slot's session, if any.
+         *
+         * @return The id of the session quit, or null if there was none.
+         */
+        private SessionId quit() {
+            AppiumDriver current = driver;
+            if (current == null) {
+                return null;
+            }
+            SessionId sessionId = current.getSessionId();
+            ResourceSampling.getInstance().stop(sessionId);
+            try {
+                current.quit();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to quit session on device {}: {}", this, e.getMessage());
+            }
+            driver = null;
+            return sessionId;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(capabilities.getOrDefault("udid", capabilities.get("deviceName")));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.automation.driver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class that must not share its Appium session with other classes.
+ * <p>
+ * When session reuse is enabled, an annotated class starts on a newly created session and
+ * quits it when it finishes instead of handing it back to the pool.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface FreshSession {
+}
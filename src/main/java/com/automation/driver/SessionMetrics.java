@@ -0,0 +1,77 @@
+package com.automation.driver;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SessionMetrics counts how many sessions a pool created and how many times it reused a warm one.
+ * The time saved by reuse is estimated from the average cost of the sessions actually created.
+ * It also counts the devices taken out of rotation by their circuit breaker and the sessions replaced for them.
+ */
+public class SessionMetrics {
+    private final AtomicLong sessionsCreated = new AtomicLong();
+    private final AtomicLong creationNanos = new AtomicLong();
+    private final AtomicLong sessionsReused = new AtomicLong();
+    private final AtomicLong breakerTrips = new AtomicLong();
+    private final AtomicLong sessionsReplaced = new AtomicLong();
+
+    void recordCreation(long elapsedNanos) {
+        sessionsCreated.incrementAndGet();
+        creationNanos.addAndGet(elapsedNanos);
+    }
+
+    void recordReuse() {
+        sessionsReused.incrementAndGet();
+    }
+
+    void recordBreakerTrip() {
+        breakerTrips.incrementAndGet();
+    }
+
+    void recordReplacement() {
+        sessionsReplaced.incrementAndGet();
+    }
+
+    public long getSessionsCreated() {
+        return sessionsCreated.get();
+    }
+
+    public long getSessionsReused() {
+        return sessionsReused.get();
+    }
+
+    public long getBreakerTrips() {
+        return breakerTrips.get();
+    }
+
+    public long getSessionsReplaced() {
+        return sessionsReplaced.get();
+    }
+
+    /**
+     * Gets the average time it took to open a session.
+     *
+     * @return The average creation time, or zero if no session was created yet.
+     */
+    public Duration getAverageCreationTime() {
+        long created = sessionsCreated.get();
+        return created == 0 ? Duration.ZERO : Duration.ofNanos(creationNanos.get() / created);
+    }
+
+    /**
+     * Estimates the session creation time avoided by reusing warm sessions.
+     *
+     * @return Number of reuses multiplied by the average creation time.
+     */
+    public Duration getEstimatedTimeSaved() {
+        return getAverageCreationTime().multipliedBy(sessionsReused.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sessions created: %d (avg %d ms), sessions reused: %d, creation time saved: ~%d s, "
+                        + "device breaker trips: %d, sessions replaced in the background: %d",
+                getSessionsCreated(), getAverageCreationTime().toMillis(), getSessionsReused(),
+                getEstimatedTimeSaved().getSeconds(), getBreakerTrips(), getSessionsReplaced());
+    }
+}
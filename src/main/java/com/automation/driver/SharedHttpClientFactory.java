@@ -0,0 +1,79 @@
+package com.automation.driver;
+
+import com.automation.config.HttpConfig;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.WebSocket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SharedHttpClientFactory gives every session on the same Appium server one shared HTTP client.
+ * <p>
+ * By default each session gets a client of its own, with its own connection pool and threads, so parallel
+ * sessions open connections they never share and every new session starts cold. The shared client keeps its
+ * connections alive between commands and sessions, and is set up with the timeouts and HTTP version of
+ * {@link HttpConfig}. Quitting a session leaves the shared client open for the others.
+ */
+final class SharedHttpClientFactory implements HttpClient.Factory {
+    private static final Logger logger = LoggerFactory.getLogger(SharedHttpClientFactory.class);
+
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+    private final HttpConfig config;
+    private final HttpClient.Factory delegate = HttpClient.Factory.createDefault();
+    private final Map<URI, HttpClient> clients = new ConcurrentHashMap<>();
+
+    SharedHttpClientFactory(HttpConfig config) {
+        this.config = config;
+        // Read once by the JDK client when its connection pool is first used; an explicit -D setting wins
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) == null) {
+            System.setProperty(KEEP_ALIVE_PROPERTY, String.valueOf(config.getKeepAlive().getSeconds()));
+        }
+    }
+
+    @Override
+    public HttpClient createClient(ClientConfig clientConfig) {
+        return clients.computeIfAbsent(clientConfig.baseUri(), uri -> {
+            logger.info("Sharing one {} client for the sessions on {} (connect timeout {} s, read timeout {} s)",
+                    config.getVersion(), uri, config.getConnectTimeout().getSeconds(),
+                    config.getReadTimeout().getSeconds());
+            return new SharedClient(delegate.createClient(clientConfig
+                    .connectionTimeout(config.getConnectTimeout())
+                    .readTimeout(config.getReadTimeout())
+                    .version(config.getVersion())));
+        });
+    }
+
+    /**
+     * A client whose close() is ignored, as the executor of a session closes its client when the session quits.
+     */
+    private static final class SharedClient implements HttpClient {
+        private final HttpClient client;
+
+        private SharedClient(HttpClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            return client.execute(request);
+        }
+
+        @Override
+        public WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+            return client.openSocket(request, listener);
+        }
+
+        @Override
+        public void close() {
+            // Still in use by the other sessions
+        }
+    }
+}
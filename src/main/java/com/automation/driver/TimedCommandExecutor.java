@@ -0,0 +1,66 @@
+package com.automation.driver;
+
+import com.automation.metrics.CommandMetrics;
+import com.automation.metrics.ResourceSampling;
+import com.automation.metrics.StepContext;
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.remote.AppiumCommandExecutor;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.http.HttpClient;
+
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * TimedCommandExecutor sends Appium commands like the default executor and records the round-trip time,
+ * locator and request size of every command in {@link CommandMetrics}. The screen method sending a command also
+ * tags the resource samples of its session; the sampler's own commands are neither timed nor tagged.
+ */
+public class TimedCommandExecutor extends AppiumCommandExecutor {
+    private static final Json json = new Json();
+
+    public TimedCommandExecutor(URL addressOfRemoteServer) {
+        super(MobileCommand.commandRepository, addressOfRemoteServer);
+    }
+
+    public TimedCommandExecutor(URL addressOfRemoteServer, HttpClient.Factory httpClientFactory) {
+        super(MobileCommand.commandRepository, addressOfRemoteServer, httpClientFactory);
+    }
+
+    @Override
+    public Response execute(Command command) {
+        if (ResourceSampling.isSamplingThread()) {
+            return super.execute(command);
+        }
+        String screenMethod = StepContext.getScreenMethod();
+        ResourceSampling.getInstance().noteCommand(command.getSessionId(), screenMethod);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Response response = super.execute(command);
+            // W3C responses carry "success" or the error code as their state; errors may also be thrown instead
+            failed = response != null && response.getState() != null && !"success".equals(response.getState());
+            return response;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Map<String, ?> parameters = command.getParameters();
+            CommandMetrics.record(command.getName(), screenMethod, locatorOf(command), elapsed,
+                    parameters.isEmpty() ? 0 : json.toJson(parameters).length(), failed);
+        }
+    }
+
+    private static String locatorOf(Command command) {
+        switch (command.getName()) {
+            case DriverCommand.FIND_ELEMENT:
+            case DriverCommand.FIND_ELEMENTS:
+            case DriverCommand.FIND_CHILD_ELEMENT:
+            case DriverCommand.FIND_CHILD_ELEMENTS:
+                return command.getParameters().get("using") + ": " + command.getParameters().get("value");
+            default:
+                return null;
+        }
+    }
+}
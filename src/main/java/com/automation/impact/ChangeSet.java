@@ -0,0 +1,407 @@
+package com.automation.impact;
+
+import com.automation.locators.CompiledLocator;
+import com.automation.locators.LocatorCompiler;
+import io.appium.java_client.pagefactory.AndroidFindBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ChangeSet is what changed between two versions of the app or of the tests: whole screens, single locators
+ * and test classes. A change outside the screens and tests (framework code, configuration, build) affects
+ * every test, and so does a change to a test source declaring no test, such as a base class or a listener.
+ * <p>
+ * It is read either from a git diff, where a screen whose only change is in its {@code @AndroidFindBy}
+ * declarations affects only the tests reading those fields, or from UI dumps of the previous and the new app
+ * build, where a locator is affected when the element it matches differs between the two.
+ */
+public final class ChangeSet {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeSet.class);
+
+    private static final String SCREENS_SOURCES = "src/main/java/com/automation/screens/";
+    private static final String TESTS_SOURCES = "src/test/java/com/automation/tests/";
+    private static final String SCREENS_PACKAGE = "com.automation.screens.";
+    private static final Pattern LOCATOR_FIELD = Pattern.compile(
+            "@AndroidFindBy\\s*\\(((?:[^()\"]|\"(?:[^\"\\\\]|\\\\.)*\")*)\\)\\s*"
+                    + "(?:(?:private|protected|public|final|static)\\s+)*WebElement\\s+(\\w+)\\s*;");
+    private static final Pattern TEST_ANNOTATION = Pattern.compile("@Test\\b");
+    // Attributes telling whether a locator still matches the same element
+    private static final String[] SIGNATURE_ATTRIBUTES =
+            {"resource-id", "class", "text", "content-desc", "enabled", "clickable", "displayed"};
+
+    private final boolean everything;
+    private final Set<String> screens;
+    private final Set<String> locators;
+    private final Set<String> testClasses;
+
+    private ChangeSet(boolean everything, Set<String> screens, Set<String> locators, Set<String> testClasses) {
+        this.everything = everything;
+        this.screens = Collections.unmodifiableSet(screens);
+        this.locators = Collections.unmodifiableSet(locators);
+        this.testClasses = Collections.unmodifiableSet(testClasses);
+    }
+
+    /**
+     * Reads the changes of the working tree against a git revision, untracked files included.
+     *
+     * @param base The revision, e.g. "origin/main".
+     * @return The changes.
+     */
+    public static ChangeSet fromGitDiff(String base) {
+        List<String> files = new ArrayList<>(lines(git(true, "diff", "--name-only", base, "--")));
+        files.addAll(lines(git(true, "ls-files", "--others", "--exclude-standard")));
+        ChangeSet changes = fromChangedFiles(files, file -> git(false, "show", base + ":" + file));
+        logger.info("Changes against {}: {}", base, changes);
+        return changes;
+    }
+
+    /**
+     * Reads the changes from the files changed in the working tree.
+     *
+     * @param files       Paths of the changed files, relative to the working directory.
+     * @param baseVersion Gives the content of a file before the change, or null if it did not exist.
+     * @return The changes.
+     */
+    static ChangeSet fromChangedFiles(List<String> files, Function<String, String> baseVersion) {
+        boolean everything = false;
+        Set<String> screens = new TreeSet<>();
+        Set<String> locators = new TreeSet<>();
+        Set<String> testClasses = new TreeSet<>();
+        for (String file : files) {
+            if (file.startsWith(SCREENS_SOURCES) && file.endsWith(".java")) {
+                String screen = file.substring(SCREENS_SOURCES.length(), file.length() - ".java".length());
+                compareScreen(screen, baseVersion.apply(file), readIfExists(Paths.get(file)), screens, locators);
+            } else if (file.startsWith(TESTS_SOURCES) && file.endsWith(".java")
+                    && declaresTests(baseVersion.apply(file), readIfExists(Paths.get(file)))) {
+                testClasses.add(file.substring("src/test/java/".length(), file.length() - ".java".length())
+                        .replace('/', '.'));
+            } else if (file.startsWith(TESTS_SOURCES)) {
+                // e.g. BaseTest or a listener: it runs with tests declared in other classes
+                logger.info("{} changed and declares no test, which may affect every test", file);
+                everything = true;
+            } else if (file.startsWith("src/") || "pom.xml".equals(file)) {
+                logger.info("{} changed, which may affect every test", file);
+                everything = true;
+            }
+        }
+        return new ChangeSet(everything, screens, locators, testClasses);
+    }
+
+    /**
+     * Compares the UI dumps of two app builds. Each dump in the new directory is compared with the dump of the
+     * same file name in the baseline directory, and every indexed locator is evaluated on both.
+     *
+     * @param baseline Directory of page source dumps of the previous build.
+     * @param current  Directory of page source dumps of the new build.
+     * @param index    The index naming the locators to check.
+     * @return The changes.
+     */
+    public static ChangeSet fromUiDumps(Path baseline, Path current, ImpactIndex index) {
+        Map<String, CompiledLocator> compiled = new HashMap<>();
+        Map<String, AndroidFindBy> declared = new HashMap<>();
+        for (String locator : index.getLocatorFields()) {
+            Field field = locatorField(locator);
+            if (field != null) {
+                compiled.put(locator, LocatorCompiler.compile(field));
+                declared.put(locator, field.getAnnotation(AndroidFindBy.class));
+            }
+        }
+
+        Set<String> locators = new TreeSet<>();
+        for (Path dump : listDumps(current)) {
+            Path previous = baseline.resolve(dump.getFileName().toString());
+            if (!Files.exists(previous)) {
+                logger.warn("No baseline dump {} for {}, skipping it", previous, dump);
+                continue;
+            }
+            String before = readIfExists(previous);
+            String after = readIfExists(dump);
+            Document beforeDocument = parse(before);
+            Document afterDocument = parse(after);
+            compiled.forEach((locator, compiledLocator) -> {
+                AndroidFindBy findBy = declared.get(locator);
+                if (!findBy.uiAutomator().isEmpty()) {
+                    // A UiSelector cannot be evaluated offline: any change of the screen may affect it
+                    if (!before.equals(after)) {
+                        locators.add(locator);
+                    }
+                } else if (!Objects.equals(signature(beforeDocument, compiledLocator, findBy),
+                        signature(afterDocument, compiledLocator, findBy))) {
+                    locators.add(locator);
+                }
+            });
+        }
+        ChangeSet changes = new ChangeSet(false, new TreeSet<>(), locators, new TreeSet<>());
+        logger.info("Changes between the UI dumps of {} and {}: {}", baseline, current, changes);
+        return changes;
+    }
+
+    /**
+     * Combines two change sets.
+     *
+     * @param other The other changes.
+     * @return The changes of both.
+     */
+    public ChangeSet and(ChangeSet other) {
+        return new ChangeSet(everything || other.everything, union(screens, other.screens),
+                union(locators, other.locators), union(testClasses, other.testClasses));
+    }
+
+    /**
+     * Checks whether a test is affected.
+     *
+     * @param test    Test name as "package.Class.method".
+     * @param targets The screens and locators the test touches.
+     * @return true if the test should run.
+     */
+    boolean affects(String test, Set<String> targets) {
+        if (everything || testClasses.contains(test.substring(0, test.lastIndexOf('.')))) {
+            return true;
+        }
+        for (String target : targets) {
+            if (screens.contains(target) || locators.contains(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEverything() {
+        return everything;
+    }
+
+    public Set<String> getScreens() {
+        return screens;
+    }
+
+    public Set<String> getLocators() {
+        return locators;
+    }
+
+    public Set<String> getTestClasses() {
+        return testClasses;
+    }
+
+    /**
+     * Compares two versions of a screen source: changed locator declarations affect their fields,
+     * any other change affects the whole screen.
+     */
+    private static void compareScreen(String screen, String before, String after, Set<String> screens,
+                                      Set<String> locators) {
+        if (before == null || after == null) {
+            screens.add(screen);
+            return;
+        }
+        Map<String, String> locatorsBefore = locatorDeclarations(before);
+        Map<String, String> locatorsAfter = locatorDeclarations(after);
+        Set<String> fields = union(locatorsBefore.keySet(), locatorsAfter.keySet());
+        for (String field : fields) {
+            if (!Objects.equals(locatorsBefore.get(field), locatorsAfter.get(field))) {
+                locators.add(screen + "." + field);
+            }
+        }
+        if (!withoutLocators(before).equals(withoutLocators(after))) {
+            screens.add(screen);
+        }
+    }
+
+    /**
+     * Checks whether either version of a test source declares a test, so a change to it affects that class only.
+     */
+    private static boolean declaresTests(String before, String after) {
+        return before != null && TEST_ANNOTATION.matcher(before).find()
+                || after != null && TEST_ANNOTATION.matcher(after).find();
+    }
+
+    private static Map<String, String> locatorDeclarations(String source) {
+        Map<String, String> declarations = new HashMap<>();
+        Matcher matcher = LOCATOR_FIELD.matcher(source);
+        while (matcher.find()) {
+            declarations.put(matcher.group(2), matcher.group(1).replaceAll("\\s+", ""));
+        }
+        return declarations;
+    }
+
+    private static String withoutLocators(String source) {
+        return LOCATOR_FIELD.matcher(source).replaceAll("").replaceAll("\\s+", "");
+    }
+
+    private static Field locatorField(String locator) {
+        int separator = locator.indexOf('.');
+        try {
+            return Class.forName(SCREENS_PACKAGE + locator.substring(0, separator))
+                    .getDeclaredField(locator.substring(separator + 1));
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Cannot resolve locator field {}: {}", locator, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Describes the first element a locator matches in a dump.
+     *
+     * @return The element's identifying attributes, or null if the locator matches nothing.
+     */
+    private static String signature(Document document, CompiledLocator locator, AndroidFindBy findBy) {
+        Element element = findFirst(document, locator, findBy);
+        if (element == null) {
+            return null;
+        }
+        StringBuilder signature = new StringBuilder(element.getTagName());
+        for (String attribute : SIGNATURE_ATTRIBUTES) {
+            signature.append('|').append(element.getAttribute(attribute));
+        }
+        return signature.toString();
+    }
+
+    private static Element findFirst(Document document, CompiledLocator locator, AndroidFindBy findBy) {
+        if (!findBy.xpath().isEmpty()) {
+            try {
+                NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath()
+                        .evaluate(findBy.xpath(), document, XPathConstants.NODESET);
+                for (int i = 0; i < nodes.getLength(); i++) {
+                    if (nodes.item(i) instanceof Element) {
+                        return (Element) nodes.item(i);
+                    }
+                }
+                return null;
+            } catch (XPathExpressionException e) {
+                throw new RuntimeException("Invalid XPath " + findBy.xpath(), e);
+            }
+        }
+        NodeList elements = document.getElementsByTagName("*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            Element element = (Element) elements.item(i);
+            if (matches(element, locator, findBy)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(Element element, CompiledLocator locator, AndroidFindBy findBy) {
+        Map<String, String> attributes = locator.getAttributes();
+        if (attributes == null) {
+            // A bare id, which the server resolves in the app package
+            String resourceId = element.getAttribute("resource-id");
+            return resourceId.equals(findBy.id()) || resourceId.endsWith(":id/" + findBy.id());
+        }
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            String value = "class".equals(attribute.getKey()) && !element.hasAttribute("class")
+                    ? element.getTagName() : element.getAttribute(attribute.getKey());
+            if (!attribute.getValue().equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Path> listDumps(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".xml")).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list the UI dumps in " + directory, e);
+        }
+    }
+
+    private static Document parse(String pageSource) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder()
+                    .parse(new InputSource(new StringReader(pageSource)));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse UI dump", e);
+        }
+    }
+
+    private static String readIfExists(Path file) {
+        try {
+            return Files.exists(file) ? Files.readString(file, StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+    }
+
+    /**
+     * Runs git in the working directory.
+     *
+     * @param required true to fail on a git error, false to return null instead.
+     * @return The standard output.
+     */
+    private static String git(boolean required, String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        Collections.addAll(command, arguments);
+        try {
+            Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            String output;
+            try (InputStream input = process.getInputStream()) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                input.transferTo(buffer);
+                output = buffer.toString(StandardCharsets.UTF_8);
+            }
+            if (process.waitFor() != 0) {
+                if (required) {
+                    throw new RuntimeException("git " + String.join(" ", arguments) + " failed");
+                }
+                return null;
+            }
+            return output;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to run git", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running git", e);
+        }
+    }
+
+    private static List<String> lines(String output) {
+        return output.lines().map(String::trim).filter(line -> !line.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static Set<String> union(Set<String> first, Set<String> second) {
+        Set<String> union = new TreeSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    @Override
+    public String toString() {
+        return everything ? "everything" : "screens " + screens + ", locators " + locators
+                + ", test classes " + testClasses;
+    }
+}
@@ -0,0 +1,285 @@
+package com.automation.impact;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ImpactAnalyzer reads the bytecode of the test and screen classes and finds, for every test method,
+ * the screens and {@code @AndroidFindBy} fields it reaches.
+ * <p>
+ * Starting from a test method and the configuration methods of its class, it follows every call into the
+ * tests and screens packages, lambdas and method references included. A screen is reached when one of its
+ * methods or constructors runs or its class is looked up (e.g. {@code ScreenRegistry.get(LoginScreen.class)});
+ * a locator is reached when its field is read.
+ */
+final class ImpactAnalyzer {
+    private static final String FIND_BY = "Lio/appium/java_client/pagefactory/AndroidFindBy;";
+    private static final String TEST = "Lorg/testng/annotations/Test;";
+    private static final String TESTNG_ANNOTATIONS = "Lorg/testng/annotations/";
+
+    private final String screensPackage;
+    private final String testsPackage;
+    private final Map<String, ClassInfo> classes = new HashMap<>();
+
+    /**
+     * @param screensPackage Internal name of the screens package, e.g. "com/automation/screens/".
+     * @param testsPackage   Internal name of the tests package, e.g. "com/automation/tests/".
+     */
+    ImpactAnalyzer(String screensPackage, String testsPackage) {
+        this.screensPackage = screensPackage;
+        this.testsPackage = testsPackage;
+    }
+
+    /**
+     * Adds a class of the screens or tests package.
+     *
+     * @param bytecode The class file.
+     */
+    void add(byte[] bytecode) {
+        ClassInfo info = new ClassInfo();
+        new ClassReader(bytecode).accept(new ClassScanner(info), ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        classes.put(info.name, info);
+    }
+
+    /**
+     * Finds what each test method reaches.
+     *
+     * @return The targets ("LoginScreen" and "LoginScreen.headerSection") by test ("com.automation.tests.LoginScreenTest.loginScreenVerificationTest").
+     */
+    Map<String, Set<String>> analyze() {
+        Map<String, Set<String>> result = new TreeMap<>();
+        for (ClassInfo testClass : classes.values()) {
+            if (!testClass.name.startsWith(testsPackage) || testClass.isAbstract) {
+                continue;
+            }
+            List<MethodInfo> configuration = new ArrayList<>();
+            List<MethodInfo> tests = new ArrayList<>();
+            for (ClassInfo type = testClass; type != null; type = classes.get(type.superName)) {
+                for (MethodInfo method : type.methods.values()) {
+                    if (method.isTest || (type.isTestClass && method.isPublic && !method.isConstructor())) {
+                        tests.add(method);
+                    } else if (method.isConfiguration) {
+                        configuration.add(method);
+                    }
+                }
+            }
+            for (MethodInfo test : tests) {
+                List<MethodInfo> roots = new ArrayList<>(configuration);
+                roots.add(test);
+                result.put(testClass.name.replace('/', '.') + "." + test.name, reach(roots));
+            }
+        }
+        return result;
+    }
+
+    private Set<String> reach(Collection<MethodInfo> roots) {
+        Set<String> targets = new TreeSet<>();
+        Set<MethodInfo> visited = new HashSet<>();
+        Deque<MethodInfo> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            MethodInfo method = pending.poll();
+            if (!visited.add(method)) {
+                continue;
+            }
+            if (method.owner.startsWith(screensPackage)) {
+                targets.add(simpleName(method.owner));
+            }
+            for (String screen : method.screenClasses) {
+                targets.add(simpleName(screen));
+            }
+            for (String field : method.fieldReads) {
+                int separator = field.indexOf('.');
+                ClassInfo owner = classes.get(field.substring(0, separator));
+                if (owner != null && owner.locatorFields.contains(field.substring(separator + 1))) {
+                    targets.add(simpleName(owner.name) + "." + field.substring(separator + 1));
+                }
+            }
+            for (String call : method.calls) {
+                MethodInfo callee = resolve(call);
+                if (callee != null) {
+                    pending.add(callee);
+                }
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Resolves a call "owner.name descriptor" to the method it runs, looking up the superclasses.
+     */
+    private MethodInfo resolve(String call) {
+        int separator = call.indexOf('.');
+        String signature = call.substring(separator + 1);
+        for (ClassInfo type = classes.get(call.substring(0, separator)); type != null; type = classes.get(type.superName)) {
+            MethodInfo method = type.methods.get(signature);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAnalyzed(String owner) {
+        return owner.startsWith(screensPackage) || owner.startsWith(testsPackage);
+    }
+
+    private static String simpleName(String internalName) {
+        String name = internalName.substring(internalName.lastIndexOf('/') + 1);
+        int nested = name.indexOf('$');
+        return nested < 0 ? name : name.substring(0, nested);
+    }
+
+    private static final class ClassInfo {
+        private String name;
+        private String superName;
+        private boolean isAbstract;
+        private boolean isTestClass;
+        private final Set<String> locatorFields = new HashSet<>();
+        private final Map<String, MethodInfo> methods = new HashMap<>();
+    }
+
+    private static final class MethodInfo {
+        private final String owner;
+        private final String name;
+        private final boolean isPublic;
+        private boolean isTest;
+        private boolean isConfiguration;
+        private final Set<String> calls = new HashSet<>();
+        private final Set<String> fieldReads = new HashSet<>();
+        private final Set<String> screenClasses = new HashSet<>();
+
+        private MethodInfo(String owner, String name, boolean isPublic) {
+            this.owner = owner;
+            this.name = name;
+            this.isPublic = isPublic;
+        }
+
+        private boolean isConstructor() {
+            return name.startsWith("<");
+        }
+    }
+
+    private final class ClassScanner extends ClassVisitor {
+        private final ClassInfo info;
+
+        private ClassScanner(ClassInfo info) {
+            super(Opcodes.ASM9);
+            this.info = info;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName,
+                          String[] interfaces) {
+            info.name = name;
+            info.superName = superName;
+            info.isAbstract = (access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_INTERFACE)) != 0;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (TEST.equals(descriptor)) {
+                info.isTestClass = true;
+            }
+            return null;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            return new FieldVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                    if (FIND_BY.equals(annotation)) {
+                        info.locatorFields.add(name);
+                    }
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                         String[] exceptions) {
+            MethodInfo method = new MethodInfo(info.name, name, (access & Opcodes.ACC_PUBLIC) != 0);
+            info.methods.put(name + descriptor, method);
+            return new MethodScanner(method);
+        }
+    }
+
+    private final class MethodScanner extends MethodVisitor {
+        private final MethodInfo method;
+
+        private MethodScanner(MethodInfo method) {
+            super(Opcodes.ASM9);
+            this.method = method;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (TEST.equals(descriptor)) {
+                method.isTest = true;
+            } else if (descriptor.startsWith(TESTNG_ANNOTATIONS)) {
+                method.isConfiguration = true;
+            }
+            return null;
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            if (opcode == Opcodes.GETFIELD && owner.startsWith(screensPackage)) {
+                method.fieldReads.add(owner + "." + name);
+            }
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            if (isAnalyzed(owner)) {
+                method.calls.add(owner + "." + name + descriptor);
+            }
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+                                           Object... bootstrapMethodArguments) {
+            // A lambda or method reference runs its implementation method
+            for (Object argument : bootstrapMethodArguments) {
+                if (argument instanceof Handle && isAnalyzed(((Handle) argument).getOwner())) {
+                    Handle handle = (Handle) argument;
+                    method.calls.add(handle.getOwner() + "." + handle.getName() + handle.getDesc());
+                }
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            if (value instanceof Type && ((Type) value).getSort() == Type.OBJECT
+                    && ((Type) value).getInternalName().startsWith(screensPackage)) {
+                method.screenClasses.add(((Type) value).getInternalName());
+            }
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            if (opcode == Opcodes.NEW && type.startsWith(screensPackage)) {
+                method.screenClasses.add(type);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.automation.impact;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ImpactIndex maps every test method to the screens and locators it touches, e.g.
+ * {@code com.automation.tests.OnBoardingScreenTest.onBoardingTest → OnboardingScreen, OnboardingScreen.loginButton}.
+ * <p>
+ * The index is built by static analysis of the compiled test and screen classes (see {@link ImpactAnalyzer})
+ * and cached in a JSON file together with a hash of those classes, so it is only rebuilt after they changed.
+ */
+public final class ImpactIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ImpactIndex.class);
+
+    private static final String SCREENS_PACKAGE = "com/automation/screens/";
+    private static final String TESTS_PACKAGE = "com/automation/tests/";
+
+    private final String fingerprint;
+    private final Map<String, Set<String>> targetsByTest;
+
+    private ImpactIndex(String fingerprint, Map<String, Set<String>> targetsByTest) {
+        this.fingerprint = fingerprint;
+        this.targetsByTest = Collections.unmodifiableMap(targetsByTest);
+    }
+
+    /**
+     * Loads the index from its cache file, or builds it from the classes on the classpath if the cache is
+     * missing or was built from other classes.
+     *
+     * @param cacheFile The cache file, rewritten when the index is rebuilt.
+     * @return The index of the current classes.
+     */
+    public static ImpactIndex load(Path cacheFile) {
+        Map<String, byte[]> classes = readClasses(SCREENS_PACKAGE);
+        classes.putAll(readClasses(TESTS_PACKAGE));
+        String fingerprint = fingerprint(classes);
+
+        ImpactIndex cached = readCache(cacheFile);
+        if (cached != null && cached.fingerprint.equals(fingerprint)) {
+            logger.info("Using the impact index of {} test(s) cached in {}", cached.targetsByTest.size(), cacheFile);
+            return cached;
+        }
+        long start = System.nanoTime();
+        ImpactAnalyzer analyzer = new ImpactAnalyzer(SCREENS_PACKAGE, TESTS_PACKAGE);
+        classes.values().forEach(analyzer::add);
+        ImpactIndex index = new ImpactIndex(fingerprint, analyzer.analyze());
+        logger.info("Built the impact index of {} test(s) from {} class(es) in {} ms", index.targetsByTest.size(),
+                classes.size(), (System.nanoTime() - start) / 1_000_000);
+        index.save(cacheFile);
+        return index;
+    }
+
+    /**
+     * Gets the indexed test methods.
+     *
+     * @return Test names as "package.Class.method".
+     */
+    public Set<String> getTests() {
+        return targetsByTest.keySet();
+    }
+
+    /**
+     * Gets what a test touches.
+     *
+     * @param test Test name as "package.Class.method".
+     * @return Screens ("LoginScreen") and locator fields ("LoginScreen.headerSection"), empty for an unknown test.
+     */
+    public Set<String> getTargets(String test) {
+        return targetsByTest.getOrDefault(test, Collections.emptySet());
+    }
+
+    /**
+     * Gets every locator field some test touches.
+     *
+     * @return Locator fields as "Screen.field".
+     */
+    public Set<String> getLocatorFields() {
+        return targetsByTest.values().stream()
+                .flatMap(Set::stream)
+                .filter(target -> target.contains("."))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Selects the tests a change affects.
+     *
+     * @param changes The changed screens, locators and test classes.
+     * @return The affected tests as "package.Class.method".
+     */
+    public Set<String> select(ChangeSet changes) {
+        Set<String> selected = new TreeSet<>();
+        targetsByTest.forEach((test, targets) -> {
+            if (changes.affects(test, targets)) {
+                selected.add(test);
+            }
+        });
+        return selected;
+    }
+
+    private void save(Path file) {
+        Map<String, Object> stored = new TreeMap<>();
+        stored.put("fingerprint", fingerprint);
+        stored.put("tests", targetsByTest);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(new Json().toJson(stored));
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to cache the impact index in {}: {}", file, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ImpactIndex readCache(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Object> stored = new Json().toType(reader, Json.MAP_TYPE);
+            Map<String, Set<String>> targetsByTest = new TreeMap<>();
+            ((Map<String, Object>) stored.get("tests")).forEach((test, targets) ->
+                    targetsByTest.put(test, new TreeSet<>((List<String>) targets)));
+            return new ImpactIndex(String.valueOf(stored.get("fingerprint")), targetsByTest);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable impact index {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the class files of a package from the classpath directories, keyed by their path.
+     */
+    private static Map<String, byte[]> readClasses(String packagePath) {
+        Map<String, byte[]> classes = new TreeMap<>();
+        try {
+            Enumeration<URL> directories = ImpactIndex.class.getClassLoader().getResources(packagePath);
+            while (directories.hasMoreElements()) {
+                URL directory = directories.nextElement();
+                if (!"file".equals(directory.getProtocol())) {
+                    logger.warn("Skipping {}, only class directories are analyzed", directory);
+                    continue;
+                }
+                List<Path> files;
+                try (Stream<Path> listing = Files.list(Paths.get(directory.toURI()))) {
+                    files = listing.filter(file -> file.toString().endsWith(".class")).collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    try (InputStream input = Files.newInputStream(file)) {
+                        classes.put(packagePath + file.getFileName(), input.readAllBytes());
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException("Failed to read the classes of " + packagePath, e);
+        }
+        return classes;
+    }
+
+    private static String fingerprint(Map<String, byte[]> classes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update(entry.getValue());
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte value : digest.digest()) {
+                hex.append(String.format("%02x", value));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<String> lines = new ArrayList<>();
+        targetsByTest.forEach((test, targets) -> lines.add(test + " -> " + targets));
+        return String.join("\n", lines);
+    }
+}
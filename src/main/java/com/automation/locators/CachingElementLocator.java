@@ -0,0 +1,141 @@
+package com.automation.locators;
+
+import com.automation.metrics.CommandMetrics;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * CachingElementLocator resolves one screen field and remembers the element it found.
+ * <p>
+ * Every later access to the field reuses the element reference instead of sending a new findElement
+ * to the server. The reference is dropped with {@link #invalidate()} when the server reports it stale.
+ * Lookups are retried until the lookup timeout expires, as the Appium field decorator does.
+ * {@link #awaitElement(Duration)} instead lets the server wait for the element with a single request.
+ */
+public class CachingElementLocator implements ElementLocator {
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final SearchContext searchContext;
+    private final CompiledLocator locator;
+    private final String name;
+    private final Duration lookupTimeout;
+    private volatile WebElement cachedElement;
+
+    public CachingElementLocator(SearchContext searchContext, CompiledLocator locator, String name,
+                                 Duration lookupTimeout) {
+        this.searchContext = searchContext;
+        this.locator = locator;
+        this.name = name;
+        this.lookupTimeout = lookupTimeout;
+    }
+
+    @Override
+    public WebElement findElement() {
+        WebElement element = cachedElement;
+        if (element != null) {
+            LocatorTimings.recordCacheHit(name);
+            return element;
+        }
+        long deadline = System.nanoTime() + lookupTimeout.toNanos();
+        while (true) {
+            try {
+                return lookup();
+            } catch (NoSuchElementException e) {
+                if (System.nanoTime() >= deadline) {
+                    throw e;
+                }
+                sleep();
+                CommandMetrics.recordRetry(DriverCommand.FIND_ELEMENT);
+            }
+        }
+    }
+
+    /**
+     * Resolves the element, letting the server wait up to the given timeout for it to appear.
+     * <p>
+     * An element that is already there costs one request. Otherwise the session's implicit wait is raised
+     * for a single findElement, so the server polls its own hierarchy, and then set back to zero.
+     *
+     * @param timeout How long the server may wait for the element.
+     * @return The resolved element.
+     * @throws NoSuchElementException if the element did not appear in time.
+     */
+    public WebElement awaitElement(Duration timeout) {
+        WebElement element = cachedElement;
+        if (element != null) {
+            LocatorTimings.recordCacheHit(name);
+            return element;
+        }
+        try {
+            return lookup();
+        } catch (NoSuchElementException e) {
+            if (!(searchContext instanceof WebDriver) || timeout.isZero()) {
+                throw e;
+            }
+        }
+        WebDriver.Timeouts timeouts = ((WebDriver) searchContext).manage().timeouts();
+        timeouts.implicitlyWait(timeout);
+        try {
+            return lookup();
+        } finally {
+            timeouts.implicitlyWait(Duration.ZERO);
+        }
+    }
+
+    private WebElement lookup() {
+        long start = System.nanoTime();
+        try {
+            WebElement element = searchContext.findElement(locator.getBy());
+            LocatorTimings.record(name, System.nanoTime() - start, true);
+            cachedElement = element;
+            return element;
+        } catch (NoSuchElementException e) {
+            LocatorTimings.record(name, System.nanoTime() - start, false);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<WebElement> findElements() {
+        long start = System.nanoTime();
+        List<WebElement> elements = searchContext.findElements(locator.getBy());
+        LocatorTimings.record(name, System.nanoTime() - start, !elements.isEmpty());
+        return elements;
+    }
+
+    /**
+     * Forgets the cached element so the next access looks it up again.
+     */
+    public void invalidate() {
+        cachedElement = null;
+    }
+
+    public CompiledLocator getLocator() {
+        return locator;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while looking up an element", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + locator + ")";
+    }
+}
@@ -0,0 +1,68 @@
+package com.automation.locators;
+
+import org.openqa.selenium.By;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * CompiledLocator is the lookup strategy chosen for one {@code @AndroidFindBy} field.
+ * <p>
+ * It keeps the original locator for reporting, the {@link By} actually sent to the server and,
+ * when the locator is a plain attribute match, the attributes an element must have to match it.
+ */
+public final class CompiledLocator {
+    private final String source;
+    private final By by;
+    private final Map<String, String> attributes;
+    private final boolean rewritten;
+
+    CompiledLocator(String source, By by, Map<String, String> attributes, boolean rewritten) {
+        this.source = source;
+        this.by = by;
+        this.attributes = attributes == null ? null : Collections.unmodifiableMap(attributes);
+        this.rewritten = rewritten;
+    }
+
+    /**
+     * Gets the locator as declared on the field, e.g. "xpath: //*[@resource-id='header']".
+     *
+     * @return The declared locator.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the locator sent to the Appium server.
+     *
+     * @return By used for findElement calls.
+     */
+    public By getBy() {
+        return by;
+    }
+
+    /**
+     * Gets the page-source attributes (resource-id, text, class, enabled, content-desc) an element
+     * must have to match this locator.
+     *
+     * @return Attribute values to match, or null if the locator cannot be expressed as attributes.
+     */
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Checks whether the declared XPath was rewritten into a native lookup.
+     *
+     * @return true if the By differs from the declared strategy.
+     */
+    public boolean isRewritten() {
+        return rewritten;
+    }
+
+    @Override
+    public String toString() {
+        return rewritten ? source + " -> " + by : source;
+    }
+}
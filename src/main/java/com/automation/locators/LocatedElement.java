@@ -0,0 +1,14 @@
+package com.automation.locators;
+
+/**
+ * Implemented by the element proxies of screen fields, giving access to the locator behind them.
+ */
+public interface LocatedElement {
+
+    /**
+     * Gets the locator that resolves this element.
+     *
+     * @return The field's caching locator.
+     */
+    CachingElementLocator getElementLocator();
+}
@@ -0,0 +1,151 @@
+package com.automation.locators;
+
+import io.appium.java_client.AppiumBy;
+import io.appium.java_client.pagefactory.AndroidFindBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LocatorCompiler turns {@code @AndroidFindBy} annotations into the cheapest equivalent lookup.
+ * <p>
+ * XPath is evaluated by UiAutomator2 over a dump of the whole view hierarchy, which makes it the slowest
+ * strategy available. An XPath that only matches a class name and exact resource-id, text, content-desc
+ * or enabled values, such as {@code //android.widget.TextView[@text='Log in']}, selects exactly the same
+ * elements as the corresponding UiSelector, so it is rewritten into one. Any other XPath is kept as is.
+ */
+public final class LocatorCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(LocatorCompiler.class);
+
+    // //class[@attr='value' and @attr='value'] with * as "any class"
+    private static final Pattern SIMPLE_XPATH =
+            Pattern.compile("^//(\\*|[A-Za-z_][\\w.$]*)\\[(.+)]$");
+    private static final Pattern PREDICATE =
+            Pattern.compile("^\\s*@(resource-id|text|content-desc|enabled)\\s*=\\s*'([^']*)'\\s*$");
+
+    // Compiled once per field and shared by every instance of the screen
+    private static final Map<Field, CompiledLocator> compiledFields = new ConcurrentHashMap<>();
+
+    private LocatorCompiler() {
+    }
+
+    /**
+     * Compiles the {@code @AndroidFindBy} locator of a screen field, once per field.
+     *
+     * @param field A field annotated with {@code @AndroidFindBy}.
+     * @return The compiled locator.
+     */
+    public static CompiledLocator compile(Field field) {
+        return compiledFields.computeIfAbsent(field, key -> compile(key.getAnnotation(AndroidFindBy.class)));
+    }
+
+    /**
+     * Compiles the locator declared by an {@code @AndroidFindBy} annotation.
+     *
+     * @param findBy The annotation on a screen field.
+     * @return The compiled locator.
+     * @throws IllegalArgumentException if the annotation declares no supported strategy.
+     */
+    public static CompiledLocator compile(AndroidFindBy findBy) {
+        if (!findBy.id().isEmpty()) {
+            // The server prefixes a bare id with the app package, so only a full id is an exact attribute match
+            Map<String, String> attributes = findBy.id().contains(":id/") ? Map.of("resource-id", findBy.id()) : null;
+            return new CompiledLocator("id: " + findBy.id(), AppiumBy.id(findBy.id()), attributes, false);
+        }
+        if (!findBy.xpath().isEmpty()) {
+            return compileXpath(findBy.xpath());
+        }
+        if (!findBy.accessibility().isEmpty()) {
+            return new CompiledLocator("accessibility: " + findBy.accessibility(),
+                    AppiumBy.accessibilityId(findBy.accessibility()),
+                    Map.of("content-desc", findBy.accessibility()), false);
+        }
+        if (!findBy.className().isEmpty()) {
+            return new CompiledLocator("className: " + findBy.className(), AppiumBy.className(findBy.className()),
+                    Map.of("class", findBy.className()), false);
+        }
+        if (!findBy.uiAutomator().isEmpty()) {
+            return new CompiledLocator("uiAutomator: " + findBy.uiAutomator(),
+                    AppiumBy.androidUIAutomator(findBy.uiAutomator()), null, false);
+        }
+        throw new IllegalArgumentException("Unsupported @AndroidFindBy locator: " + findBy);
+    }
+
+    /**
+     * Compiles an XPath expression, rewriting it into a UiSelector when that is equivalent.
+     *
+     * @param xpath The XPath expression.
+     * @return The compiled locator.
+     */
+    public static CompiledLocator compileXpath(String xpath) {
+        String source = "xpath: " + xpath;
+        Map<String, String> attributes = parseSimpleXpath(xpath.trim());
+        if (attributes == null) {
+            logger.debug("Keeping XPath locator {}", xpath);
+            return new CompiledLocator(source, AppiumBy.xpath(xpath), null, false);
+        }
+        CompiledLocator compiled = new CompiledLocator(source,
+                AppiumBy.androidUIAutomator(toUiSelector(attributes)), attributes, true);
+        logger.debug("Rewrote locator {}", compiled);
+        return compiled;
+    }
+
+    private static Map<String, String> parseSimpleXpath(String xpath) {
+        Matcher matcher = SIMPLE_XPATH.matcher(xpath);
+        if (!matcher.matches()) {
+            return null;
+        }
+        Map<String, String> attributes = new LinkedHashMap<>();
+        if (!"*".equals(matcher.group(1))) {
+            attributes.put("class", matcher.group(1));
+        }
+        for (String predicate : matcher.group(2).split("\\band\\b")) {
+            Matcher attribute = PREDICATE.matcher(predicate);
+            if (!attribute.matches() || attributes.containsKey(attribute.group(1))) {
+                return null;
+            }
+            String value = attribute.group(2);
+            if ("enabled".equals(attribute.group(1)) && !"true".equals(value) && !"false".equals(value)) {
+                return null;
+            }
+            attributes.put(attribute.group(1), value);
+        }
+        return attributes;
+    }
+
+    private static String toUiSelector(Map<String, String> attributes) {
+        StringBuilder selector = new StringBuilder("new UiSelector()");
+        attributes.forEach((name, value) -> {
+            switch (name) {
+                case "class":
+                    selector.append(".className(").append(quote(value)).append(')');
+                    break;
+                case "resource-id":
+                    selector.append(".resourceId(").append(quote(value)).append(')');
+                    break;
+                case "text":
+                    selector.append(".text(").append(quote(value)).append(')');
+                    break;
+                case "content-desc":
+                    selector.append(".description(").append(quote(value)).append(')');
+                    break;
+                case "enabled":
+                    selector.append(".enabled(").append(value).append(')');
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected attribute: " + name);
+            }
+        });
+        return selector.toString();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
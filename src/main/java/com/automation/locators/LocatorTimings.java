@@ -0,0 +1,79 @@
+package com.automation.locators;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LocatorTimings aggregates how long each screen locator took to resolve, across all threads.
+ * {@link #report()} lists the locators by total time spent so the most expensive ones come first.
+ */
+public final class LocatorTimings {
+    private static final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
+    private LocatorTimings() {
+    }
+
+    /**
+     * Records one lookup.
+     *
+     * @param name         Name of the locator, e.g. "LoginScreen.emailField".
+     * @param elapsedNanos Time the lookup took.
+     * @param found        false if the lookup failed.
+     */
+    public static void record(String name, long elapsedNanos, boolean found) {
+        timings.computeIfAbsent(name, key -> new Timing()).add(elapsedNanos, found);
+    }
+
+    /**
+     * Records that a cached element was used without asking the server.
+     *
+     * @param name Name of the locator.
+     */
+    public static void recordCacheHit(String name) {
+        timings.computeIfAbsent(name, key -> new Timing()).cacheHits.increment();
+    }
+
+    /**
+     * Builds a table of lookup counts and times per locator, the most expensive first.
+     *
+     * @return The report, one line per locator.
+     */
+    public static String report() {
+        List<Map.Entry<String, Timing>> entries = new ArrayList<>(timings.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Timing> e) -> e.getValue().totalNanos.sum()).reversed());
+
+        StringBuilder report = new StringBuilder(String.format("%-45s %8s %8s %8s %10s %8s %8s%n",
+                "locator", "lookups", "failed", "cached", "total ms", "avg ms", "max ms"));
+        for (Map.Entry<String, Timing> entry : entries) {
+            Timing timing = entry.getValue();
+            long lookups = timing.lookups.sum();
+            long total = timing.totalNanos.sum();
+            report.append(String.format("%-45s %8d %8d %8d %10d %8d %8d%n", entry.getKey(), lookups,
+                    timing.failures.sum(), timing.cacheHits.sum(), total / 1_000_000,
+                    lookups == 0 ? 0 : total / lookups / 1_000_000, timing.maxNanos.get() / 1_000_000));
+        }
+        return report.toString();
+    }
+
+    private static final class Timing {
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        private void add(long elapsedNanos, boolean found) {
+            lookups.increment();
+            if (!found) {
+                failures.increment();
+            }
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+        }
+    }
+}
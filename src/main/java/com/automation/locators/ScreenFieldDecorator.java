@@ -0,0 +1,122 @@
+package com.automation.locators;
+
+import com.automation.metrics.CommandMetrics;
+import io.appium.java_client.pagefactory.AndroidFindBy;
+import io.appium.java_client.pagefactory.AppiumFieldDecorator;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Locatable;
+import org.openqa.selenium.support.pagefactory.FieldDecorator;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ScreenFieldDecorator populates the {@code @AndroidFindBy} WebElement fields of a screen object
+ * with proxies backed by a {@link CachingElementLocator}.
+ * <p>
+ * Use it with {@code PageFactory.initElements(new ScreenFieldDecorator(driver), this)} in place of
+ * AppiumFieldDecorator. Each screen instance gets its own locators, so resolved elements are cached
+ * per screen instance. A call that fails with a stale element reference is retried once on a fresh lookup.
+ * <p>
+ * Every call on an element is counted per search context (see {@link #getInteractions(SearchContext)}), so state
+ * captured from the screen, like a page source snapshot, can tell whether the screen was touched since.
+ */
+public class ScreenFieldDecorator implements FieldDecorator {
+    // Keyed by identity of the driver; a session that is gone drops its counter
+    private static final Map<SearchContext, AtomicLong> interactions =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final SearchContext searchContext;
+    private final Duration lookupTimeout;
+
+    public ScreenFieldDecorator(SearchContext searchContext) {
+        this(searchContext, AppiumFieldDecorator.DEFAULT_WAITING_TIMEOUT);
+    }
+
+    public ScreenFieldDecorator(SearchContext searchContext, Duration lookupTimeout) {
+        this.searchContext = searchContext;
+        this.lookupTimeout = lookupTimeout;
+    }
+
+    /**
+     * Gets the number of element calls made through decorated screens on a search context.
+     *
+     * @param searchContext The driver the screens were decorated with.
+     * @return A counter that grows with every element call, 0 if there was none.
+     */
+    public static long getInteractions(SearchContext searchContext) {
+        AtomicLong count = interactions.get(searchContext);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public Object decorate(ClassLoader loader, Field field) {
+        AndroidFindBy findBy = field.getAnnotation(AndroidFindBy.class);
+        if (findBy == null || !WebElement.class.equals(field.getType())) {
+            return null;
+        }
+        String name = field.getDeclaringClass().getSimpleName() + "." + field.getName();
+        CachingElementLocator locator =
+                new CachingElementLocator(searchContext, LocatorCompiler.compile(field), name, lookupTimeout);
+        return Proxy.newProxyInstance(loader,
+                new Class<?>[]{WebElement.class, WrapsElement.class, Locatable.class, LocatedElement.class},
+                new ElementHandler(locator, interactions.computeIfAbsent(searchContext, context -> new AtomicLong())));
+    }
+
+    private static final class ElementHandler implements InvocationHandler {
+        private final CachingElementLocator locator;
+        private final AtomicLong interactions;
+
+        private ElementHandler(CachingElementLocator locator, AtomicLong interactions) {
+            this.locator = locator;
+            this.interactions = interactions;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getElementLocator":
+                    return locator;
+                case "toString":
+                    return "Proxy element for: " + locator;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    break;
+            }
+            interactions.incrementAndGet();
+            WebElement element = locator.findElement();
+            if ("getWrappedElement".equals(method.getName())) {
+                return element;
+            }
+            try {
+                return method.invoke(element, args);
+            } catch (InvocationTargetException e) {
+                if (!(e.getCause() instanceof StaleElementReferenceException)) {
+                    throw e.getCause();
+                }
+            }
+            // The screen was redrawn since the element was cached: look it up again once
+            locator.invalidate();
+            CommandMetrics.recordRetry(method.getName());
+            try {
+                return method.invoke(locator.findElement(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
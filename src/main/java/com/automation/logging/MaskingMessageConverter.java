@@ -0,0 +1,17 @@
+package com.automation.logging;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * MaskingMessageConverter is the log message with its secrets masked, for pattern layouts:
+ * register it with {@code <conversionRule conversionWord="maskedMsg" converterClass="..."/>} and use
+ * {@code %maskedMsg} in place of {@code %msg}.
+ */
+public class MaskingMessageConverter extends ClassicConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return SecretMasker.mask(event.getFormattedMessage());
+    }
+}
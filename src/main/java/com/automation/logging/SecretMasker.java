@@ -0,0 +1,68 @@
+package com.automation.logging;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SecretMasker hides credential values before they reach a log: fields whose name looks like a secret
+ * (password, token, secret, API key, authorization) and "name=value" or "name": "value" pairs in free text.
+ */
+public final class SecretMasker {
+    public static final String MASK = "****";
+
+    private static final String SECRET_NAMES = "password|passwd|pwd|secret|token|api[_-]?key|authorization|credentials?";
+    private static final Pattern SECRET_KEY = Pattern.compile("(?i).*(" + SECRET_NAMES + ").*");
+    // Name and separator, then a double-quoted, a single-quoted, an unclosed quoted (to the end of the line)
+    // or a bare value
+    private static final Pattern SECRET_PAIR = Pattern.compile("(?i)(\"?\\b(?:" + SECRET_NAMES + ")\"?\\s*[=:]\\s*)"
+            + "(?:\"((?:[^\"\\\\]|\\\\.)*)\"|'([^']*)'|([\"'])[^\\n]*|[^\"',}\\s]+)");
+
+    private SecretMasker() {
+    }
+
+    /**
+     * Checks whether a field holds a secret.
+     *
+     * @param key The field name, e.g. "password" or "authToken".
+     * @return true if its value must be masked.
+     */
+    public static boolean isSecret(String key) {
+        return key != null && SECRET_KEY.matcher(key).matches();
+    }
+
+    /**
+     * Masks the values of secret pairs in a text, e.g. "password=hunter2" becomes "password=****".
+     * A quoted value is masked up to its closing quote, spaces included, and up to the end of the line if the
+     * quote is never closed.
+     *
+     * @param text The log message.
+     * @return The text with secret values masked.
+     */
+    public static String mask(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        return SECRET_PAIR.matcher(text).replaceAll(pair -> {
+            if (pair.group(2) != null || pair.group(3) != null) {
+                String quote = pair.group(2) != null ? "\"" : "'";
+                return Matcher.quoteReplacement(pair.group(1) + quote + MASK + quote);
+            }
+            // An unclosed quote keeps its opening quote only, as its end is unknown
+            return Matcher.quoteReplacement(pair.group(1) + (pair.group(4) == null ? "" : pair.group(4)) + MASK);
+        });
+    }
+
+    /**
+     * Masks a field value if the field holds a secret.
+     *
+     * @param key   The field name.
+     * @param value The value.
+     * @return The mask for a secret field, else the value with secret pairs masked.
+     */
+    public static String mask(String key, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return isSecret(key) ? MASK : mask(value.toString());
+    }
+}
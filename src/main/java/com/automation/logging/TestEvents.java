@@ -0,0 +1,101 @@
+package com.automation.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.util.Map;
+
+/**
+ * TestEvents emits the structured per-test events (a test or a step finished and how long it took, a performance
+ * metric was measured, the resources a test used) to the "com.automation.events" logger, which the logging
+ * configuration routes to the JSON event log only.
+ * The test, device and step of the calling thread come with every event through the MDC.
+ */
+public final class TestEvents {
+    /**
+     * MDC key of the running test.
+     */
+    public static final String TEST = "test";
+    /**
+     * MDC key of the leased device.
+     */
+    public static final String DEVICE = "device";
+    /**
+     * MDC key of the running step.
+     */
+    public static final String STEP = "step";
+
+    private static final Logger events = LoggerFactory.getLogger("com.automation.events");
+
+    private TestEvents() {
+    }
+
+    /**
+     * Records that a test finished.
+     *
+     * @param status         "passed", "failed" or "skipped".
+     * @param durationMillis How long the test ran.
+     */
+    public static void testFinished(String status, long durationMillis) {
+        events.atInfo()
+                .addKeyValue("event", "test")
+                .addKeyValue("status", status)
+                .addKeyValue("durationMs", durationMillis)
+                .log("Test {} {} in {} ms", MDC.get(TEST), status, durationMillis);
+    }
+
+    /**
+     * Records that a step finished.
+     *
+     * @param step           The step.
+     * @param screen         The screen method running it, "-" outside of a screen.
+     * @param passed         true if the step passed.
+     * @param attempts       How many times it ran.
+     * @param durationMillis How long it took, retries included.
+     */
+    public static void stepFinished(String step, String screen, boolean passed, int attempts, long durationMillis) {
+        events.atInfo()
+                .addKeyValue("event", "step")
+                .addKeyValue("screen", screen)
+                .addKeyValue("status", passed ? "passed" : "failed")
+                .addKeyValue("attempts", attempts)
+                .addKeyValue("durationMs", durationMillis)
+                .log("Step {} {} in {} ms", step, passed ? "passed" : "failed", durationMillis);
+    }
+
+    /**
+     * Records the percentiles measured for a performance metric.
+     *
+     * @param metric      The metric, e.g. "appStartup".
+     * @param build       The app build measured.
+     * @param percentiles Label, e.g. "p90", to milliseconds.
+     * @param passed      true if the metric is within its budget and baseline.
+     */
+    public static void performanceMeasured(String metric, String build, Map<String, Long> percentiles,
+                                           boolean passed) {
+        LoggingEventBuilder event = events.atInfo()
+                .addKeyValue("event", "performance")
+                .addKeyValue("metric", metric)
+                .addKeyValue("build", build)
+                .addKeyValue("status", passed ? "passed" : "failed");
+        // One numeric field per percentile, e.g. "p90Ms"
+        percentiles.forEach((label, millis) -> event.addKeyValue(label + "Ms", millis));
+        event.log("Performance of {} on build {} {}: {} ms", metric, build, passed ? "passed" : "failed",
+                        percentiles);
+    }
+
+    /**
+     * Records the resources the app used during a test.
+     *
+     * @param test    The test.
+     * @param summary Metric, e.g. "cpuPercentMax", to its value.
+     */
+    public static void resourcesSampled(String test, Map<String, Object> summary) {
+        LoggingEventBuilder event = events.atInfo()
+                .addKeyValue("event", "resources");
+        summary.forEach(event::addKeyValue);
+        event.log("Resources used by {}: {}", test, summary);
+    }
+}
@@ -0,0 +1,135 @@
+package com.automation.metrics;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CommandMetrics aggregates the WebDriver commands of all sessions of the run.
+ * <p>
+ * Each command is recorded in a latency histogram per command name and one per screen method, with counts of
+ * failures, retries and request payload bytes. Locator lookups are also broken down per locator and the
+ * screen methods per test. {@link #writeJson(Path)} dumps everything at the end of the suite.
+ */
+public final class CommandMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(CommandMetrics.class);
+
+    private static final Map<String, Stats> byCommand = new ConcurrentHashMap<>();
+    private static final Map<String, Stats> byScreenMethod = new ConcurrentHashMap<>();
+    private static final Map<String, Stats> byLocator = new ConcurrentHashMap<>();
+    private static final Map<String, Stats> byTest = new ConcurrentHashMap<>();
+
+    private CommandMetrics() {
+    }
+
+    /**
+     * Records one command sent to the Appium server.
+     *
+     * @param command      Command name, e.g. "findElement".
+     * @param locator      Locator of a find command, or null.
+     * @param elapsedNanos Round-trip time of the command.
+     * @param payloadBytes Size of the request parameters.
+     * @param failed       true if the command failed.
+     */
+    public static void record(String command, String locator, long elapsedNanos, long payloadBytes, boolean failed) {
+        record(command, StepContext.getScreenMethod(), locator, elapsedNanos, payloadBytes, failed);
+    }
+
+    /**
+     * Records one command sent to the Appium server by a screen method the caller already knows.
+     *
+     * @param command      Command name, e.g. "findElement".
+     * @param screenMethod Screen method that sent it, see {@link StepContext#getScreenMethod()}.
+     * @param locator      Locator of a find command, or null.
+     * @param elapsedNanos Round-trip time of the command.
+     * @param payloadBytes Size of the request parameters.
+     * @param failed       true if the command failed.
+     */
+    public static void record(String command, String screenMethod, String locator, long elapsedNanos,
+                              long payloadBytes, boolean failed) {
+        stats(byCommand, command).add(elapsedNanos, payloadBytes, failed);
+        stats(byScreenMethod, screenMethod).add(elapsedNanos, payloadBytes, failed);
+        stats(byTest, StepContext.getTest() + " > " + screenMethod).add(elapsedNanos, payloadBytes, failed);
+        if (locator != null) {
+            stats(byLocator, locator).add(elapsedNanos, payloadBytes, failed);
+        }
+    }
+
+    /**
+     * Records that a command is about to be sent again because its previous attempt failed.
+     *
+     * @param command Command name, e.g. "findElement".
+     */
+    public static void recordRetry(String command) {
+        stats(byCommand, command).retries.increment();
+        stats(byScreenMethod, StepContext.getScreenMethod()).retries.increment();
+    }
+
+    /**
+     * Writes the histograms of the run as JSON.
+     *
+     * @param file Target file; parent directories are created.
+     */
+    public static void writeJson(Path file) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("commands", toMap(byCommand));
+        report.put("screenMethods", toMap(byScreenMethod));
+        report.put("locators", toMap(byLocator));
+        report.put("tests", toMap(byTest));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(new Json().toJson(report));
+            }
+            logger.info("Command timings written to {}", file);
+        } catch (IOException e) {
+            logger.error("Failed to write command timings to {}", file, e);
+        }
+    }
+
+    private static Stats stats(Map<String, Stats> stats, String key) {
+        Stats existing = stats.get(key);
+        return existing != null ? existing : stats.computeIfAbsent(key, k -> new Stats());
+    }
+
+    private static Map<String, Object> toMap(Map<String, Stats> stats) {
+        Map<String, Object> result = new TreeMap<>();
+        stats.forEach((key, value) -> result.put(key, value.toMap()));
+        return result;
+    }
+
+    private static final class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder payloadBytes = new LongAdder();
+
+        private void add(long elapsedNanos, long payload, boolean failed) {
+            latency.recordNanos(elapsedNanos);
+            payloadBytes.add(payload);
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("failures", failures.sum());
+            map.put("retries", retries.sum());
+            map.put("payloadBytes", payloadBytes.sum());
+            map.put("latency", latency.toMap());
+            return map;
+        }
+    }
+}
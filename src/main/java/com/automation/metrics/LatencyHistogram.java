@@ -0,0 +1,122 @@
+package com.automation.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram records durations in log-linear buckets, in the style of HdrHistogram.
+ * <p>
+ * Values are kept in microseconds. Every power of two is split into 32 linear buckets, so a
+ * recorded value is reported within about 3% of its real value whatever its magnitude, in constant memory.
+ * Recording is lock-free and safe from any thread.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below this get one bucket each
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;
+    // Values up to 2^40 microseconds (about 12 days); larger ones land in the last bucket
+    private static final int MAX_SHIFT = 40 - SUB_BUCKET_BITS;
+    private static final int BUCKETS = EXACT_LIMIT + MAX_SHIFT * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator minMicros = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketIndex(micros));
+        count.increment();
+        totalMicros.add(micros);
+        minMicros.accumulate(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the value below which the given share of the recorded durations fall.
+     *
+     * @param percentile A percentile between 0 and 100.
+     * @return The percentile in microseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentileMicros(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * Summarizes the histogram as count, min, mean, max, percentiles and the non-empty buckets
+     * (upper bound in microseconds and count), ready to be written as JSON.
+     *
+     * @return The summary map.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        long total = count.sum();
+        summary.put("count", total);
+        summary.put("minMicros", total == 0 ? 0 : minMicros.get());
+        summary.put("meanMicros", total == 0 ? 0 : totalMicros.sum() / total);
+        summary.put("maxMicros", maxMicros.get());
+        summary.put("p50Micros", getPercentileMicros(50));
+        summary.put("p90Micros", getPercentileMicros(90));
+        summary.put("p99Micros", getPercentileMicros(99));
+        summary.put("p999Micros", getPercentileMicros(99.9));
+        List<List<Long>> buckets = new ArrayList<>();
+        for (int i = 0; i < counts.length(); i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount > 0) {
+                buckets.add(Arrays.asList(bucketUpperBound(i), bucketCount));
+            }
+        }
+        summary.put("buckets", buckets);
+        return summary;
+    }
+
+    private static int bucketIndex(long micros) {
+        if (micros < EXACT_LIMIT) {
+            return (int) micros;
+        }
+        // Shift the value so its top bits fall in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+        return EXACT_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        int shift = (index - EXACT_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (index - EXACT_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,90 @@
+package com.automation.metrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ResourceRing keeps the latest resource samples of one session in preallocated primitive arrays, so sampling
+ * for hours allocates nothing once the ring is full: the oldest samples are overwritten.
+ * <p>
+ * Each sample has its time, the screen method running when it was taken and one value per metric (NaN when not
+ * sampled). CPU and memory are gauges; network and frame values are counters that only grow while the app runs.
+ */
+final class ResourceRing {
+    static final int CPU_PERCENT = 0;
+    static final int MEMORY_PSS_KB = 1;
+    static final int RX_BYTES = 2;
+    static final int TX_BYTES = 3;
+    static final int FRAMES = 4;
+    static final int JANKY_FRAMES = 5;
+    static final int METRICS = 6;
+
+    // Summary of all the samples of a window, next to the one per screen method
+    static final int ALL = -1;
+
+    private final int capacity;
+    private final long[] times;
+    private final int[] labels;
+    private final double[] values;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long written;
+
+    ResourceRing(int capacity) {
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.labels = new int[capacity];
+        this.values = new double[capacity * METRICS];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    /**
+     * Adds a sample, overwriting the oldest one if the ring is full.
+     *
+     * @param timeMillis When it was taken.
+     * @param label      Id of the screen method running at that time.
+     * @param sample     One value per metric; copied, so the caller can reuse the array.
+     */
+    void add(long timeMillis, int label, double[] sample) {
+        lock.lock();
+        try {
+            int slot = (int) (written % capacity);
+            times[slot] = timeMillis;
+            labels[slot] = label;
+            System.arraycopy(sample, 0, values, slot * METRICS, METRICS);
+            written++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Summarizes the samples taken in a window, in total and per screen method. A counter increase is credited
+     * to the screen method of the later of the two samples it lies between.
+     *
+     * @return Summaries by label id, with {@link #ALL} for the whole window; empty if no sample is in the window.
+     */
+    Map<Integer, ResourceSummary> summarize(long fromMillis, long toMillis) {
+        Map<Integer, ResourceSummary> summaries = new HashMap<>();
+        lock.lock();
+        try {
+            int previous = -1;
+            for (long i = Math.max(0, written - capacity); i < written; i++) {
+                int slot = (int) (i % capacity);
+                if (times[slot] < fromMillis || times[slot] > toMillis) {
+                    continue;
+                }
+                int offset = slot * METRICS;
+                int previousOffset = previous < 0 ? -1 : previous * METRICS;
+                summaries.computeIfAbsent(ALL, label -> new ResourceSummary()).add(values, offset, previousOffset);
+                summaries.computeIfAbsent(labels[slot], label -> new ResourceSummary())
+                        .add(values, offset, previousOffset);
+                previous = slot;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return summaries;
+    }
+}
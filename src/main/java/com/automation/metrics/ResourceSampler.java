@@ -0,0 +1,244 @@
+package com.automation.metrics;
+
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ResourceSampler polls the app's resource usage on one session from a thread of its own, so the test thread
+ * never blocks on taking a sample. CPU, memory and network come from "mobile: getPerformanceData", frames from
+ * "dumpsys gfxinfo". A data type the server refuses is dropped with a warning; the sampler stops when its
+ * session is gone.
+ * <p>
+ * The sampler shares the test's session, and Appium runs the commands of a session one at a time: a test command
+ * sent while a sample is in flight waits on the server until the sample is read. Timings that must not include
+ * that wait {@link #pause()} the sampler around them.
+ */
+final class ResourceSampler implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceSampler.class);
+
+    private static final ThreadLocal<Boolean> samplerThread = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private static final Pattern TOTAL_FRAMES = Pattern.compile("Total frames rendered:\\s*(\\d+)");
+    private static final Pattern JANKY_FRAMES = Pattern.compile("Janky frames:\\s*(\\d+)");
+
+    private final AppiumDriver driver;
+    private final String device;
+    private final String appPackage;
+    private final List<String> data;
+    private final long intervalMillis;
+    private final ResourceRing ring;
+    private final boolean[] refused;
+    private final double[] sample = new double[ResourceRing.METRICS];
+    private final Map<String, Integer> labelIds = new ConcurrentHashMap<>();
+    private final List<String> labels = new CopyOnWriteArrayList<>();
+    private final ReentrantLock labelsLock = new ReentrantLock();
+    // Held while a sample is read, so a pause can wait for the one in flight
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private final AtomicInteger pauses = new AtomicInteger();
+    private volatile int currentLabel;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    ResourceSampler(AppiumDriver driver, String device, String appPackage, List<String> data, long intervalMillis,
+                    int bufferSize) {
+        this.driver = driver;
+        this.device = device;
+        this.appPackage = appPackage;
+        this.data = data;
+        this.intervalMillis = intervalMillis;
+        this.ring = new ResourceRing(bufferSize);
+        this.refused = new boolean[data.size()];
+        this.currentLabel = labelId("-");
+    }
+
+    /**
+     * @return true if the calling thread is a sampler, whose commands belong to no screen method.
+     */
+    static boolean isSamplerThread() {
+        return samplerThread.get();
+    }
+
+    void start() {
+        thread = new Thread(this, "resource-sampler-" + device);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Stops taking samples until {@link #resume()}, once the sample in flight, if any, is read. Pauses nest.
+     */
+    void pause() {
+        pauses.incrementAndGet();
+        // The sampler re-checks the pauses under the lock, so no new sample starts after this
+        sampleLock.lock();
+        sampleLock.unlock();
+    }
+
+    void resume() {
+        pauses.decrementAndGet();
+    }
+
+    /**
+     * Tags the next samples with the screen method now running on the session.
+     */
+    void setScreenMethod(String screenMethod) {
+        currentLabel = labelId(screenMethod);
+    }
+
+    ResourceRing getRing() {
+        return ring;
+    }
+
+    String getLabel(int id) {
+        return labels.get(id);
+    }
+
+    @Override
+    public void run() {
+        samplerThread.set(Boolean.TRUE);
+        while (running) {
+            long start = System.currentTimeMillis();
+            int label = currentLabel;
+            sampleLock.lock();
+            try {
+                if (pauses.get() == 0) {
+                    if (!sampleOnce()) {
+                        break;
+                    }
+                    ring.add(start, label, sample);
+                }
+            } finally {
+                sampleLock.unlock();
+            }
+            long remaining = intervalMillis - (System.currentTimeMillis() - start);
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(remaining);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+        logger.debug("Resource sampler of device {} stopped", device);
+    }
+
+    /**
+     * Reads every data type still accepted into the sample array.
+     *
+     * @return false if the session is gone or every data type was refused.
+     */
+    private boolean sampleOnce() {
+        Arrays.fill(sample, Double.NaN);
+        boolean any = false;
+        for (int i = 0; i < data.size(); i++) {
+            if (refused[i]) {
+                continue;
+            }
+            String type = data.get(i);
+            try {
+                read(type);
+                any = true;
+            } catch (NoSuchSessionException e) {
+                return false;
+            } catch (WebDriverException | ClassCastException | IllegalArgumentException e) {
+                if (!running) {
+                    return false;
+                }
+                refused[i] = true;
+                logger.warn("Stopped sampling {} on device {}: {}", type, device, e.getMessage());
+            }
+        }
+        return any;
+    }
+
+    private void read(String type) {
+        if ("gfxinfo".equals(type)) {
+            String output = String.valueOf(driver.executeScript("mobile: shell",
+                    Map.of("command", "dumpsys", "args", List.of("gfxinfo", appPackage))));
+            sample[ResourceRing.FRAMES] = match(TOTAL_FRAMES, output);
+            sample[ResourceRing.JANKY_FRAMES] = match(JANKY_FRAMES, output);
+            return;
+        }
+        List<?> rows = (List<?>) driver.executeScript("mobile: getPerformanceData",
+                Map.of("packageName", appPackage, "dataType", type, "dataReadTimeout", 5));
+        switch (type) {
+            case "cpuinfo":
+                sample[ResourceRing.CPU_PERCENT] = sum(rows, "user") + sum(rows, "kernel");
+                break;
+            case "memoryinfo":
+                sample[ResourceRing.MEMORY_PSS_KB] = sum(rows, "totalPss");
+                break;
+            case "networkinfo":
+                // Older devices report the short column names
+                sample[ResourceRing.RX_BYTES] = sum(rows, "rxBytes") + sum(rows, "rb");
+                sample[ResourceRing.TX_BYTES] = sum(rows, "txBytes") + sum(rows, "tb");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported resource data type: " + type);
+        }
+    }
+
+    /**
+     * Sums a column over the value rows of a performance data table, whose first row holds the column names.
+     */
+    private static double sum(List<?> rows, String column) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        int index = ((List<?>) rows.get(0)).indexOf(column);
+        if (index < 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int i = 1; i < rows.size(); i++) {
+            Object value = ((List<?>) rows.get(i)).get(index);
+            if (value != null) {
+                total += Double.parseDouble(value.toString());
+            }
+        }
+        return total;
+    }
+
+    private static double match(Pattern pattern, String output) {
+        Matcher matcher = pattern.matcher(output);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+
+    private int labelId(String label) {
+        Integer id = labelIds.get(label);
+        if (id != null) {
+            return id;
+        }
+        labelsLock.lock();
+        try {
+            id = labelIds.get(label);
+            if (id == null) {
+                labels.add(label);
+                id = labels.size() - 1;
+                labelIds.put(label, id);
+            }
+            return id;
+        } finally {
+            labelsLock.unlock();
+        }
+    }
+}
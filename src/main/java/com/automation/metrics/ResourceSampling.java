@@ -0,0 +1,223 @@
+package com.automation.metrics;
+
+import com.automation.config.DriverConfig;
+import com.automation.config.ResourceSamplingConfig;
+import com.automation.logging.TestEvents;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ResourceSampling samples the app's CPU, memory, network and frame counters on every session while the tests
+ * run, and sums them up per test and per screen method, so a slow step can be told apart as the app working
+ * hard, the device or the framework.
+ * <p>
+ * Each session gets a {@link ResourceSampler} polling every "resourceSamplingInterval" into a ring buffer.
+ * Samples are tagged with the screen method of the session's latest command; the screen methods are known from
+ * the timed commands, so they need "commandTimings". At the end of each test its samples are summarized in a
+ * "resources" event, and {@link #writeJson(Path)} writes every summary at the end of the suite.
+ * <p>
+ * The samplers send their commands on the test's own session, which Appium serializes with the test's commands,
+ * so a step may wait for a sample on the server. Code timing the app, such as the performance budgets,
+ * {@link #pause(SessionId)} sampling while it measures; no samples are taken in that window.
+ */
+public final class ResourceSampling {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceSampling.class);
+
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+    private static volatile ResourceSampling instance;
+
+    private final ResourceSamplingConfig config;
+    private final String appPackage;
+    private final Map<SessionId, ResourceSampler> samplers = new ConcurrentHashMap<>();
+    private final ThreadLocal<TestWindow> currentTest = new ThreadLocal<>();
+    // Test name -> "all" or screen method -> summary
+    private final Map<String, Map<String, Object>> summaries = new ConcurrentHashMap<>();
+
+    private ResourceSampling(DriverConfig config) {
+        this.config = config.getResourceSampling();
+        this.appPackage = String.valueOf(config.getProperty("appPackage"));
+        if (this.config.isEnabled()) {
+            logger.info("Sampling {} of {} every {} ms", this.config.getData(), appPackage,
+                    this.config.getInterval().toMillis());
+        }
+    }
+
+    public static ResourceSampling getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new ResourceSampling(DriverConfig.getInstance("androidCapabilities.yaml"));
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return true if the calling thread is a resource sampler, whose commands belong to no test.
+     */
+    public static boolean isSamplingThread() {
+        return ResourceSampler.isSamplerThread();
+    }
+
+    /**
+     * Starts sampling a new session, if "resourceSampling" is on.
+     *
+     * @param driver The session.
+     * @param device The device it runs on, used to name the sampler thread.
+     */
+    public void start(AppiumDriver driver, String device) {
+        if (!config.isEnabled() || driver.getSessionId() == null) {
+            return;
+        }
+        ResourceSampler sampler = new ResourceSampler(driver, device, appPackage, config.getData(),
+                config.getInterval().toMillis(), config.getBufferSize());
+        samplers.put(driver.getSessionId(), sampler);
+        sampler.start();
+    }
+
+    /**
+     * Stops sampling a session that is being quit.
+     */
+    public void stop(SessionId sessionId) {
+        ResourceSampler sampler = samplers.remove(sessionId);
+        if (sampler != null) {
+            sampler.stop();
+        }
+    }
+
+    /**
+     * Stops sampling a session, waiting for the sample in flight, until {@link #resume(SessionId)}.
+     *
+     * @param sessionId The session, may be null.
+     */
+    public void pause(SessionId sessionId) {
+        ResourceSampler sampler = sessionId == null ? null : samplers.get(sessionId);
+        if (sampler != null) {
+            sampler.pause();
+        }
+    }
+
+    /**
+     * Samples a session paused by {@link #pause(SessionId)} again.
+     *
+     * @param sessionId The session, may be null.
+     */
+    public void resume(SessionId sessionId) {
+        ResourceSampler sampler = sessionId == null ? null : samplers.get(sessionId);
+        if (sampler != null) {
+            sampler.resume();
+        }
+    }
+
+    /**
+     * Tags the next samples of a session with the screen method sending a command on it.
+     *
+     * @param sessionId    The session the command is sent on.
+     * @param screenMethod The screen method, "-" outside of screens.
+     */
+    public void noteCommand(SessionId sessionId, String screenMethod) {
+        if (samplers.isEmpty() || sessionId == null) {
+            return;
+        }
+        ResourceSampler sampler = samplers.get(sessionId);
+        if (sampler != null) {
+            sampler.setScreenMethod(screenMethod);
+        }
+    }
+
+    /**
+     * Marks the start of a test on the calling thread.
+     *
+     * @param driver The session the test runs on, may be null.
+     */
+    public void startTest(AppiumDriver driver) {
+        ResourceSampler sampler = driver == null ? null : samplers.get(driver.getSessionId());
+        if (sampler == null) {
+            currentTest.remove();
+            return;
+        }
+        sampler.setScreenMethod("-");
+        currentTest.set(new TestWindow(sampler, System.currentTimeMillis()));
+    }
+
+    /**
+     * Summarizes the samples taken during the calling thread's test and emits them as an event.
+     *
+     * @param test Name of the test, e.g. "LoginScreenTest.loginScreenVerificationTest".
+     */
+    public void endTest(String test) {
+        TestWindow window = currentTest.get();
+        if (window == null) {
+            return;
+        }
+        currentTest.remove();
+        Map<Integer, ResourceSummary> byLabel = window.sampler.getRing()
+                .summarize(window.startMillis, System.currentTimeMillis());
+        ResourceSummary all = byLabel.remove(ResourceRing.ALL);
+        if (all == null) {
+            logger.debug("No resource sample was taken during {}", test);
+            return;
+        }
+        Map<String, Object> summary = new TreeMap<>();
+        byLabel.forEach((label, labelSummary) ->
+                summary.put(window.sampler.getLabel(label), labelSummary.toMap()));
+        Map<String, Object> total = all.toMap();
+        summary.put("all", total);
+        summaries.put(test, summary);
+        TestEvents.resourcesSampled(test, total);
+    }
+
+    /**
+     * Writes the summaries of every test as JSON, if any test was sampled.
+     *
+     * @param file Target file; parent directories are created.
+     */
+    public void writeJson(Path file) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(new Json().toJson(new TreeMap<>(summaries)));
+            }
+            logger.info("Resource samples of {} test(s) written to {}", summaries.size(), file);
+        } catch (IOException e) {
+            logger.error("Failed to write the resource samples to {}", file, e);
+        }
+    }
+
+    /**
+     * @return The file the summaries are written to ("resourceSamplingFile").
+     */
+    public String getFile() {
+        return config.getFile();
+    }
+
+    private static final class TestWindow {
+        private final ResourceSampler sampler;
+        private final long startMillis;
+
+        private TestWindow(ResourceSampler sampler, long startMillis) {
+            this.sampler = sampler;
+            this.startMillis = startMillis;
+        }
+    }
+}
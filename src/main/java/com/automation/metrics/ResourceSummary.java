@@ -0,0 +1,79 @@
+package com.automation.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ResourceSummary sums up resource samples: mean and peak CPU and memory, and how much the network and frame
+ * counters grew.
+ */
+final class ResourceSummary {
+    private static final String[] GAUGES = {"cpuPercent", "memoryPssKb"};
+    private static final String[] COUNTERS = {"rxBytes", "txBytes", "framesRendered", "jankyFrames"};
+
+    private int samples;
+    private final double[] gaugeSum = new double[GAUGES.length];
+    private final double[] gaugeMax = new double[GAUGES.length];
+    private final int[] gaugeCount = new int[GAUGES.length];
+    private final double[] counterDelta = new double[COUNTERS.length];
+    private final boolean[] counterSeen = new boolean[COUNTERS.length];
+
+    /**
+     * Adds one sample of a ring's value array.
+     *
+     * @param values         The value array.
+     * @param offset         Offset of the sample.
+     * @param previousOffset Offset of the sample before it in the same window, or -1.
+     */
+    void add(double[] values, int offset, int previousOffset) {
+        samples++;
+        for (int gauge = 0; gauge < GAUGES.length; gauge++) {
+            double value = values[offset + ResourceRing.CPU_PERCENT + gauge];
+            if (!Double.isNaN(value)) {
+                gaugeSum[gauge] += value;
+                gaugeMax[gauge] = gaugeCount[gauge] == 0 ? value : Math.max(gaugeMax[gauge], value);
+                gaugeCount[gauge]++;
+            }
+        }
+        if (previousOffset < 0) {
+            return;
+        }
+        for (int counter = 0; counter < COUNTERS.length; counter++) {
+            double value = values[offset + ResourceRing.RX_BYTES + counter];
+            double previous = values[previousOffset + ResourceRing.RX_BYTES + counter];
+            // A counter going down means the app restarted in between; that interval is not counted
+            if (!Double.isNaN(value) && !Double.isNaN(previous) && value >= previous) {
+                counterDelta[counter] += value - previous;
+                counterSeen[counter] = true;
+            }
+        }
+    }
+
+    int getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return The summary as JSON-ready numbers; metrics without data are left out.
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("samples", samples);
+        for (int gauge = 0; gauge < GAUGES.length; gauge++) {
+            if (gaugeCount[gauge] > 0) {
+                summary.put(GAUGES[gauge] + "Mean", round(gaugeSum[gauge] / gaugeCount[gauge]));
+                summary.put(GAUGES[gauge] + "Max", round(gaugeMax[gauge]));
+            }
+        }
+        for (int counter = 0; counter < COUNTERS.length; counter++) {
+            if (counterSeen[counter]) {
+                summary.put(COUNTERS[counter], Math.round(counterDelta[counter]));
+            }
+        }
+        return summary;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
@@ -0,0 +1,67 @@
+package com.automation.metrics;
+
+import com.automation.logging.TestEvents;
+import org.slf4j.MDC;
+
+import java.util.Optional;
+
+/**
+ * StepContext tells which test and which screen method the calling thread is executing,
+ * so every WebDriver command can be attributed to them.
+ * <p>
+ * The test is set by the test lifecycle ({@code BaseTest}) and also put in the logging MDC; the screen method
+ * is found on the call stack as the innermost method of a class in the screens package.
+ */
+public final class StepContext {
+    private static final String SCREENS_PACKAGE = "com.automation.screens.";
+    private static final String NONE = "-";
+
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    private StepContext() {
+    }
+
+    /**
+     * Marks the start of a test on the calling thread.
+     *
+     * @param testName Name of the test, e.g. "LoginScreenTest.loginScreenVerificationTest".
+     */
+    public static void startTest(String testName) {
+        currentTest.set(testName);
+        MDC.put(TestEvents.TEST, testName);
+    }
+
+    /**
+     * Marks the end of the calling thread's test.
+     */
+    public static void endTest() {
+        currentTest.remove();
+        MDC.remove(TestEvents.TEST);
+    }
+
+    /**
+     * Gets the test running on the calling thread.
+     *
+     * @return The test name, or "-" outside of a test.
+     */
+    public static String getTest() {
+        String test = currentTest.get();
+        return test == null ? NONE : test;
+    }
+
+    /**
+     * Gets the innermost screen method on the calling thread's stack.
+     *
+     * @return The screen method as "Screen.method", or "-" if no screen method is running.
+     */
+    public static String getScreenMethod() {
+        Optional<String> screenMethod = stackWalker.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(SCREENS_PACKAGE)
+                        && !frame.getClassName().endsWith("ScreenRegistry")
+                        && !frame.getMethodName().startsWith("lambda$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(SCREENS_PACKAGE.length()) + "." + frame.getMethodName()));
+        return screenMethod.orElse(NONE);
+    }
+}
@@ -0,0 +1,138 @@
+package com.automation.perf;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * PerformanceBaselines is the local store of the percentiles each metric had on each device on the build it was
+ * last recorded on, so a new build can be compared with it on the same device. The store is a JSON file read at
+ * start and rewritten atomically whenever a baseline is recorded.
+ */
+final class PerformanceBaselines {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceBaselines.class);
+
+    private final Path file;
+    // "metric@device" -> baseline
+    private final Map<String, Baseline> baselines = new ConcurrentHashMap<>();
+    private final ReentrantLock saveLock = new ReentrantLock();
+
+    private PerformanceBaselines(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the baselines from a file. A missing or unreadable file gives no baselines.
+     */
+    @SuppressWarnings("unchecked")
+    static PerformanceBaselines load(Path file) {
+        PerformanceBaselines store = new PerformanceBaselines(file);
+        if (!Files.exists(file)) {
+            logger.info("No performance baselines at {}, the first samples of each metric become its baseline", file);
+            return store;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Object> stored = new Json().toType(reader, Json.MAP_TYPE);
+            stored.forEach((key, value) -> {
+                Map<String, Object> entry = (Map<String, Object>) value;
+                Map<String, Long> percentiles = new LinkedHashMap<>();
+                ((Map<String, Object>) entry.get("percentiles"))
+                        .forEach((label, millis) -> percentiles.put(label, ((Number) millis).longValue()));
+                store.baselines.put(key, new Baseline(String.valueOf(entry.get("build")),
+                        String.valueOf(entry.get("recordedAt")), percentiles));
+            });
+            logger.info("Loaded {} performance baseline(s) from {}", store.baselines.size(), file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable performance baselines {}: {}", file, e.getMessage());
+            store.baselines.clear();
+        }
+        return store;
+    }
+
+    /**
+     * @param metric The metric, e.g. "appStartup".
+     * @param device The platform and device it was measured on, e.g. "Android emulator-5554".
+     * @return The baseline of a metric on a device, or null if it has none.
+     */
+    Baseline get(String metric, String device) {
+        return baselines.get(key(metric, device));
+    }
+
+    /**
+     * Records the percentiles of a metric on a device and build as its new baseline and writes the store back.
+     */
+    void record(String metric, String device, String build, Map<String, Long> percentiles) {
+        saveLock.lock();
+        try {
+            baselines.put(key(metric, device), new Baseline(build, Instant.now().toString(), percentiles));
+            write();
+        } finally {
+            saveLock.unlock();
+        }
+        logger.info("Recorded the {} baseline of build {} on {}: {}", metric, build, device, percentiles);
+    }
+
+    private static String key(String metric, String device) {
+        return metric + "@" + device;
+    }
+
+    private void write() {
+        Map<String, Object> stored = new TreeMap<>();
+        baselines.forEach((key, baseline) -> stored.put(key, baseline.toMap()));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(new Json().toJson(stored));
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to save the performance baselines to {}", file, e);
+        }
+    }
+
+    static final class Baseline {
+        private final String build;
+        private final String recordedAt;
+        private final Map<String, Long> percentiles;
+
+        private Baseline(String build, String recordedAt, Map<String, Long> percentiles) {
+            this.build = build;
+            this.recordedAt = recordedAt;
+            this.percentiles = percentiles;
+        }
+
+        String getBuild() {
+            return build;
+        }
+
+        /**
+         * @return The percentile of the given label, e.g. "p90", or null if it was not recorded.
+         */
+        Long getMillis(String label) {
+            return percentiles.get(label);
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("build", build);
+            map.put("recordedAt", recordedAt);
+            map.put("percentiles", percentiles);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.automation.perf;
+
+import com.automation.config.DriverConfig;
+import com.automation.config.PerformanceConfig;
+import com.automation.driver.DriverPool;
+import com.automation.logging.TestEvents;
+import com.automation.metrics.ResourceSampling;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * PerformanceBudgets turns screen timings into assertions: a metric, e.g. the time from launching the app to
+ * its first screen, is sampled several times and its percentiles are checked against the budget declared in
+ * "perfBudgets" and against its baseline, the percentiles it had on the build it was recorded on.
+ * <p>
+ * A percentile fails the baseline when it is both "perfRegressionTolerance" percent and
+ * "perfRegressionMinMillis" slower, so metrics of a few hundred milliseconds are not failed by jitter. Baselines
+ * are kept per platform and device, as timings of different devices do not compare. The first passing run of a
+ * metric on a device records its baseline; later passing runs only replace it with "perfUpdateBaselines: true".
+ * Against the mock Appium server, or without "perfAppBuild" naming the build, only the budgets are checked: such
+ * timings say nothing about a build and must not become the baseline of the next one.
+ */
+public final class PerformanceBudgets {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceBudgets.class);
+
+    // Percentiles recorded for every metric, besides those of its budget
+    private static final List<Double> REPORTED_PERCENTILES = List.of(50.0, 90.0, 100.0);
+
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+    private static volatile PerformanceBudgets instance;
+
+    private final PerformanceConfig config;
+    private final String platform;
+    // Null when the timings of this run must not be compared with or recorded as baselines
+    private final PerformanceBaselines baselines;
+
+    private PerformanceBudgets(DriverConfig driverConfig) {
+        this.config = driverConfig.getPerformance();
+        this.platform = String.valueOf(driverConfig.getCapabilities().get("platformName"));
+        if (driverConfig.getMockServer().isEnabled()) {
+            logger.info("Running against the mock Appium server, performance baselines are neither compared nor "
+                    + "recorded");
+            this.baselines = null;
+        } else if (!config.isAppBuildSet()) {
+            logger.info("No perfAppBuild set, performance baselines are neither compared nor recorded");
+            this.baselines = null;
+        } else {
+            this.baselines = PerformanceBaselines.load(Paths.get(config.getBaselineFile()));
+        }
+    }
+
+    public static PerformanceBudgets getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new PerformanceBudgets(DriverConfig.getInstance("androidCapabilities.yaml"));
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Samples a metric and asserts it is within its budget and baseline.
+     *
+     * @param metric  The metric, e.g. "appStartup".
+     * @param prepare Brings the app to where the timed action starts; not timed.
+     * @param timed   The action and the wait for its outcome.
+     * @return The samples taken.
+     * @throws AssertionError if a percentile is over its budget or regressed from its baseline.
+     */
+    public PerformanceSamples measure(String metric, Runnable prepare, Runnable timed) {
+        PerformanceSamples samples = sample(metric, prepare, timed);
+        verify(samples);
+        return samples;
+    }
+
+    /**
+     * Runs the warm-up runs of a metric, then times "perfSamples" runs of it. Resource sampling of the session is
+     * paused meanwhile, as its commands would queue up with the timed ones on the server.
+     *
+     * @param metric  The metric, e.g. "appStartup".
+     * @param prepare Brings the app to where the timed action starts; not timed.
+     * @param timed   The action and the wait for its outcome.
+     * @return The samples taken.
+     */
+    public PerformanceSamples sample(String metric, Runnable prepare, Runnable timed) {
+        AppiumDriver driver = DriverPool.getInstance().getLeasedDriver();
+        SessionId sessionId = driver == null ? null : driver.getSessionId();
+        ResourceSampling sampling = ResourceSampling.getInstance();
+        List<Long> millis = new ArrayList<>();
+        sampling.pause(sessionId);
+        try {
+            for (int i = 0; i < config.getWarmupSamples(); i++) {
+                prepare.run();
+                timed.run();
+            }
+            for (int i = 0; i < config.getSamples(); i++) {
+                prepare.run();
+                long start = System.nanoTime();
+                timed.run();
+                millis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } finally {
+            sampling.resume(sessionId);
+        }
+        PerformanceSamples samples = new PerformanceSamples(metric, millis);
+        logger.debug("Sampled {}", samples);
+        return samples;
+    }
+
+    /**
+     * Asserts samples are within the budget and the baseline of their metric on the calling thread's device, and
+     * records them as the baseline if they pass and there is none yet (or "perfUpdateBaselines" is set).
+     *
+     * @param samples The samples of a metric.
+     * @throws AssertionError listing every percentile over its budget or regressed from its baseline.
+     */
+    public void verify(PerformanceSamples samples) {
+        String metric = samples.getMetric();
+        Map<Double, Long> budget = config.getBudget(metric);
+        Set<Double> percentiles = new TreeSet<>(REPORTED_PERCENTILES);
+        percentiles.addAll(budget.keySet());
+        Map<String, Long> measured = samples.getPercentiles(percentiles);
+
+        List<String> violations = new ArrayList<>();
+        budget.forEach((percentile, limit) -> {
+            long actual = samples.getPercentileMillis(percentile);
+            if (actual > limit) {
+                violations.add(String.format("%s = %d ms exceeds its budget of %d ms",
+                        PerformanceSamples.label(percentile), actual, limit));
+            }
+        });
+        String device = deviceLabel();
+        PerformanceBaselines.Baseline baseline = device == null ? null : baselines.get(metric, device);
+        if (baseline != null) {
+            measured.forEach((label, actual) -> {
+                Long base = baseline.getMillis(label);
+                if (base == null) {
+                    return;
+                }
+                long allowed = Math.max(base + base * config.getRegressionTolerancePercent() / 100,
+                        base + config.getRegressionMinMillis());
+                if (actual > allowed) {
+                    violations.add(String.format("%s = %d ms regressed from %d ms on build %s on %s (+%d%%)", label,
+                            actual, base, baseline.getBuild(), device, base == 0 ? 100 : (actual - base) * 100 / base));
+                }
+            });
+        }
+
+        boolean passed = violations.isEmpty();
+        TestEvents.performanceMeasured(metric, config.getAppBuild(), measured, passed);
+        if (budget.isEmpty()) {
+            logger.info(device == null ? "{} has no budget and no baseline, reported only"
+                    : "{} has no budget, compared with its baseline only", metric);
+        }
+        // A run over its budget must not become the baseline later builds are compared with
+        if (device != null && passed && (baseline == null || config.isUpdateBaselines())) {
+            baselines.record(metric, device, config.getAppBuild(), measured);
+        }
+        if (!passed) {
+            throw new AssertionError(metric + " is slower than allowed on build " + config.getAppBuild() + ": "
+                    + String.join("; ", violations) + " (samples: " + samples + ")");
+        }
+    }
+
+    /**
+     * @return The platform and the calling thread's device, e.g. "Android emulator-5554", or null if the
+     * baselines are off or the thread holds no device.
+     */
+    private String deviceLabel() {
+        if (baselines == null) {
+            return null;
+        }
+        String device = DriverPool.getInstance().getLeasedDeviceId();
+        return device == null ? null : platform + " " + device;
+    }
+}
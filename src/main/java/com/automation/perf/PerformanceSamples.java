@@ -0,0 +1,72 @@
+package com.automation.perf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PerformanceSamples are the timed runs of one metric, e.g. "appStartup", in milliseconds.
+ * Percentiles use the nearest-rank method, so each is one of the measured samples.
+ */
+public final class PerformanceSamples {
+    private final String metric;
+    private final List<Long> sortedMillis;
+
+    PerformanceSamples(String metric, List<Long> millis) {
+        if (millis.isEmpty()) {
+            throw new IllegalArgumentException("No samples of " + metric);
+        }
+        this.metric = metric;
+        List<Long> sorted = new ArrayList<>(millis);
+        Collections.sort(sorted);
+        this.sortedMillis = Collections.unmodifiableList(sorted);
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public int getCount() {
+        return sortedMillis.size();
+    }
+
+    /**
+     * Gets the sample below or at which the given share of the samples fall.
+     *
+     * @param percentile A percentile between 0 and 100, 100 for the slowest sample.
+     * @return The percentile in milliseconds.
+     */
+    public long getPercentileMillis(double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedMillis.size());
+        return sortedMillis.get(Math.min(sortedMillis.size(), Math.max(1, rank)) - 1);
+    }
+
+    /**
+     * Gets the given percentiles by their labels, e.g. "p50" and "max".
+     *
+     * @param percentiles The percentiles between 0 and 100.
+     * @return Label to milliseconds, in the order given.
+     */
+    public Map<String, Long> getPercentiles(Iterable<Double> percentiles) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        percentiles.forEach(percentile -> values.put(label(percentile), getPercentileMillis(percentile)));
+        return values;
+    }
+
+    /**
+     * @return The label of a percentile as written in the budgets and baselines: "p50", "p99.9" or "max".
+     */
+    static String label(double percentile) {
+        if (percentile >= 100) {
+            return "max";
+        }
+        return percentile == Math.rint(percentile) ? "p" + (long) percentile : "p" + percentile;
+    }
+
+    @Override
+    public String toString() {
+        return metric + " " + sortedMillis + " ms";
+    }
+}
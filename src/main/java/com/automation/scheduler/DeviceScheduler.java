@@ -0,0 +1,251 @@
+package com.automation.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * DeviceScheduler runs test classes across devices so that the whole run finishes as early as possible.
+ * <p>
+ * The tests are first planned with longest-processing-time-first bin packing on the durations of the
+ * {@link TestHistory}. Each device then works through its own queue, longest test first, on a thread of its own.
+ * A device that runs out of work steals the last (shortest) queued test of the device with the most estimated
+ * work left, so an estimate that was off never leaves devices idle while others still have a backlog.
+ * A device that is not available (e.g. its circuit breaker is open) takes no test until it is back,
+ * and the other devices take over its queue. Every run is recorded in the history for the next plan.
+ * <p>
+ * The device workers are platform threads, or virtual threads when the scheduler is built with
+ * {@code virtualThreads}: a worker spends nearly all its time blocked on the Appium server, so with virtual
+ * threads one JVM can drive hundreds of remote devices without an OS thread for each.
+ */
+public class DeviceScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceScheduler.class);
+
+    private static final long AVAILABILITY_POLL_MILLIS = 200;
+
+    /**
+     * Runs one test on one device.
+     */
+    @FunctionalInterface
+    public interface TestRunner {
+        /**
+         * @param test   The test to run.
+         * @param device The device to run it on.
+         * @return true if the test passed.
+         */
+        boolean run(String test, String device);
+    }
+
+    private final TestHistory history;
+    private final long defaultTestMillis;
+    private final Predicate<String> deviceAvailable;
+    private final boolean virtualThreads;
+
+    public DeviceScheduler(TestHistory history, Duration defaultTestDuration) {
+        this(history, defaultTestDuration, device -> true);
+    }
+
+    public DeviceScheduler(TestHistory history, Duration defaultTestDuration, Predicate<String> deviceAvailable) {
+        this(history, defaultTestDuration, deviceAvailable, false);
+    }
+
+    /**
+     * @param history             Durations of past runs.
+     * @param defaultTestDuration Duration assumed for a test without history.
+     * @param deviceAvailable     Tells whether a device may take a test now.
+     * @param virtualThreads      true to run each device worker on a virtual thread.
+     */
+    public DeviceScheduler(TestHistory history, Duration defaultTestDuration, Predicate<String> deviceAvailable,
+                           boolean virtualThreads) {
+        this.history = history;
+        this.defaultTestMillis = defaultTestDuration.toMillis();
+        this.deviceAvailable = deviceAvailable;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Plans tests on devices from their history.
+     *
+     * @param tests   The tests to run.
+     * @param devices The devices to run them on.
+     * @return The plan.
+     */
+    public ShardPlan plan(Collection<String> tests, List<String> devices) {
+        ShardPlan plan = ShardPlan.longestProcessingTimeFirst(tests, devices, this::estimateMillis);
+        logger.info("Planned {} test(s) on {} device(s), estimated makespan {} s:\n{}", tests.size(), devices.size(),
+                plan.getEstimatedMakespanMillis() / 1000, plan);
+        return plan;
+    }
+
+    /**
+     * Runs a plan, one worker thread per device, and records every run in the history.
+     *
+     * @param plan   The plan to run.
+     * @param runner Runs a test on a device.
+     * @return The report of the run.
+     */
+    public ScheduleReport run(ShardPlan plan, TestRunner runner) {
+        return run(plan, runner, test -> true);
+    }
+
+    /**
+     * Runs a plan, one worker thread per device, and records the runs of the given tests in the history.
+     *
+     * @param plan      The plan to run.
+     * @param runner    Runs a test on a device.
+     * @param recordRun Whether the duration of a test is recorded, e.g. not for a test that ran only in part.
+     * @return The report of the run.
+     */
+    public ScheduleReport run(ShardPlan plan, TestRunner runner, Predicate<String> recordRun) {
+        List<String> devices = plan.getDevices();
+        Map<String, Deque<String>> queues = new LinkedHashMap<>();
+        Map<String, AtomicLong> remainingMillis = new ConcurrentHashMap<>();
+        Map<String, Long> busyMillis = new ConcurrentHashMap<>();
+        Map<String, List<String>> executed = new ConcurrentHashMap<>();
+        for (String device : devices) {
+            queues.put(device, new ConcurrentLinkedDeque<>(plan.getTests(device)));
+            remainingMillis.put(device, new AtomicLong(plan.getEstimatedLoadMillis(device)));
+            executed.put(device, new CopyOnWriteArrayList<>());
+        }
+        List<String> failedTests = new CopyOnWriteArrayList<>();
+        AtomicInteger steals = new AtomicInteger();
+
+        long start = System.nanoTime();
+        Thread.Builder workerThreads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+        ExecutorService workers = Executors.newThreadPerTaskExecutor(workerThreads.name("device-worker-", 1).factory());
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (String device : devices) {
+                tasks.add(() -> {
+                    String test;
+                    while ((test = next(device, queues, remainingMillis, steals)) != null) {
+                        long testStart = System.nanoTime();
+                        boolean passed = runSafely(runner, test, device);
+                        long elapsedMillis = (System.nanoTime() - testStart) / 1_000_000;
+                        if (recordRun.test(test)) {
+                            history.record(test, elapsedMillis, !passed);
+                        }
+                        busyMillis.merge(device, elapsedMillis, Long::sum);
+                        executed.get(device).add(test);
+                        if (!passed) {
+                            failedTests.add(test);
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> result : workers.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running the scheduled tests", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("A device worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Map<String, Long> busy = new LinkedHashMap<>();
+        Map<String, List<String>> ran = new LinkedHashMap<>();
+        for (String device : devices) {
+            busy.put(device, busyMillis.getOrDefault(device, 0L));
+            ran.put(device, Collections.unmodifiableList(new ArrayList<>(executed.get(device))));
+        }
+        ScheduleReport report = new ScheduleReport((System.nanoTime() - start) / 1_000_000,
+                plan.getEstimatedMakespanMillis(), busy, ran, new ArrayList<>(failedTests), steals.get());
+        logger.info("Scheduled run finished. {}", report);
+        return report;
+    }
+
+    private long estimateMillis(String test) {
+        return history.getEstimatedMillis(test, defaultTestMillis);
+    }
+
+    /**
+     * Takes the next test of a device's own queue, or steals one when the queue is empty.
+     *
+     * @return The test, or null when no device has queued work left.
+     */
+    private String next(String device, Map<String, Deque<String>> queues, Map<String, AtomicLong> remainingMillis,
+                        AtomicInteger steals) throws InterruptedException {
+        if (!awaitAvailable(device, queues)) {
+            return null;
+        }
+        String test = queues.get(device).pollFirst();
+        if (test != null) {
+            remainingMillis.get(device).addAndGet(-estimateMillis(test));
+            return test;
+        }
+        while (true) {
+            String victim = null;
+            long mostRemaining = -1;
+            for (Map.Entry<String, Deque<String>> queue : queues.entrySet()) {
+                long remaining = remainingMillis.get(queue.getKey()).get();
+                if (!queue.getValue().isEmpty() && remaining > mostRemaining) {
+                    victim = queue.getKey();
+                    mostRemaining = remaining;
+                }
+            }
+            if (victim == null) {
+                return null;
+            }
+            test = queues.get(victim).pollLast();
+            if (test != null) {
+                remainingMillis.get(victim).addAndGet(-estimateMillis(test));
+                steals.incrementAndGet();
+                logger.info("Device {} ran out of work and took {} from device {}", device, test, victim);
+                return test;
+            }
+            // The victim's queue was emptied meanwhile, look again
+        }
+    }
+
+    /**
+     * Waits until a device is available again, as long as queued work is left.
+     *
+     * @return false if the queues ran empty meanwhile.
+     */
+    private boolean awaitAvailable(String device, Map<String, Deque<String>> queues) throws InterruptedException {
+        if (deviceAvailable.test(device)) {
+            return true;
+        }
+        logger.info("Device {} is unavailable, leaving its queue to the other devices", device);
+        while (!deviceAvailable.test(device)) {
+            if (queues.values().stream().allMatch(Deque::isEmpty)) {
+                return false;
+            }
+            Thread.sleep(AVAILABILITY_POLL_MILLIS);
+        }
+        logger.info("Device {} is available again", device);
+        return true;
+    }
+
+    private static boolean runSafely(TestRunner runner, String test, String device) {
+        try {
+            return runner.run(test, device);
+        } catch (RuntimeException e) {
+            logger.error("Test {} failed to run on device {}", test, device, e);
+            return false;
+        }
+    }
+}
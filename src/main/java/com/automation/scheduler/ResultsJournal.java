@@ -0,0 +1,395 @@
+package com.automation.scheduler;
+
+import com.automation.config.DriverConfig;
+import com.automation.config.JournalConfig;
+import com.automation.logging.TestEvents;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.openqa.selenium.json.JsonOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ResultsJournal appends the outcome of every test, with its duration, to a JSON lines file as soon as the test
+ * ends, so a run that dies halfway leaves behind what it already did.
+ * <p>
+ * The journal is append-only and synced to disk in batches: after "resultsJournalSyncBatch" outcomes or
+ * "resultsJournalSyncMillis" at the latest, so tests never wait on the disk. A record cut short by a crash is
+ * dropped when the journal is opened again. A run with "resume" continues the journal and skips the tests whose
+ * last outcome in it passed; any other run starts a new journal, keeping the previous one as "*.previous".
+ * <p>
+ * The durations also feed the {@link TestHistory}: each test class is journaled when it ends with its wall time,
+ * setup and teardown included, which is the duration {@link DeviceScheduler} records for it too. A run that ended
+ * is marked in the journal once its durations are in the history, and the runs found unmarked, because they died
+ * first, are replayed into it by {@link #feedHistory(TestHistory, boolean)}. A class cut short by the crash has
+ * no duration to replay. Nor has a class that a resumed run runs only in part, without the tests that passed
+ * before: its wall time would understate the class (see {@link #isResumedInPart(String)}).
+ */
+public final class ResultsJournal {
+    private static final Logger logger = LoggerFactory.getLogger(ResultsJournal.class);
+
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+    private static volatile ResultsJournal instance;
+
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final JournalConfig config;
+    private final Path file;
+    private final String runId = LocalDateTime.now().format(RUN_ID);
+    private final Json json = new Json();
+    // Last outcome of each test in the journaled runs, empty unless resuming
+    private final Map<String, String> previousOutcomes = new HashMap<>();
+    // Classes with a test that passed in the journaled runs, empty unless resuming
+    private final Set<String> previouslyPassedClasses = new HashSet<>();
+    // Durations of the runs whose end was never marked, by run and test class
+    private final Map<String, Map<String, ClassTotal>> unfinishedRuns = new LinkedHashMap<>();
+    private final Map<String, ClassTotal> currentRun = new LinkedHashMap<>();
+    // Classes of this run with a failed test
+    private final Set<String> failedClasses = new HashSet<>();
+    private final List<String> fedRuns = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private FileChannel channel;
+    private ScheduledExecutorService syncer;
+    private int unsynced;
+
+    ResultsJournal(JournalConfig config) {
+        this.config = config;
+        this.file = Paths.get(config.getFile());
+        if (!config.isEnabled()) {
+            if (config.isResume()) {
+                logger.warn("resume needs the results journal; every test runs");
+            }
+            return;
+        }
+        open();
+        append(entry("run", runId));
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "results-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, config.getSyncInterval().toMillis());
+        syncer.scheduleWithFixedDelay(this::sync, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::sync, "results-journal-shutdown"));
+    }
+
+    public static ResultsJournal getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new ResultsJournal(DriverConfig.getInstance("androidCapabilities.yaml").getJournal());
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return true if this run resumes the journaled runs.
+     */
+    public boolean isResuming() {
+        return config.isEnabled() && config.isResume();
+    }
+
+    /**
+     * Checks whether a test can be skipped when resuming.
+     *
+     * @param test Qualified name of the test method, e.g. "com.automation.tests.LoginScreenTest.loginTest".
+     * @return true if this run resumes and the last outcome of the test in the journal is "passed".
+     */
+    public boolean hasPassed(String test) {
+        return "passed".equals(previousOutcomes.get(test));
+    }
+
+    /**
+     * Checks whether a resumed run skips some tests of a class, so the class runs only in part and its wall time
+     * is no duration for the history.
+     *
+     * @param testClass Name of the class, as recorded in the history.
+     * @return true if this run resumes and a test of the class passed before.
+     */
+    public boolean isResumedInPart(String testClass) {
+        return previouslyPassedClasses.contains(testClass);
+    }
+
+    /**
+     * Appends the outcome of a test.
+     *
+     * @param test           Qualified name of the test method.
+     * @param testClass      Name of its class, as recorded in the history.
+     * @param status         "passed", "failed" or "skipped".
+     * @param durationMillis How long it ran.
+     */
+    public void record(String test, String testClass, String status, long durationMillis) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Map<String, Object> entry = entry("test", runId);
+        entry.put("test", test);
+        entry.put("class", testClass);
+        entry.put("status", status);
+        entry.put("durationMs", durationMillis);
+        String device = MDC.get(TestEvents.DEVICE);
+        if (device != null) {
+            entry.put("device", device);
+        }
+        writeLock.lock();
+        try {
+            append(entry);
+            if ("failed".equals(status)) {
+                failedClasses.add(testClass);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Appends the duration of a test class that ended, failed if any of its recorded tests failed. A class that
+     * ran only in part is not recorded (see {@link #isResumedInPart(String)}).
+     *
+     * @param testClass      Name of the class, as recorded in the history.
+     * @param durationMillis Its wall time, from the start of its setup to the end of its teardown.
+     */
+    public void recordClass(String testClass, long durationMillis) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            boolean failed = failedClasses.remove(testClass);
+            if (isResumedInPart(testClass)) {
+                logger.debug("Not journaling the wall time of {}, its tests that passed before were skipped",
+                        testClass);
+                return;
+            }
+            Map<String, Object> entry = entry("class", runId);
+            entry.put("class", testClass);
+            entry.put("durationMs", durationMillis);
+            entry.put("failed", failed);
+            append(entry);
+            currentRun.computeIfAbsent(testClass, name -> new ClassTotal()).add(durationMillis, failed);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Records in a history the durations of the journaled runs that died before theirs were recorded, and
+     * optionally those of this run. Save the history before {@link #close()}, which marks them as recorded.
+     *
+     * @param history           The history to record in.
+     * @param includeCurrentRun true if this run's durations do not reach the history otherwise.
+     */
+    public void feedHistory(TestHistory history, boolean includeCurrentRun) {
+        writeLock.lock();
+        try {
+            unfinishedRuns.forEach((run, classes) -> {
+                classes.forEach((testClass, total) -> history.record(testClass, total.millis, total.failed));
+                logger.info("Replayed the durations of the interrupted run {} ({} test class(es)) into the history",
+                        run, classes.size());
+                fedRuns.add(run);
+            });
+            unfinishedRuns.clear();
+            if (includeCurrentRun) {
+                currentRun.forEach((testClass, total) -> history.record(testClass, total.millis, total.failed));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Marks this run and the runs fed to the history as ended, and syncs and closes the journal.
+     */
+    public void close() {
+        writeLock.lock();
+        try {
+            if (channel == null) {
+                return;
+            }
+            for (String run : fedRuns) {
+                append(entry("end", run));
+            }
+            fedRuns.clear();
+            append(entry("end", runId));
+            channel.force(false);
+            channel.close();
+            channel = null;
+            syncer.shutdownNow();
+            logger.info("Results journal {} closed", file);
+        } catch (IOException e) {
+            logger.error("Failed to close the results journal {}", file, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            if (Files.exists(file)) {
+                readPrevious();
+                if (!config.isResume()) {
+                    Files.move(file, file.resolveSibling(file.getFileName() + ".previous"),
+                            StandardCopyOption.REPLACE_EXISTING);
+                    previousOutcomes.clear();
+                }
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open the results journal " + file, e);
+        }
+        if (config.isResume()) {
+            previousOutcomes.forEach((test, status) -> {
+                int dot = test.lastIndexOf('.');
+                if ("passed".equals(status) && dot > 0) {
+                    previouslyPassedClasses.add(test.substring(0, dot));
+                }
+            });
+            logger.info("Resuming from {}: {} test(s) passed before and are skipped", file,
+                    previousOutcomes.values().stream().filter("passed"::equals).count());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readPrevious() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        int end = content.length;
+        while (end > 0 && content[end - 1] != '\n') {
+            end--;
+        }
+        if (end < content.length) {
+            // The last record was cut short by a crash; appending after it would corrupt the next one too
+            try (FileChannel truncated = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncated.truncate(end);
+            }
+            logger.warn("Dropped an incomplete record at the end of the results journal {}", file);
+        }
+        for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, Object> entry;
+            try {
+                entry = json.toType(line, Json.MAP_TYPE);
+            } catch (JsonException e) {
+                logger.warn("Skipping an unreadable record of the results journal {}: {}", file, line);
+                continue;
+            }
+            String run = String.valueOf(entry.get("run"));
+            switch (String.valueOf(entry.get("type"))) {
+                case "run":
+                    unfinishedRuns.put(run, new LinkedHashMap<>());
+                    break;
+                case "end":
+                    unfinishedRuns.remove(run);
+                    break;
+                case "test":
+                    previousOutcomes.put(String.valueOf(entry.get("test")), String.valueOf(entry.get("status")));
+                    break;
+                case "class":
+                    Map<String, ClassTotal> classes = unfinishedRuns.get(run);
+                    if (classes != null) {
+                        classes.computeIfAbsent(String.valueOf(entry.get("class")), name -> new ClassTotal())
+                                .add(((Number) entry.get("durationMs")).longValue(),
+                                        Boolean.TRUE.equals(entry.get("failed")));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        unfinishedRuns.values().removeIf(Map::isEmpty);
+    }
+
+    private Map<String, Object> entry(String type, String run) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("type", type);
+        entry.put("run", run);
+        entry.put("time", System.currentTimeMillis());
+        return entry;
+    }
+
+    private void append(Map<String, Object> entry) {
+        StringBuilder line = new StringBuilder();
+        try (JsonOutput output = json.newOutput(line)) {
+            output.setPrettyPrint(false).write(entry);
+        }
+        line.append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+        writeLock.lock();
+        try {
+            if (channel == null) {
+                logger.warn("Results journal {} is closed, dropping {}", file, line.toString().trim());
+                return;
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (++unsynced >= config.getSyncBatch()) {
+                channel.force(false);
+                unsynced = 0;
+            }
+        } catch (IOException e) {
+            logger.error("Failed to append to the results journal {}", file, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void sync() {
+        writeLock.lock();
+        try {
+            if (channel != null && unsynced > 0) {
+                channel.force(false);
+                unsynced = 0;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to sync the results journal {}: {}", file, e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Wall time of a test class during one run, and whether any of its tests failed.
+     */
+    private static final class ClassTotal {
+        private long millis;
+        private boolean failed;
+
+        private void add(long durationMillis, boolean classFailed) {
+            millis += durationMillis;
+            failed |= classFailed;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.automation.scheduler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ScheduleReport is the outcome of a {@link DeviceScheduler} run: how long it took against the estimate,
+ * how busy each device was and which tests failed.
+ */
+public final class ScheduleReport {
+    private final long makespanMillis;
+    private final long estimatedMakespanMillis;
+    private final Map<String, Long> busyMillis;
+    private final Map<String, List<String>> executed;
+    private final List<String> failedTests;
+    private final int steals;
+
+    ScheduleReport(long makespanMillis, long estimatedMakespanMillis, Map<String, Long> busyMillis,
+                   Map<String, List<String>> executed, List<String> failedTests, int steals) {
+        this.makespanMillis = makespanMillis;
+        this.estimatedMakespanMillis = estimatedMakespanMillis;
+        this.busyMillis = Collections.unmodifiableMap(busyMillis);
+        this.executed = Collections.unmodifiableMap(executed);
+        this.failedTests = Collections.unmodifiableList(failedTests);
+        this.steals = steals;
+    }
+
+    public long getMakespanMillis() {
+        return makespanMillis;
+    }
+
+    public long getEstimatedMakespanMillis() {
+        return estimatedMakespanMillis;
+    }
+
+    /**
+     * @return The time each device spent running tests, in milliseconds.
+     */
+    public Map<String, Long> getBusyMillis() {
+        return busyMillis;
+    }
+
+    /**
+     * @return The tests each device ran, stolen ones included, in run order.
+     */
+    public Map<String, List<String>> getExecuted() {
+        return executed;
+    }
+
+    public List<String> getFailedTests() {
+        return failedTests;
+    }
+
+    /**
+     * @return How many tests were taken over by a device that ran out of work.
+     */
+    public int getSteals() {
+        return steals;
+    }
+
+    public boolean isSuccessful() {
+        return failedTests.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(String.format(
+                "Makespan %d ms (estimated %d ms), %d steal(s), %d failed test(s)%n",
+                makespanMillis, estimatedMakespanMillis, steals, failedTests.size()));
+        busyMillis.forEach((device, busy) -> report.append(String.format("  %-20s busy %6d ms (%3d%%) %s%n",
+                device, busy, makespanMillis == 0 ? 0 : busy * 100 / makespanMillis, executed.get(device))));
+        if (!failedTests.isEmpty()) {
+            report.append("  Failed: ").append(failedTests).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.automation.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+/**
+ * ShardPlan is the assignment of test classes to devices, with the load each device is expected to carry.
+ * <p>
+ * {@link #longestProcessingTimeFirst(Collection, List, ToLongFunction)} sorts the tests from the longest to the
+ * shortest estimate and gives each to the device with the least load so far. The longest tests are spread first
+ * and the short ones fill the gaps, which keeps the makespan within 4/3 of the optimum.
+ */
+public final class ShardPlan {
+    private final Map<String, List<String>> assignments;
+    private final Map<String, Long> estimatedLoadMillis;
+
+    private ShardPlan(Map<String, List<String>> assignments, Map<String, Long> estimatedLoadMillis) {
+        this.assignments = assignments;
+        this.estimatedLoadMillis = estimatedLoadMillis;
+    }
+
+    /**
+     * Plans the tests on the devices with longest-processing-time-first bin packing.
+     *
+     * @param tests          The tests to run.
+     * @param devices        The devices to run them on.
+     * @param estimateMillis Expected duration of a test.
+     * @return The plan; each device runs its tests longest first.
+     */
+    public static ShardPlan longestProcessingTimeFirst(Collection<String> tests, List<String> devices,
+                                                       ToLongFunction<String> estimateMillis) {
+        if (devices.isEmpty()) {
+            throw new RuntimeException("No device to schedule " + tests.size() + " test(s) on");
+        }
+        List<String> sorted = new ArrayList<>(tests);
+        // Ties broken by name, so the same history always gives the same plan
+        sorted.sort(Comparator.comparingLong(estimateMillis).reversed().thenComparing(Comparator.naturalOrder()));
+
+        Map<String, List<String>> assignments = new LinkedHashMap<>();
+        Map<String, Long> loads = new LinkedHashMap<>();
+        for (String device : devices) {
+            assignments.put(device, new ArrayList<>());
+            loads.put(device, 0L);
+        }
+        PriorityQueue<String> leastLoaded = new PriorityQueue<>(
+                Comparator.comparingLong((String device) -> loads.get(device)).thenComparingInt(devices::indexOf));
+        leastLoaded.addAll(devices);
+        for (String test : sorted) {
+            String device = leastLoaded.poll();
+            assignments.get(device).add(test);
+            loads.merge(device, estimateMillis.applyAsLong(test), Long::sum);
+            leastLoaded.add(device);
+        }
+        assignments.replaceAll((device, assigned) -> Collections.unmodifiableList(assigned));
+        return new ShardPlan(Collections.unmodifiableMap(assignments), Collections.unmodifiableMap(loads));
+    }
+
+    public List<String> getDevices() {
+        return new ArrayList<>(assignments.keySet());
+    }
+
+    /**
+     * @param device A device of the plan.
+     * @return The tests assigned to the device, in run order.
+     */
+    public List<String> getTests(String device) {
+        return assignments.getOrDefault(device, Collections.emptyList());
+    }
+
+    /**
+     * @param device A device of the plan.
+     * @return The sum of the estimates of the device's tests, in milliseconds.
+     */
+    public long getEstimatedLoadMillis(String device) {
+        return estimatedLoadMillis.getOrDefault(device, 0L);
+    }
+
+    /**
+     * @return The estimated load of the busiest device, in milliseconds.
+     */
+    public long getEstimatedMakespanMillis() {
+        return estimatedLoadMillis.values().stream().mapToLong(Long::longValue).max().orElse(0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder plan = new StringBuilder();
+        assignments.forEach((device, tests) -> plan.append(String.format("%s (~%d s): %s%n",
+                device, estimatedLoadMillis.get(device) / 1000, tests)));
+        return plan.toString();
+    }
+}
@@ -0,0 +1,172 @@
+package com.automation.scheduler;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TestHistory is the local store of how long each test class took and how often it failed on past runs.
+ * <p>
+ * Durations are kept as an exponentially weighted mean, so the estimate follows a test that got slower
+ * without being thrown off by a single slow run. The store is a JSON file read at start and rewritten
+ * with {@link #save()}.
+ */
+public class TestHistory {
+    private static final Logger logger = LoggerFactory.getLogger(TestHistory.class);
+
+    // Weight of the latest run in the mean duration
+    private static final double SMOOTHING = 0.3;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock saveLock = new ReentrantLock();
+
+    private TestHistory(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the history from a file. A missing or unreadable file gives an empty history.
+     *
+     * @param file The history file.
+     * @return The history, saved back to the same file.
+     */
+    @SuppressWarnings("unchecked")
+    public static TestHistory load(Path file) {
+        TestHistory history = new TestHistory(file);
+        if (!Files.exists(file)) {
+            logger.info("No test history at {}, every test class is estimated with the default duration", file);
+            return history;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Object> stored = new Json().toType(reader, Json.MAP_TYPE);
+            stored.forEach((test, value) -> {
+                Map<String, Object> entry = (Map<String, Object>) value;
+                history.entries.put(test, new Entry(((Number) entry.get("meanMillis")).doubleValue(),
+                        ((Number) entry.get("runs")).longValue(), ((Number) entry.get("failures")).longValue()));
+            });
+            logger.info("Loaded the history of {} test(s) from {}", history.entries.size(), file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable test history {}: {}", file, e.getMessage());
+            history.entries.clear();
+        }
+        return history;
+    }
+
+    /**
+     * Records one run of a test.
+     *
+     * @param test           The test, e.g. the test class name.
+     * @param durationMillis How long it took.
+     * @param failed         true if it failed.
+     */
+    public void record(String test, long durationMillis, boolean failed) {
+        entries.merge(test, new Entry(durationMillis, 1, failed ? 1 : 0), Entry::add);
+    }
+
+    /**
+     * Checks whether a test has run before.
+     *
+     * @param test The test.
+     * @return true if the history has a run of it.
+     */
+    public boolean contains(String test) {
+        return entries.containsKey(test);
+    }
+
+    /**
+     * Estimates how long the next run of a test takes. A test that fails often is expected to take longer,
+     * since its failures tend to run into timeouts and retries.
+     *
+     * @param test          The test.
+     * @param defaultMillis Estimate of a test without history.
+     * @return The estimate in milliseconds.
+     */
+    public long getEstimatedMillis(String test, long defaultMillis) {
+        Entry entry = entries.get(test);
+        if (entry == null) {
+            return defaultMillis;
+        }
+        return Math.round(entry.meanMillis * (1 + entry.getFailureRate()));
+    }
+
+    /**
+     * Gets the share of past runs of a test that failed.
+     *
+     * @param test The test.
+     * @return The failure rate between 0 and 1, 0 for a test without history.
+     */
+    public double getFailureRate(String test) {
+        Entry entry = entries.get(test);
+        return entry == null ? 0 : entry.getFailureRate();
+    }
+
+    /**
+     * Writes the history back to its file, replacing it atomically.
+     */
+    public void save() {
+        saveLock.lock();
+        try {
+            write();
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    private void write() {
+        Map<String, Object> stored = new TreeMap<>();
+        entries.forEach((test, entry) -> stored.put(test, entry.toMap()));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(new Json().toJson(stored));
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved the history of {} test(s) to {}", stored.size(), file);
+        } catch (IOException e) {
+            logger.error("Failed to save the test history to {}", file, e);
+        }
+    }
+
+    private static final class Entry {
+        private final double meanMillis;
+        private final long runs;
+        private final long failures;
+
+        private Entry(double meanMillis, long runs, long failures) {
+            this.meanMillis = meanMillis;
+            this.runs = runs;
+            this.failures = failures;
+        }
+
+        private Entry add(Entry run) {
+            return new Entry(SMOOTHING * run.meanMillis + (1 - SMOOTHING) * meanMillis,
+                    runs + run.runs, failures + run.failures);
+        }
+
+        private double getFailureRate() {
+            return runs == 0 ? 0 : (double) failures / runs;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new TreeMap<>();
+            map.put("meanMillis", Math.round(meanMillis));
+            map.put("runs", runs);
+            map.put("failures", failures);
+            return map;
+        }
+    }
+}
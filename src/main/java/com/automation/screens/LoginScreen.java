@@ -1,17 +1,22 @@
 package com.automation.screens;
 
-import com.automation.config.DriverConfig;
-import com.automation.driver.DriverInstance;
+import com.automation.accounts.AccountPool;
+import com.automation.auth.AuthSnapshots;
+import com.automation.config.UserCredentials;
+import com.automation.driver.DriverPool;
+import com.automation.locators.ScreenFieldDecorator;
+import com.automation.utils.ElementState;
+import com.automation.utils.StepRetry;
 import com.automation.utils.WaitHelper;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AndroidFindBy;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
+import java.time.Duration;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -20,8 +25,13 @@ public class LoginScreen {
 
     private static final Logger logger = LoggerFactory.getLogger(LoginScreen.class);
 
+    private static final Duration RESTORED_LOGIN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final AppiumDriver driver;
     private final WaitHelper waitHelper;
-    OnboardingScreen onboardingScreen = new OnboardingScreen();
+
+    // Set once the onboarding screen has been left for this screen
+    private boolean opened;
 
     @AndroidFindBy(xpath = "//android.widget.TextView[@text='Log in']")
     WebElement loginScreen;
@@ -45,28 +55,53 @@ public class LoginScreen {
     WebElement profile;
 
     public LoginScreen() {
-        if (onboardingScreen.loginButton.isDisplayed()) {
+        this(DriverPool.getInstance().getDriver());
+    }
+
+    public LoginScreen(AppiumDriver driver) {
+        logger.debug("Initializing Login Screen");
+        this.driver = driver;
+        this.waitHelper = new WaitHelper();
+        PageFactory.initElements(new ScreenFieldDecorator(driver), this);
+        logger.debug("Login Screen Initialized");
+    }
+
+    /**
+     * Navigates from the onboarding screen to this screen the first time a method needs it,
+     * so building the screen object costs no device round-trip.
+     */
+    private void open() {
+        if (opened) {
+            return;
+        }
+        OnboardingScreen onboardingScreen = ScreenRegistry.get(OnboardingScreen.class);
+        if (onboardingScreen.isLoginButtonPresent()) {
             onboardingScreen.clickOnLogin();
         }
-        logger.debug("Initializing Login Screen");
-        AppiumDriver driver = DriverInstance.getInstance().getDriver();
-        this.waitHelper = new WaitHelper(driver);
-        PageFactory.initElements(new AppiumFieldDecorator(driver), this);
-        logger.info("Login Screen Initialized");
+        opened = true;
     }
 
     public void verifyLoginScreen() {
+        open();
         logger.debug("Waiting for login screen to be displayed");
-        waitHelper.waitForVisibility(loginScreen);
-        assertThat("Login screen is not displayed", loginScreen.isDisplayed(), equalTo(true));
+        boolean isDisplayed = waitHelper.waitForVisibility(loginScreen).isDisplayed();
+        assertThat("Login screen is not displayed", isDisplayed, equalTo(true));
         logger.info("Login screen is displayed");
     }
 
+    /**
+     * Waits for the login screen to be displayed, without navigating to it.
+     */
+    void waitUntilDisplayed() {
+        waitHelper.waitForVisibility(loginScreen);
+    }
+
     public void verifyHeaderSection(String expectedText) {
+        open();
         logger.debug("Waiting for header section to be displayed");
-        waitHelper.waitForVisibility(headerSection);
-        assertThat(headerSection.isDisplayed(), equalTo(true));
-        String actualText = headerSection.getText();
+        ElementState headerState = waitHelper.waitForVisibility(headerSection);
+        assertThat(headerState.isDisplayed(), equalTo(true));
+        String actualText = headerState.getText();
         assertThat(String.format("Expected Text: '%s' is not the same as Actual Text: '%s'", expectedText, actualText),
                 actualText,
                 equalTo(expectedText));
@@ -74,29 +109,63 @@ public class LoginScreen {
     }
 
     /**
-     * Logs in a user based on user type (free or premium).
+     * Logs in a user based on user type (free or premium), with an account of the {@link AccountPool}
+     * no other session is using. The account stays with the test thread until the test class ends.
+     * With "authSnapshots" enabled, an account already logged in once in this run gets its login restored
+     * from an {@link AuthSnapshots} snapshot instead of going through the UI again.
      *
      * @param userType The type of user to log in (either "free" or "premium").
      */
     public void loginAsUser(String userType) {
-        DriverConfig config = DriverConfig.getInstance("credentials.yaml");// Load credentials YAML
-        Map<String, String> credentials = config.getUserCredentials(userType);
-
-        if (!credentials.isEmpty()) {
-            String email = credentials.get("email");
-            String password = credentials.get("password");
-            logger.info("Logging in with email: {}", email);
-            emailField.sendKeys(email); // Enter username
-            emailNext.click();
-            passwordField.sendKeys(password);
-            emailNext.click();
-            logger.info("Next button clicked for email or phone: {}", email);
+        UserCredentials credentials = AccountPool.getInstance().lease(userType);
+
+        if (credentials != null) {
+            boolean restored = restoreLogin(userType, credentials);
+            if (!restored) {
+                open();
+                String email = credentials.getEmail();
+                String password = credentials.getPassword();
+                logger.info("Logging in with email: {}", email);
+                // Each interaction is retried on its own with a fresh lookup if its element is not ready
+                StepRetry.run("LoginScreen.enterEmail", () -> emailField.sendKeys(email)); // Enter username
+                StepRetry.run("LoginScreen.submitEmail", emailNext::click);
+                StepRetry.run("LoginScreen.enterPassword", () -> passwordField.sendKeys(password));
+                StepRetry.run("LoginScreen.submitPassword", emailNext::click);
+                logger.info("Next button clicked for email or phone: {}", email);
+            }
             assertThat("Manage Profiles screen is not displayed", manageProfilesButton.isDisplayed(), equalTo(true));
-            profile.click();
+            if (!restored) {
+                // Only a login that reached the profiles screen is worth restoring
+                AuthSnapshots.getInstance().capture(driver, userType, credentials);
+            }
+            StepRetry.run("LoginScreen.selectProfile", profile::click);
         } else {
             logger.error("Unable to proceed next. No credentials found for user type: {}", userType);
         }
     }
 
+    /**
+     * Restores the snapshotted login of an account and checks the app opened on the profiles screen.
+     *
+     * @return true if the app is logged in, false if the login has to go through the UI.
+     */
+    private boolean restoreLogin(String userType, UserCredentials credentials) {
+        AuthSnapshots snapshots = AuthSnapshots.getInstance();
+        if (!snapshots.restore(driver, userType, credentials)) {
+            return false;
+        }
+        // The app was relaunched, so every element resolved before is gone
+        ScreenRegistry.invalidateElements();
+        try {
+            waitHelper.waitForVisibility(manageProfilesButton, RESTORED_LOGIN_TIMEOUT);
+            opened = true;
+            return true;
+        } catch (TimeoutException e) {
+            logger.warn("The login snapshot of {} did not log in, logging in through the UI", credentials.getEmail());
+            snapshots.discard(userType, credentials);
+            opened = false;
+            return false;
+        }
+    }
 
 }
@@ -1,21 +1,29 @@
 package com.automation.screens;
 
-import com.automation.driver.DriverInstance;
+import com.automation.config.DriverConfig;
+import com.automation.driver.DriverPool;
+import com.automation.locators.ScreenFieldDecorator;
+import com.automation.perf.PerformanceBudgets;
+import com.automation.snapshot.SnapshotAssert;
+import com.automation.utils.ElementState;
 import com.automation.utils.WaitHelper;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AndroidFindBy;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
+import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 
 public class OnboardingScreen {
     private static final Logger logger = LoggerFactory.getLogger(OnboardingScreen.class);
 
+    private final AppiumDriver driver;
     private final WaitHelper waitHelper;
 
     @AndroidFindBy(id = "com.crunchyroll.crunchyroid:id/onboarding_logo")
@@ -34,11 +42,15 @@ public class OnboardingScreen {
     WebElement createAccount;
 
     public OnboardingScreen() {
-        logger.info("Initializing OnboardingScreen...");
-        AppiumDriver driver = DriverInstance.getInstance().getDriver();
-        this.waitHelper = new WaitHelper(driver);
-        PageFactory.initElements(new AppiumFieldDecorator(driver), this);
-        logger.info("OnboardingScreen initialized.");
+        this(DriverPool.getInstance().getDriver());
+    }
+
+    public OnboardingScreen(AppiumDriver driver) {
+        logger.debug("Initializing OnboardingScreen...");
+        this.driver = driver;
+        this.waitHelper = new WaitHelper();
+        PageFactory.initElements(new ScreenFieldDecorator(driver), this);
+        logger.debug("OnboardingScreen initialized.");
     }
 
     /**
@@ -52,8 +64,7 @@ public class OnboardingScreen {
      */
     public void isOnboardingLogoDisplayed() {
         logger.debug("Waiting for onboarding logo to be displayed...");
-        waitHelper.waitForVisibility(onBoardingLogo);
-        boolean isDisplayed = onBoardingLogo.isDisplayed();
+        boolean isDisplayed = waitHelper.waitForVisibility(onBoardingLogo).isDisplayed();
         assertThat("Onboarding Logo is not displaye", isDisplayed, equalTo(true));
         logger.info("Onboarding logo displayed status: {}", true);
     }
@@ -63,9 +74,9 @@ public class OnboardingScreen {
      */
     public void isLoginButtonDisplayed() {
         logger.debug("Waiting for login button to be displayed...");
-        waitHelper.waitForVisibility(loginButton);
-        boolean isDisplayed = loginButton.isDisplayed();
-        boolean isEnabled = loginButton.isEnabled();
+        ElementState loginButtonState = waitHelper.waitForVisibility(loginButton);
+        boolean isDisplayed = loginButtonState.isDisplayed();
+        boolean isEnabled = loginButtonState.isEnabled();
         logger.info("Login button displayed: {}, enabled: {}", isDisplayed, isEnabled);
         assertThat("Login button should be displayed", isDisplayed, equalTo(true));
         assertThat("Login button should be enabled", isEnabled, equalTo(true));
@@ -73,18 +84,18 @@ public class OnboardingScreen {
 
     public void verifyFreeTrailText(String expectedText) {
         logger.debug("waiting for free trail button to be displayed");
-        waitHelper.waitForVisibility(freeTrailButton);
-        assertThat(freeTrailButton.isDisplayed(), equalTo(true));
-        String actualText = freeTrailButton.getText();
+        ElementState freeTrailState = waitHelper.waitForVisibility(freeTrailButton);
+        assertThat(freeTrailState.isDisplayed(), equalTo(true));
+        String actualText = freeTrailState.getText();
         assertThat("Expected Text " + expectedText + " is not same as actual text : " + actualText, actualText.equalsIgnoreCase(expectedText));
         logger.info(" Free Trail text is matched with expected text");
     }
 
     public void verifyOnBoardingMainText(String expectedText) {
         logger.debug("waiting for onboarding main text to be displayed");
-        waitHelper.waitForVisibility(onBoardingMainText);
-        assertThat(onBoardingMainText.isDisplayed(), equalTo(true));
-        String actualText = onBoardingMainText.getText();
+        ElementState mainTextState = waitHelper.waitForVisibility(onBoardingMainText);
+        assertThat(mainTextState.isDisplayed(), equalTo(true));
+        String actualText = mainTextState.getText();
         assertThat("Expected Text " + expectedText + " is not same as actual text : " + actualText, actualText.equalsIgnoreCase(expectedText));
         logger.info(" Onboarding Main text is matched with expected text");
     }
@@ -94,16 +105,52 @@ public class OnboardingScreen {
      */
     public void verifyCreateAccountButton(String expectedText) {
         logger.debug("Waiting for create account button to be displayed...");
-        waitHelper.waitForVisibility(createAccount);
-        boolean isDisplayed = createAccount.isDisplayed();
-        boolean isEnabled = createAccount.isEnabled();
-        String actualText = createAccount.getText();
+        ElementState createAccountState = waitHelper.waitForVisibility(createAccount);
+        boolean isDisplayed = createAccountState.isDisplayed();
+        boolean isEnabled = createAccountState.isEnabled();
+        String actualText = createAccountState.getText();
         assertThat("Expected Text " + expectedText + " is not same as actual text : " + actualText, actualText.equalsIgnoreCase(expectedText));
         logger.info("Create Account button displayed and text matched: {}, enabled: {}", isDisplayed, isEnabled);
         assertThat("Login button should be displayed", isDisplayed, equalTo(true));
         assertThat("Login button should be enabled", isEnabled, equalTo(true));
     }
 
+    /**
+     * Checks whether the onboarding login button is on screen, without failing if it is not.
+     *
+     * @return true if the login button is displayed.
+     */
+    public boolean isLoginButtonPresent() {
+        try {
+            return loginButton.isDisplayed();
+        } catch (NoSuchElementException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Verifies the whole onboarding screen with a single page source request once the logo is visible:
+     * logo, login button, free trial, main text and create account button.
+     */
+    public void verifyOnboardingScreen(String expectedFreeTrailText, String expectedMainText,
+                                       String expectedCreateAccountText) {
+        logger.debug("Waiting for onboarding logo to be displayed...");
+        waitHelper.waitForVisibility(onBoardingLogo);
+        SnapshotAssert.on(driver)
+                .displayed(onBoardingLogo, "Onboarding Logo")
+                .displayed(loginButton, "Login button")
+                .enabled(loginButton, "Login button")
+                .displayed(freeTrailButton, "Free Trail button")
+                .textEqualsIgnoreCase(freeTrailButton, "Free Trail button", expectedFreeTrailText)
+                .displayed(onBoardingMainText, "Onboarding Main text")
+                .textEqualsIgnoreCase(onBoardingMainText, "Onboarding Main text", expectedMainText)
+                .displayed(createAccount, "Create Account button")
+                .enabled(createAccount, "Create Account button")
+                .textEqualsIgnoreCase(createAccount, "Create Account button", expectedCreateAccountText)
+                .verify();
+        logger.info("Onboarding screen verified");
+    }
+
     /**
      * ************************************************************************************
      * ******************************* Task Methods ***************************************
@@ -116,4 +163,50 @@ public class OnboardingScreen {
         loginButton.click();
         logger.info("Clicked on Login");
     }
+
+    /**
+     * ************************************************************************************
+     * **************************** Performance Methods ***********************************
+     * ************************************************************************************
+     */
+
+    /**
+     * Asserts the "appStartup" budget: from launching the stopped app to the onboarding logo being visible.
+     */
+    public void verifyStartupWithinBudget() {
+        PerformanceBudgets.getInstance().measure("appStartup",
+                () -> {
+                    driver.executeScript("mobile: terminateApp", Map.of("appId", appPackage()));
+                    ScreenRegistry.invalidateElements();
+                },
+                () -> {
+                    driver.executeScript("mobile: activateApp", Map.of("appId", appPackage()));
+                    waitHelper.waitForVisibility(onBoardingLogo);
+                });
+        logger.info("App startup is within budget");
+    }
+
+    /**
+     * Asserts the "loginTransition" budget: from clicking on Login to the login screen being visible.
+     * Each sample relaunches the app to come back to this screen, which leaves the app on the login screen.
+     */
+    public void verifyLoginTransitionWithinBudget() {
+        LoginScreen loginScreen = ScreenRegistry.get(LoginScreen.class);
+        PerformanceBudgets.getInstance().measure("loginTransition",
+                () -> {
+                    driver.executeScript("mobile: terminateApp", Map.of("appId", appPackage()));
+                    driver.executeScript("mobile: activateApp", Map.of("appId", appPackage()));
+                    ScreenRegistry.invalidateElements();
+                    waitHelper.waitForClickable(loginButton);
+                },
+                () -> {
+                    loginButton.click();
+                    loginScreen.waitUntilDisplayed();
+                });
+        logger.info("Login transition is within budget");
+    }
+
+    private static String appPackage() {
+        return String.valueOf(DriverConfig.getInstance("androidCapabilities.yaml").getProperty("appPackage"));
+    }
 }
@@ -0,0 +1,104 @@
+package com.automation.screens;
+
+import com.automation.driver.DriverPool;
+import com.automation.locators.LocatedElement;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ScreenRegistry creates screen objects lazily and keeps one instance of each screen per driver session.
+ * <p>
+ * A screen is built (PageFactory proxies included) the first time a test asks for it on a session and reused
+ * afterwards, together with the elements its fields already resolved. The screens of a session are dropped
+ * when the pool quits the session or resets its app, since their elements and navigation state are then gone.
+ * Screens must have a public constructor taking the {@link AppiumDriver}.
+ */
+public final class ScreenRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenRegistry.class);
+
+    private static final Map<SessionId, Map<Class<?>, Object>> screens = new ConcurrentHashMap<>();
+
+    static {
+        DriverPool.getInstance().addSessionResetListener(screens::remove);
+    }
+
+    private ScreenRegistry() {
+    }
+
+    /**
+     * Gets the screen of the given type for the calling thread's session, creating it on first use.
+     *
+     * @param screenType The screen class, e.g. LoginScreen.class.
+     * @return The screen bound to the calling thread's driver.
+     */
+    public static <T> T get(Class<T> screenType) {
+        AppiumDriver driver = DriverPool.getInstance().getDriver();
+        Map<Class<?>, Object> sessionScreens =
+                screens.computeIfAbsent(driver.getSessionId(), sessionId -> new ConcurrentHashMap<>());
+        Object screen = sessionScreens.get(screenType);
+        if (screen == null) {
+            // Built outside the map: a screen constructor may get other screens of the same session
+            Object created = create(screenType, driver);
+            screen = sessionScreens.putIfAbsent(screenType, created);
+            if (screen == null) {
+                screen = created;
+            }
+        }
+        return screenType.cast(screen);
+    }
+
+    /**
+     * Drops the elements resolved by the screens of the calling thread's session, so the next access to each
+     * screen field looks its element up again.
+     */
+    public static void invalidateElements() {
+        AppiumDriver driver = DriverPool.getInstance().getDriver();
+        Map<Class<?>, Object> sessionScreens = screens.get(driver.getSessionId());
+        if (sessionScreens != null) {
+            sessionScreens.values().forEach(ScreenRegistry::invalidateElements);
+        }
+    }
+
+    private static void invalidateElements(Object screen) {
+        for (Field field : screen.getClass().getDeclaredFields()) {
+            if (!WebElement.class.equals(field.getType())) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                Object element = field.get(screen);
+                if (element instanceof LocatedElement) {
+                    ((LocatedElement) element).getElementLocator().invalidate();
+                }
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Failed to read field " + field.getName() + " of " + screen, e);
+            }
+        }
+    }
+
+    private static Object create(Class<?> screenType, AppiumDriver driver) {
+        logger.debug("Creating {} for session {}", screenType.getSimpleName(), driver.getSessionId());
+        try {
+            Constructor<?> constructor = screenType.getConstructor(AppiumDriver.class);
+            return constructor.newInstance(driver);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Failed to create screen " + screenType.getName(), cause);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Screen " + screenType.getName()
+                    + " needs a public constructor taking an AppiumDriver", e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.automation.snapshot;
+
+import com.automation.locators.CompiledLocator;
+import com.automation.locators.ScreenFieldDecorator;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ScreenSnapshot is the UI hierarchy of a screen at one point in time, fetched with a single page source request.
+ * <p>
+ * Each node keeps the attributes UiAutomator2 reports (resource-id, text, class, content-desc, enabled,
+ * displayed...), so many element checks can be answered locally instead of with one request each. A snapshot
+ * stops being current as soon as an element of the session is called through a {@link ScreenFieldDecorator}
+ * screen, since any interaction may have changed the screen.
+ */
+public final class ScreenSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenSnapshot.class);
+
+    private final List<Map<String, String>> nodes;
+    private final long capturedAtNanos;
+    private final WebDriver driver;
+    private final long interactionsAtCapture;
+
+    private ScreenSnapshot(List<Map<String, String>> nodes, WebDriver driver, long interactionsAtCapture) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.capturedAtNanos = System.nanoTime();
+        this.driver = driver;
+        this.interactionsAtCapture = interactionsAtCapture;
+    }
+
+    /**
+     * Fetches the page source of the current screen and parses it.
+     *
+     * @param driver The driver of the session.
+     * @return The snapshot of the current screen.
+     */
+    public static ScreenSnapshot capture(WebDriver driver) {
+        long start = System.nanoTime();
+        long interactions = ScreenFieldDecorator.getInteractions(driver);
+        ScreenSnapshot snapshot = parse(driver.getPageSource(), driver, interactions);
+        logger.debug("Captured snapshot of {} nodes in {} ms", snapshot.nodes.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return snapshot;
+    }
+
+    /**
+     * Parses a page source document.
+     *
+     * @param pageSource The XML page source.
+     * @return The snapshot of the document.
+     */
+    public static ScreenSnapshot parse(String pageSource) {
+        return parse(pageSource, null, 0);
+    }
+
+    private static ScreenSnapshot parse(String pageSource, WebDriver driver, long interactions) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Element root = builder.parse(new InputSource(new StringReader(pageSource))).getDocumentElement();
+            List<Map<String, String>> nodes = new ArrayList<>();
+            collect(root, nodes);
+            return new ScreenSnapshot(nodes, driver, interactions);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse page source", e);
+        }
+    }
+
+    private static void collect(Node node, List<Map<String, String>> nodes) {
+        if (node.getNodeType() != Node.ELEMENT_NODE) {
+            return;
+        }
+        NamedNodeMap attributes = node.getAttributes();
+        Map<String, String> values = new HashMap<>(attributes.getLength() * 2);
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            values.put(attribute.getNodeName(), attribute.getNodeValue());
+        }
+        values.putIfAbsent("class", node.getNodeName());
+        nodes.add(values);
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            collect(child, nodes);
+        }
+    }
+
+    /**
+     * Finds the first node matching a locator.
+     *
+     * @param locator A locator expressible as attributes (see {@link CompiledLocator#getAttributes()}).
+     * @return The node's attributes, or null if no node matches or the locator has no attribute form.
+     */
+    public Map<String, String> find(CompiledLocator locator) {
+        Map<String, String> expected = locator.getAttributes();
+        if (expected == null) {
+            return null;
+        }
+        for (Map<String, String> node : nodes) {
+            if (matches(node, expected)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets how long ago the snapshot was taken.
+     *
+     * @return The age in milliseconds.
+     */
+    public long getAgeMillis() {
+        return (System.nanoTime() - capturedAtNanos) / 1_000_000;
+    }
+
+    /**
+     * Checks whether the snapshot still reflects the screen.
+     *
+     * @param maxAgeMillis Age after which the snapshot is not trusted anyway.
+     * @return false if it is older than that, or an element of its session was called since it was captured.
+     */
+    public boolean isCurrent(long maxAgeMillis) {
+        return getAgeMillis() <= maxAgeMillis
+                && (driver == null || ScreenFieldDecorator.getInteractions(driver) == interactionsAtCapture);
+    }
+
+    private static boolean matches(Map<String, String> node, Map<String, String> expected) {
+        for (Map.Entry<String, String> attribute : expected.entrySet()) {
+            if (!attribute.getValue().equals(node.get(attribute.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,150 @@
+package com.automation.snapshot;
+
+import com.automation.locators.LocatedElement;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SnapshotAssert checks the visibility, state and text of many screen elements against one page source.
+ * <p>
+ * Checks are collected first and evaluated by {@link #verify()}, which captures a single
+ * {@link ScreenSnapshot} and answers every check from it. An element the snapshot cannot answer for
+ * (no attribute form of its locator, not in the hierarchy, or snapshot no longer current because it is older
+ * than the allowed age or an element of the screen was called since) is queried live instead, after every
+ * check the snapshot can answer. All failures are reported together.
+ * <pre>
+ * SnapshotAssert.on(driver)
+ *         .displayed(logo, "Onboarding logo")
+ *         .enabled(loginButton, "Login button")
+ *         .textEqualsIgnoreCase(mainText, "Main text", expectedText)
+ *         .verify();
+ * </pre>
+ */
+public final class SnapshotAssert {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotAssert.class);
+
+    private static final long DEFAULT_MAX_AGE_MILLIS = 2000;
+
+    private final WebDriver driver;
+    private final long maxAgeMillis;
+    private final List<Check> checks = new ArrayList<>();
+
+    private SnapshotAssert(WebDriver driver, long maxAgeMillis) {
+        this.driver = driver;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public static SnapshotAssert on(WebDriver driver) {
+        return new SnapshotAssert(driver, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * Creates an assertion whose snapshot is trusted for at most the given age.
+     *
+     * @param driver       The driver of the session.
+     * @param maxAgeMillis Age after which the remaining checks are answered by live queries, even if no element
+     *                     was called since the snapshot.
+     * @return A new SnapshotAssert.
+     */
+    public static SnapshotAssert on(WebDriver driver, long maxAgeMillis) {
+        return new SnapshotAssert(driver, maxAgeMillis);
+    }
+
+    public SnapshotAssert displayed(WebElement element, String name) {
+        checks.add(new Check(element, name + " should be displayed", "displayed", "true", false));
+        return this;
+    }
+
+    public SnapshotAssert enabled(WebElement element, String name) {
+        checks.add(new Check(element, name + " should be enabled", "enabled", "true", false));
+        return this;
+    }
+
+    public SnapshotAssert textEquals(WebElement element, String name, String expectedText) {
+        checks.add(new Check(element, name + " text should be '" + expectedText + "'", "text", expectedText, false));
+        return this;
+    }
+
+    public SnapshotAssert textEqualsIgnoreCase(WebElement element, String name, String expectedText) {
+        checks.add(new Check(element, name + " text should be '" + expectedText + "' ignoring case", "text",
+                expectedText, true));
+        return this;
+    }
+
+    /**
+     * Evaluates every check against one snapshot of the screen.
+     *
+     * @throws AssertionError listing every failed check.
+     */
+    public void verify() {
+        ScreenSnapshot snapshot = ScreenSnapshot.capture(driver);
+        String[] actuals = new String[checks.size()];
+        // Answer from the snapshot first: a live query is an interaction, after which the snapshot is not current
+        for (int i = 0; i < checks.size() && snapshot.isCurrent(maxAgeMillis); i++) {
+            Check check = checks.get(i);
+            if (check.element instanceof LocatedElement) {
+                Map<String, String> node =
+                        snapshot.find(((LocatedElement) check.element).getElementLocator().getLocator());
+                actuals[i] = node == null ? null : node.get(check.attribute);
+            }
+        }
+        List<String> failures = new ArrayList<>();
+        int liveQueries = 0;
+        for (int i = 0; i < checks.size(); i++) {
+            Check check = checks.get(i);
+            String actual = actuals[i];
+            if (actual == null) {
+                liveQueries++;
+                actual = queryLive(check);
+            }
+            if (!check.accepts(actual)) {
+                failures.add(check.description + " but was '" + actual + "'");
+            }
+        }
+        logger.debug("Verified {} checks with one snapshot and {} live queries", checks.size(), liveQueries);
+        if (!failures.isEmpty()) {
+            throw new AssertionError("Screen verification failed:\n  " + String.join("\n  ", failures));
+        }
+    }
+
+    private static String queryLive(Check check) {
+        try {
+            switch (check.attribute) {
+                case "displayed":
+                    return String.valueOf(check.element.isDisplayed());
+                case "enabled":
+                    return String.valueOf(check.element.isEnabled());
+                default:
+                    return check.element.getText();
+            }
+        } catch (RuntimeException e) {
+            return "not found: " + e.getClass().getSimpleName();
+        }
+    }
+
+    private static final class Check {
+        private final WebElement element;
+        private final String description;
+        private final String attribute;
+        private final String expected;
+        private final boolean ignoreCase;
+
+        private Check(WebElement element, String description, String attribute, String expected, boolean ignoreCase) {
+            this.element = element;
+            this.description = description;
+            this.attribute = attribute;
+            this.expected = expected;
+            this.ignoreCase = ignoreCase;
+        }
+
+        private boolean accepts(String actual) {
+            return ignoreCase ? expected.equalsIgnoreCase(actual) : expected.equals(actual);
+        }
+    }
+}
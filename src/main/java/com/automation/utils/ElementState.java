@@ -0,0 +1,47 @@
+package com.automation.utils;
+
+import org.openqa.selenium.WebElement;
+
+/**
+ * ElementState is what a wait learned about an element, returned so callers do not ask the server again.
+ * <p>
+ * Properties the wait already checked are answered from memory. Any other property is fetched from the
+ * element the first time it is asked for and remembered afterwards.
+ */
+public class ElementState {
+    private final WebElement element;
+    private Boolean displayed;
+    private Boolean enabled;
+    private String text;
+
+    ElementState(WebElement element, Boolean displayed, Boolean enabled) {
+        this.element = element;
+        this.displayed = displayed;
+        this.enabled = enabled;
+    }
+
+    public WebElement getElement() {
+        return element;
+    }
+
+    public boolean isDisplayed() {
+        if (displayed == null) {
+            displayed = element.isDisplayed();
+        }
+        return displayed;
+    }
+
+    public boolean isEnabled() {
+        if (enabled == null) {
+            enabled = element.isEnabled();
+        }
+        return enabled;
+    }
+
+    public String getText() {
+        if (text == null) {
+            text = element.getText();
+        }
+        return text;
+    }
+}
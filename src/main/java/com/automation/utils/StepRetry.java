@@ -0,0 +1,152 @@
+package com.automation.utils;
+
+import com.automation.artifacts.ArtifactCapture;
+import com.automation.config.DriverConfig;
+import com.automation.driver.DriverPool;
+import com.automation.logging.TestEvents;
+import com.automation.metrics.StepContext;
+import com.automation.screens.ScreenRegistry;
+import org.openqa.selenium.InvalidElementStateException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.function.Supplier;
+
+/**
+ * StepRetry runs a screen step again when it fails on a transient error, instead of failing the whole test class.
+ * <p>
+ * When an element was missing, stale or not interactable, the elements cached by the screens of the session are
+ * dropped and the step runs again on fresh lookups. When the session was lost, the pool replaces it and the step
+ * runs again on the new session, so a step should get its screens from {@link ScreenRegistry} inside the step.
+ * A timeout is not retried, as the wait already gave the screen all of its time, and assertion failures and
+ * other errors are never retried either.
+ * <p>
+ * Steps nest: an element error is retried by the innermost step, a lost session only by the outermost step,
+ * as only that one can start over on a new session. Passed steps and lost sessions feed the circuit breaker of
+ * the device (see {@link DriverPool}); element errors come from the app, not the device, so they do not. Retries and their pause are set with "stepRetries" and "stepRetryBackoff".
+ * The step is put in the logging MDC while it runs, and its outcome and duration are emitted as a {@link TestEvents}
+ * event. Steps listed in "artifactsSteps" are captured by {@link ArtifactCapture} once they pass.
+ */
+public final class StepRetry {
+    private static final Logger logger = LoggerFactory.getLogger(StepRetry.class);
+
+    private static final ThreadLocal<Integer> depth = ThreadLocal.withInitial(() -> 0);
+
+    // Error a nested step gave up on, so the enclosing steps do not retry it once more
+    private static final ThreadLocal<Throwable> exhausted = new ThreadLocal<>();
+
+    private StepRetry() {
+    }
+
+    /**
+     * Runs a step, retrying it on transient errors.
+     *
+     * @param step   Name of the step for the logs, e.g. "LoginScreen.enterEmail".
+     * @param action The step.
+     */
+    public static void run(String step, Runnable action) {
+        call(step, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a step returning a value, retrying it on transient errors.
+     *
+     * @param step   Name of the step for the logs.
+     * @param action The step.
+     * @return The value of the first successful attempt.
+     */
+    public static <T> T call(String step, Supplier<T> action) {
+        DriverConfig config = DriverConfig.getInstance("androidCapabilities.yaml");
+        int retries = config.getStepRetries();
+        long backoffMillis = config.getTimeouts().getStepRetryBackoff().toMillis();
+        DriverPool pool = DriverPool.getInstance();
+        boolean outermost = depth.get() == 0;
+        depth.set(depth.get() + 1);
+        String enclosingStep = MDC.get(TestEvents.STEP);
+        MDC.put(TestEvents.STEP, step);
+        String screen = StepContext.getScreenMethod();
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = action.get();
+                    pool.recordStepSuccess();
+                    TestEvents.stepFinished(step, screen, true, attempt, (System.nanoTime() - start) / 1_000_000);
+                    ArtifactCapture.getInstance().captureStep(step);
+                    return result;
+                } catch (WebDriverException e) {
+                    boolean sessionLost = isSessionLost(e);
+                    if (e == exhausted.get() || (sessionLost && !outermost) || (!sessionLost && !isTransient(e))) {
+                        TestEvents.stepFinished(step, screen, false, attempt, (System.nanoTime() - start) / 1_000_000);
+                        throw e;
+                    }
+                    if (sessionLost) {
+                        pool.recordStepFailure();
+                    }
+                    if (attempt > retries) {
+                        exhausted.set(e);
+                        logger.error("Step {} failed after {} attempt(s)", step, attempt);
+                        TestEvents.stepFinished(step, screen, false, attempt, (System.nanoTime() - start) / 1_000_000);
+                        throw e;
+                    }
+                    logger.warn("Step {} failed on attempt {} of {}, retrying {}: {}", step, attempt, retries + 1,
+                            sessionLost ? "on a new session" : "with fresh element lookups", firstLine(e));
+                    sleep(backoffMillis);
+                    if (sessionLost) {
+                        pool.replaceDriver();
+                    } else {
+                        ScreenRegistry.invalidateElements();
+                    }
+                } catch (RuntimeException | Error e) {
+                    TestEvents.stepFinished(step, screen, false, attempt, (System.nanoTime() - start) / 1_000_000);
+                    throw e;
+                }
+            }
+        } finally {
+            if (enclosingStep == null) {
+                MDC.remove(TestEvents.STEP);
+            } else {
+                MDC.put(TestEvents.STEP, enclosingStep);
+            }
+            if (outermost) {
+                depth.remove();
+                exhausted.remove();
+            } else {
+                depth.set(depth.get() - 1);
+            }
+        }
+    }
+
+    private static boolean isTransient(WebDriverException e) {
+        return e instanceof NotFoundException || e instanceof StaleElementReferenceException
+                || e instanceof InvalidElementStateException;
+    }
+
+    private static boolean isSessionLost(WebDriverException e) {
+        return e instanceof NoSuchSessionException || e instanceof UnreachableBrowserException;
+    }
+
+    private static String firstLine(Throwable e) {
+        String message = String.valueOf(e.getMessage());
+        int end = message.indexOf('\n');
+        return end < 0 ? message : message.substring(0, end);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry a step", e);
+        }
+    }
+}
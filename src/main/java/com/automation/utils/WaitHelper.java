@@ -1,27 +1,121 @@
 package com.automation.utils;
 
 import com.automation.config.DriverConfig;
-import io.appium.java_client.AppiumDriver;
+import com.automation.config.TimeoutConfig;
+import com.automation.locators.LocatedElement;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
+import java.util.function.Supplier;
 
+/**
+ * WaitHelper waits for screen conditions with adaptive polling.
+ * <p>
+ * The first poll follows the check almost immediately and the interval then grows by half up to
+ * "waitMaxPollInterval", so a condition that is already met costs no sleep while a slow one does not
+ * flood the server. Screen fields are first resolved with a server-side wait (see "serverSideWait").
+ * The element waits return an {@link ElementState} holding what they observed.
+ */
 public class WaitHelper {
+    private static final double BACKOFF_FACTOR = 1.5;
 
-    private final WebDriverWait wait;
+    private final Duration defaultTimeout;
+    private final long initialPollMillis;
+    private final long maxPollMillis;
+    private final boolean serverSideWait;
 
-    public WaitHelper(AppiumDriver driver) {
-        int waitTime = DriverConfig.getInstance("androidCapabilities.yaml").getExplicitWaitTime();
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(waitTime));
+    public WaitHelper() {
+        DriverConfig config = DriverConfig.getInstance("androidCapabilities.yaml");
+        TimeoutConfig timeouts = config.getTimeouts();
+        this.defaultTimeout = timeouts.getExplicitWait();
+        this.initialPollMillis = timeouts.getWaitInitialPollInterval().toMillis();
+        this.maxPollMillis = timeouts.getWaitMaxPollInterval().toMillis();
+        this.serverSideWait = config.isServerSideWaitEnabled();
     }
 
-    public void waitForVisibility(WebElement element) {
-        wait.until(ExpectedConditions.visibilityOf(element));
+    public ElementState waitForVisibility(WebElement element) {
+        return waitForVisibility(element, defaultTimeout);
     }
 
-    public void waitForClickable(WebElement element) {
-        wait.until(ExpectedConditions.elementToBeClickable(element));
+    public ElementState waitForVisibility(WebElement element, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        resolve(element, timeout);
+        until(() -> element.isDisplayed() ? Boolean.TRUE : null, remaining(deadline), "visibility of " + element);
+        return new ElementState(element, true, null);
+    }
+
+    public ElementState waitForClickable(WebElement element) {
+        return waitForClickable(element, defaultTimeout);
+    }
+
+    public ElementState waitForClickable(WebElement element, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        resolve(element, timeout);
+        until(() -> element.isDisplayed() && element.isEnabled() ? Boolean.TRUE : null, remaining(deadline),
+                "element to be clickable: " + element);
+        return new ElementState(element, true, true);
+    }
+
+    /**
+     * Polls a condition until it returns a value other than null or false.
+     * Element lookups failing or going stale while polling count as "not yet".
+     *
+     * @param condition   The condition to evaluate.
+     * @param timeout     How long to keep polling.
+     * @param description What is waited for, used in the timeout message.
+     * @return The first value that is neither null nor false.
+     * @throws TimeoutException if the condition is not met in time.
+     */
+    public <T> T until(Supplier<T> condition, Duration timeout, String description) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long interval = initialPollMillis;
+        RuntimeException lastError = null;
+        while (true) {
+            try {
+                T value = condition.get();
+                if (value != null && !Boolean.FALSE.equals(value)) {
+                    return value;
+                }
+            } catch (NotFoundException | StaleElementReferenceException e) {
+                lastError = e;
+            }
+            long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0) {
+                throw new TimeoutException(String.format("Expected condition failed: waiting for %s (tried for %d ms)",
+                        description, timeout.toMillis()), lastError);
+            }
+            sleep(Math.min(interval, remainingMillis));
+            interval = Math.min((long) (interval * BACKOFF_FACTOR), maxPollMillis);
+        }
+    }
+
+    /**
+     * Lets the server wait for a screen field to appear, so polling only starts once it exists.
+     */
+    private void resolve(WebElement element, Duration timeout) {
+        if (serverSideWait && element instanceof LocatedElement) {
+            try {
+                ((LocatedElement) element).getElementLocator().awaitElement(timeout);
+            } catch (NotFoundException e) {
+                throw new TimeoutException(String.format("Expected condition failed: waiting for presence of %s"
+                        + " (tried for %d ms)", element, timeout.toMillis()), e);
+            }
+        }
+    }
+
+    private static Duration remaining(long deadline) {
+        return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting", e);
+        }
     }
 }
@@ -0,0 +1,184 @@
+package com.automation.accounts;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the lease files of {@link AccountLeaseStore}: takeover after a crash, leases without an owner
+ * and concurrent claimants. Each store stands for one run sharing the lease directory.
+ */
+public class AccountLeaseStoreTest {
+    private static final Duration EXPIRY = Duration.ofHours(1);
+    private static final int CLAIMANTS = 8;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("account-leases");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void keepsALeaseUntilItIsReleased() {
+        AccountLeaseStore first = new AccountLeaseStore(directory, EXPIRY);
+        AccountLeaseStore second = new AccountLeaseStore(directory, EXPIRY);
+
+        assertTrue(first.tryAcquire("premium", "jane@example.com"));
+        assertFalse(second.tryAcquire("premium", "jane@example.com"));
+        assertTrue(second.tryAcquire("premium", "john@example.com"));
+
+        first.release("premium", "jane@example.com");
+        assertTrue(second.tryAcquire("premium", "jane@example.com"));
+    }
+
+    @Test
+    public void takesOverTheLeaseOfACrashedProcess() throws Exception {
+        AccountLeaseStore crashed = new AccountLeaseStore(directory, EXPIRY);
+        assertTrue(crashed.tryAcquire("premium", "jane@example.com"));
+        Path lease = leaseFile();
+        Files.writeString(lease, Files.readString(lease).replaceFirst("pid=\\d+", "pid=" + exitedPid()));
+
+        AccountLeaseStore next = new AccountLeaseStore(directory, EXPIRY);
+
+        assertTrue(next.tryAcquire("premium", "jane@example.com"));
+        assertTrue(Files.readString(lease).contains("pid=" + ProcessHandle.current().pid()));
+        // The crashed run's late release must not delete the lease taken over
+        crashed.release("premium", "jane@example.com");
+        assertTrue(Files.exists(lease));
+    }
+
+    @Test
+    public void takesOverAnExpiredLeaseOfAnotherHost() throws IOException {
+        Path lease = leaseFile("premium", "jane@example.com");
+        long since = System.currentTimeMillis() - EXPIRY.toMillis();
+        Files.writeString(lease, "pid=1\nhost=other-host\nsince=" + (since + 60_000) + "\n");
+        AccountLeaseStore store = new AccountLeaseStore(directory, EXPIRY);
+
+        assertFalse(store.tryAcquire("premium", "jane@example.com"));
+
+        Files.writeString(lease, "pid=1\nhost=other-host\nsince=" + (since - 60_000) + "\n");
+        assertTrue(store.tryAcquire("premium", "jane@example.com"));
+    }
+
+    @Test
+    public void keepsALeaseWithoutOwnerUntilItsFileExpires() throws IOException {
+        Path lease = leaseFile("premium", "jane@example.com");
+        Files.writeString(lease, "", StandardCharsets.UTF_8);
+        AccountLeaseStore store = new AccountLeaseStore(directory, EXPIRY);
+
+        assertFalse(store.tryAcquire("premium", "jane@example.com"));
+
+        Files.setLastModifiedTime(lease,
+                FileTime.fromMillis(System.currentTimeMillis() - EXPIRY.toMillis() - 60_000));
+        assertTrue(store.tryAcquire("premium", "jane@example.com"));
+    }
+
+    @Test(timeOut = 30_000)
+    public void givesAFreeAccountToOneOfManyClaimants() throws Exception {
+        assertEquals(race(), 1);
+        assertEquals(leaseFiles().size(), 1);
+    }
+
+    @Test(timeOut = 30_000)
+    public void givesAnAbandonedLeaseToOneOfManyClaimants() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Path lease = leaseFile("premium", "jane@example.com");
+            Files.writeString(lease, "pid=" + exitedPid() + "\nhost=" + hostOfThisProcess() + "\nsince=0\n");
+
+            assertEquals(race(), 1, "Claimants holding the lease in round " + round);
+            try (Stream<Path> files = Files.list(directory)) {
+                // No temporary or renamed lease is left behind
+                assertEquals(files.count(), 1);
+            }
+            Files.delete(lease);
+        }
+    }
+
+    /**
+     * Lets {@link #CLAIMANTS} runs try to lease the same account at once.
+     *
+     * @return The number of runs that got the lease.
+     */
+    private int race() throws Exception {
+        CyclicBarrier start = new CyclicBarrier(CLAIMANTS);
+        List<Callable<Boolean>> claimants = new ArrayList<>();
+        for (int i = 0; i < CLAIMANTS; i++) {
+            AccountLeaseStore store = new AccountLeaseStore(directory, EXPIRY);
+            claimants.add(() -> {
+                start.await();
+                return store.tryAcquire("premium", "jane@example.com");
+            });
+        }
+        ExecutorService threads = Executors.newFixedThreadPool(CLAIMANTS);
+        try {
+            int acquired = 0;
+            for (Future<Boolean> claimed : threads.invokeAll(claimants)) {
+                if (claimed.get()) {
+                    acquired++;
+                }
+            }
+            return acquired;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private Path leaseFile(String userType, String account) throws IOException {
+        AccountLeaseStore store = new AccountLeaseStore(directory, EXPIRY);
+        assertTrue(store.tryAcquire(userType, account));
+        Path lease = leaseFile();
+        Files.delete(lease);
+        return lease;
+    }
+
+    private Path leaseFile() throws IOException {
+        List<Path> leases = leaseFiles();
+        assertEquals(leases.size(), 1);
+        return leases.get(0);
+    }
+
+    private List<Path> leaseFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".lease")).toList();
+        }
+    }
+
+    private static long exitedPid() throws Exception {
+        Process process = new ProcessBuilder("true").start();
+        process.waitFor();
+        return process.pid();
+    }
+
+    private static String hostOfThisProcess() throws IOException {
+        return InetAddress.getLocalHost().getHostName();
+    }
+}
@@ -0,0 +1,71 @@
+package com.automation.impact;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of how {@link ChangeSet} reads changed test sources. The sources are read from the working tree,
+ * and their version before the change is taken to be the same.
+ */
+public class ChangeSetTest {
+    private static final String TESTS = "src/test/java/com/automation/tests/";
+
+    @Test
+    public void runsEverythingWhenOnlyTheBaseTestChanged() {
+        ChangeSet changes = ChangeSet.fromChangedFiles(List.of(TESTS + "BaseTest.java"), ChangeSetTest::read);
+
+        assertTrue(changes.isEverything());
+        assertTrue(changes.affects("com.automation.tests.LoginScreenTest.loginScreenVerificationTest", Set.of()));
+    }
+
+    @Test
+    public void runsEverythingWhenATestListenerChanged() {
+        ChangeSet changes = ChangeSet.fromChangedFiles(List.of(TESTS + "ResumeMethodInterceptor.java"),
+                ChangeSetTest::read);
+
+        assertTrue(changes.isEverything());
+    }
+
+    @Test
+    public void runsOnlyAChangedTestClass() {
+        ChangeSet changes = ChangeSet.fromChangedFiles(List.of(TESTS + "LoginScreenTest.java"), ChangeSetTest::read);
+
+        assertFalse(changes.isEverything());
+        assertEquals(changes.getTestClasses(), Set.of("com.automation.tests.LoginScreenTest"));
+        assertTrue(changes.affects("com.automation.tests.LoginScreenTest.loginScreenVerificationTest", Set.of()));
+        assertFalse(changes.affects("com.automation.tests.OnBoardingScreenTest.onBoardingTest",
+                Set.of("OnboardingScreen")));
+    }
+
+    @Test
+    public void runsOnlyTheTestsOfAChangedLocator() {
+        String screen = "src/main/java/com/automation/screens/LoginScreen.java";
+        ChangeSet changes = ChangeSet.fromChangedFiles(List.of(screen),
+                file -> read(file).replace("@resource-id='password_input'", "@resource-id='password'"));
+
+        assertFalse(changes.isEverything());
+        assertEquals(changes.getLocators(), Set.of("LoginScreen.passwordField"));
+        assertTrue(changes.affects("com.automation.tests.LoginScreenTest.loginScreenVerificationTest",
+                Set.of("LoginScreen", "LoginScreen.passwordField")));
+        assertFalse(changes.affects("com.automation.tests.OnBoardingScreenTest.onBoardingTest",
+                Set.of("OnboardingScreen", "OnboardingScreen.loginButton")));
+    }
+
+    private static String read(String file) {
+        try {
+            return Files.readString(Paths.get(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.automation.logging;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the secret detection and masking of {@link SecretMasker}.
+ */
+public class SecretMaskerTest {
+
+    @Test
+    public void masksNameValuePairs() {
+        assertEquals(SecretMasker.mask("Logging in with user=jane password=hunter2 on device-1"),
+                "Logging in with user=jane password=**** on device-1");
+        assertEquals(SecretMasker.mask("api_key: abc123, pwd=x"), "api_key: ****, pwd=****");
+    }
+
+    @Test
+    public void masksJsonValues() {
+        assertEquals(SecretMasker.mask("{\"token\": \"eyJhbGciOi.J9\", \"user\": \"jane\"}"),
+                "{\"token\": \"****\", \"user\": \"jane\"}");
+        assertEquals(SecretMasker.mask("{\"Authorization\":\"Basic amFuZTpodW50ZXIy\"}"),
+                "{\"Authorization\":\"****\"}");
+    }
+
+    @Test
+    public void masksQuotedValuesUpToTheClosingQuote() {
+        assertEquals(SecretMasker.mask("{\"password\": \"correct horse, battery \\\"staple\\\"\"}"),
+                "{\"password\": \"****\"}");
+        assertEquals(SecretMasker.mask("secret='two words' user=jane"), "secret='****' user=jane");
+        assertEquals(SecretMasker.mask("password=\"truncated value"), "password=\"****");
+        assertEquals(SecretMasker.mask("secret='cut short, by the\nnext line"), "secret='****\nnext line");
+    }
+
+    @Test
+    public void leavesOtherPairsAlone() {
+        String text = "{\"username\": \"jane doe\", \"tokenizer\": \"words\", \"device\": \"emulator-5554\"}";
+        assertEquals(SecretMasker.mask(text), text);
+        assertEquals(SecretMasker.mask("Step LoginScreen.enterPassword passed"),
+                "Step LoginScreen.enterPassword passed");
+        assertNull(SecretMasker.mask(null));
+        assertEquals(SecretMasker.mask(""), "");
+    }
+
+    @Test
+    public void masksWholeFieldsNamedLikeSecrets() {
+        assertTrue(SecretMasker.isSecret("authToken"));
+        assertTrue(SecretMasker.isSecret("PASSWORD"));
+        assertFalse(SecretMasker.isSecret("username"));
+        assertFalse(SecretMasker.isSecret(null));
+        assertEquals(SecretMasker.mask("authToken", "two words"), SecretMasker.MASK);
+        assertEquals(SecretMasker.mask("message", "password=hunter2"), "password=****");
+        assertNull(SecretMasker.mask("password", null));
+    }
+}
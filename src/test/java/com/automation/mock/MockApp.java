@@ -0,0 +1,217 @@
+package com.automation.mock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MockApp is the scripted UI served by the {@link MockAppiumServer}: named screens, each a UiAutomator2 view
+ * hierarchy, and the navigation between them (see mockApp.xml).
+ * <p>
+ * The script is parsed once and shared by all sessions; {@link #render(String, Map)} builds the hierarchy a
+ * session currently sees. Every element gets a stable element id, shared by the elements with the same
+ * resource-id on different screens.
+ */
+final class MockApp {
+    private static final Logger logger = LoggerFactory.getLogger(MockApp.class);
+
+    static final String ELEMENT_ID = "mock-id";
+    static final String CLICK_TARGET = "mock-click";
+    static final String CLICK_REQUIRES = "mock-requires";
+    static final String AUTH_SCREEN = "mock-auth-screen";
+    static final String AUTH_FILE = "mock-auth-file";
+
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 2340;
+    private static final int ROW_HEIGHT = 120;
+
+    private static final Map<String, MockApp> apps = new HashMap<>();
+    private static final ReentrantLock appsLock = new ReentrantLock();
+
+    private final String appPackage;
+    private final String startScreen;
+    private final String authScreen;
+    private final String authFile;
+    private final Set<String> issuedTokens = ConcurrentHashMap.newKeySet();
+    private final Map<String, Element> screens = new LinkedHashMap<>();
+    private final DocumentBuilder builder;
+
+    private MockApp(String resource) {
+        try (InputStream input = MockApp.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new RuntimeException("Could not find mock app script: " + resource);
+            }
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            builder = factory.newDocumentBuilder();
+            Element app = builder.parse(input).getDocumentElement();
+            appPackage = app.getAttribute("package");
+            startScreen = app.getAttribute("start");
+            authScreen = app.getAttribute(AUTH_SCREEN);
+            authFile = app.getAttribute(AUTH_FILE);
+            Map<String, String> elementIds = new HashMap<>();
+            for (Node child = app.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element && "screen".equals(child.getNodeName())) {
+                    Element screen = (Element) child;
+                    assignIds(screen, screen.getAttribute("name"), elementIds);
+                    screens.put(screen.getAttribute("name"), screen);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load mock app script: " + resource, e);
+        }
+        if (!screens.containsKey(startScreen)) {
+            throw new RuntimeException("Start screen '" + startScreen + "' is not defined in " + resource);
+        }
+        logger.info("Loaded mock app {} with screens {}", resource, screens.keySet());
+    }
+
+    /**
+     * Gets the parsed script of a resource, parsing it on first use.
+     *
+     * @param resource Classpath resource of the script, e.g. "mockApp.xml".
+     * @return The shared script.
+     */
+    static MockApp load(String resource) {
+        appsLock.lock();
+        try {
+            return apps.computeIfAbsent(resource, MockApp::new);
+        } finally {
+            appsLock.unlock();
+        }
+    }
+
+    String getStartScreen() {
+        return startScreen;
+    }
+
+    boolean hasScreen(String name) {
+        return screens.containsKey(name);
+    }
+
+    /**
+     * @return The screen reached once logged in, or an empty string if the app has no login.
+     */
+    String getAuthScreen() {
+        return authScreen;
+    }
+
+    /**
+     * @return The file the app keeps its login in, relative to its data directory, or an empty string.
+     */
+    String getAuthFile() {
+        return authFile;
+    }
+
+    /**
+     * Issues the token of a new login. Tokens outlive the session that logged in, like a server-side session.
+     */
+    String issueToken() {
+        String token = "mock-session-" + UUID.randomUUID();
+        issuedTokens.add(token);
+        return token;
+    }
+
+    boolean isValidToken(String token) {
+        return token != null && issuedTokens.contains(token);
+    }
+
+    /**
+     * Builds the hierarchy of a screen with the defaults UiAutomator2 reports and the text typed so far.
+     *
+     * @param screen    The screen, or null if the app is not running.
+     * @param typedText Text typed into the inputs, by element id.
+     * @return A new document; it keeps the mock-* attributes.
+     */
+    synchronized Document render(String screen, Map<String, String> typedText) {
+        Document document = builder.newDocument();
+        Element hierarchy = document.createElement("hierarchy");
+        hierarchy.setAttribute("rotation", "0");
+        document.appendChild(hierarchy);
+        if (screen != null) {
+            int[] row = {0};
+            for (Node child = screens.get(screen).getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element) {
+                    Element element = (Element) document.importNode(child, true);
+                    hierarchy.appendChild(element);
+                    fillDefaults(element, 0, typedText, row);
+                }
+            }
+        }
+        return document;
+    }
+
+    private void fillDefaults(Element element, int index, Map<String, String> typedText, int[] row) {
+        String typed = typedText.get(element.getAttribute(ELEMENT_ID));
+        if (typed != null) {
+            // Password fields show one bullet per typed character
+            element.setAttribute("text", "true".equals(element.getAttribute("password"))
+                    ? "•".repeat(typed.length()) : typed);
+        }
+        setDefault(element, "index", String.valueOf(index));
+        setDefault(element, "package", appPackage);
+        setDefault(element, "class", element.getTagName());
+        setDefault(element, "text", "");
+        setDefault(element, "resource-id", "");
+        setDefault(element, "content-desc", "");
+        setDefault(element, "checkable", "false");
+        setDefault(element, "checked", "false");
+        setDefault(element, "clickable", "false");
+        setDefault(element, "enabled", "true");
+        setDefault(element, "focusable", "false");
+        setDefault(element, "focused", "false");
+        setDefault(element, "password", "false");
+        setDefault(element, "selected", "false");
+        setDefault(element, "displayed", "true");
+        if (row[0] == 0) {
+            setDefault(element, "bounds", "[0,0][" + SCREEN_WIDTH + "," + SCREEN_HEIGHT + "]");
+        } else {
+            setDefault(element, "bounds", "[0," + row[0] * ROW_HEIGHT + "][" + SCREEN_WIDTH + ","
+                    + (row[0] + 1) * ROW_HEIGHT + "]");
+        }
+        row[0]++;
+        int childIndex = 0;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                fillDefaults((Element) child, childIndex++, typedText, row);
+            }
+        }
+    }
+
+    private static void setDefault(Element element, String name, String value) {
+        if (!element.hasAttribute(name)) {
+            element.setAttribute(name, value);
+        }
+    }
+
+    private static void assignIds(Element parent, String path, Map<String, String> elementIds) {
+        int index = 0;
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                Element element = (Element) child;
+                String childPath = path + "/" + index++;
+                String resourceId = element.getAttribute("resource-id");
+                String key = resourceId.isEmpty() ? childPath : resourceId;
+                element.setAttribute(ELEMENT_ID, elementIds.computeIfAbsent(key, k -> "element-" + (elementIds.size() + 1)));
+                assignIds(element, childPath, elementIds);
+            }
+        }
+    }
+}
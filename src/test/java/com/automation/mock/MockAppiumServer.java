@@ -0,0 +1,474 @@
+package com.automation.mock;
+
+import com.automation.config.DriverConfig;
+import com.automation.config.MockServerConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.openqa.selenium.remote.DriverCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * MockAppiumServer is an embedded W3C WebDriver / Appium endpoint serving a scripted app ({@link MockApp}),
+ * so the screens, waits, driver pool and instrumentation can run without a device.
+ * <p>
+ * It is selected with "mockServer: true" in androidCapabilities.yaml (or -Dautomation.mockServer=true); every
+ * session is then opened on the shared instance of {@link #getInstance(DriverConfig)}. It supports sessions,
+ * element lookup (id, accessibility id, class name, xpath, UiSelector), element state, text and attributes,
+ * click and typing, page source, timeouts, screenshots, settings and the "mobile:" app management and file scripts,
+ * and stands in for the device's performance data ("mobile: getPerformanceData", "dumpsys gfxinfo").
+ * Each command can be delayed to simulate a real device.
+ */
+public class MockAppiumServer {
+    private static final Logger logger = LoggerFactory.getLogger(MockAppiumServer.class);
+
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+    // 1x1 transparent PNG
+    private static final String SCREENSHOT = "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhf"
+            + "DwAChwGA60e6kgAAAABJRU5ErkJggg==";
+
+    static {
+        // Headers and body are written separately; without TCP_NODELAY each response waits for a delayed ACK (~40 ms)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+    private static MockAppiumServer instance;
+
+    private final MockApp app;
+    private final Function<String, Long> latencyMillis;
+    private final Map<String, MockSession> sessions = new ConcurrentHashMap<>();
+    private final Json json = new Json();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Starts a mock server.
+     *
+     * @param app           Classpath resource of the scripted app, e.g. "mockApp.xml".
+     * @param port          Port to listen on, 0 for any free port.
+     * @param latencyMillis Delay added to each command, by command name.
+     */
+    public MockAppiumServer(String app, int port, Function<String, Long> latencyMillis) {
+        this.app = MockApp.load(app);
+        this.latencyMillis = latencyMillis;
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start the mock Appium server on port " + port, e);
+        }
+        // One virtual thread per request: simulated latency sleeps without holding a platform thread
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mock-appium-", 1).factory());
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("Mock Appium server serving {} at {}", app, getUrl());
+    }
+
+    /**
+     * Gets the mock server shared by all sessions of the run, starting it on first use.
+     *
+     * @param config The configuration holding the mock server settings.
+     * @return The shared mock server.
+     */
+    public static MockAppiumServer getInstance(DriverConfig config) {
+        instanceLock.lock();
+        try {
+            if (instance == null) {
+                MockServerConfig mockServer = config.getMockServer();
+                instance = new MockAppiumServer(mockServer.getApp(), mockServer.getPort(),
+                        mockServer::getLatencyMillis);
+            }
+            return instance;
+        } finally {
+            instanceLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the URL to open sessions on.
+     *
+     * @return The base URL of the server.
+     */
+    public URL getUrl() {
+        try {
+            return URI.create("http://127.0.0.1:" + server.getAddress().getPort()).toURL();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("Invalid mock server URL", e);
+        }
+    }
+
+    /**
+     * Gets the number of open sessions.
+     *
+     * @return The session count.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Stops the server and drops every session.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        sessions.clear();
+        logger.info("Mock Appium server stopped");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        Object value;
+        try {
+            Map<String, Object> body = readBody(exchange);
+            value = dispatch(exchange.getRequestMethod(), routePath(exchange.getRequestURI().getPath()), body);
+        } catch (MockException e) {
+            status = e.getStatus();
+            value = error(e.getError(), e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Mock server failed to answer {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            status = 500;
+            value = error("unknown error", String.valueOf(e.getMessage()));
+        }
+        byte[] response = json.toJson(Collections.singletonMap("value", value)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+
+    private Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream input = exchange.getRequestBody()) {
+            body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (body.isBlank()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return json.toType(body, Json.MAP_TYPE);
+        } catch (JsonException e) {
+            throw MockException.invalidArgument("Request body is not a JSON object: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Strips a base path such as /wd/hub, keeping the path from /session or /status on.
+     */
+    private static String[] routePath(String path) {
+        int start = path.indexOf("/session");
+        if (start < 0) {
+            start = path.indexOf("/status");
+        }
+        if (start < 0) {
+            throw new MockException(404, "unknown command", "Unknown command: " + path);
+        }
+        return path.substring(start + 1).split("/");
+    }
+
+    private Object dispatch(String method, String[] path, Map<String, Object> body) {
+        if ("status".equals(path[0])) {
+            delay(DriverCommand.STATUS);
+            return statusValue();
+        }
+        if (path.length == 1) {
+            requireMethod(method, "POST", path);
+            delay(DriverCommand.NEW_SESSION);
+            return newSession(body);
+        }
+        MockSession session = sessions.get(path[1]);
+        if (session == null) {
+            throw new MockException(404, "invalid session id", "No active session with id " + path[1]);
+        }
+        if (path.length == 2) {
+            requireMethod(method, "DELETE", path);
+            delay(DriverCommand.QUIT);
+            sessions.remove(session.getId());
+            return null;
+        }
+        switch (path[2]) {
+            case "element":
+            case "elements":
+                return path.length == 3 ? find(session, path[2], null, body) : element(method, session, path, body);
+            case "source":
+                delay(DriverCommand.GET_PAGE_SOURCE);
+                return session.getPageSource();
+            case "timeouts":
+                delay(DriverCommand.SET_TIMEOUT);
+                return timeouts(method, session, body);
+            case "execute":
+                delay(DriverCommand.EXECUTE_SCRIPT);
+                return execute(session, body);
+            case "screenshot":
+                delay(DriverCommand.SCREENSHOT);
+                return SCREENSHOT;
+            case "appium":
+                if (path.length == 4 && "settings".equals(path[3])) {
+                    delay("getSettings");
+                    return Collections.emptyMap();
+                }
+                break;
+            default:
+                break;
+        }
+        throw new MockException(404, "unknown command", "Unknown command: " + method + " /" + String.join("/", path));
+    }
+
+    private Map<String, Object> newSession(Map<String, Object> body) {
+        Map<String, Object> capabilities = new LinkedHashMap<>();
+        Object requested = body.get("capabilities");
+        if (requested instanceof Map) {
+            Map<?, ?> w3c = (Map<?, ?>) requested;
+            if (w3c.get("alwaysMatch") instanceof Map) {
+                ((Map<?, ?>) w3c.get("alwaysMatch")).forEach((name, value) -> capabilities.put(name.toString(), value));
+            }
+            if (w3c.get("firstMatch") instanceof List && !((List<?>) w3c.get("firstMatch")).isEmpty()
+                    && ((List<?>) w3c.get("firstMatch")).get(0) instanceof Map) {
+                ((Map<?, ?>) ((List<?>) w3c.get("firstMatch")).get(0))
+                        .forEach((name, value) -> capabilities.put(name.toString(), value));
+            }
+        }
+        capabilities.putIfAbsent("platformName", "Android");
+        capabilities.putIfAbsent("appium:automationName", "UiAutomator2");
+        MockSession session = new MockSession(UUID.randomUUID().toString(), app, capabilities);
+        sessions.put(session.getId(), session);
+        logger.debug("Opened mock session {} on {}", session.getId(), capabilities.get("appium:deviceName"));
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("sessionId", session.getId());
+        value.put("capabilities", capabilities);
+        return value;
+    }
+
+    private Object find(MockSession session, String kind, String parentId, Map<String, Object> body) {
+        boolean single = "element".equals(kind);
+        if (parentId == null) {
+            delay(single ? DriverCommand.FIND_ELEMENT : DriverCommand.FIND_ELEMENTS);
+        } else {
+            delay(single ? DriverCommand.FIND_CHILD_ELEMENT : DriverCommand.FIND_CHILD_ELEMENTS);
+        }
+        String using = stringParameter(body, "using");
+        String value = stringParameter(body, "value");
+        List<String> found = session.findElements(using, value, parentId);
+        if (found.isEmpty() && session.getImplicitWaitMillis() > 0) {
+            // Nothing else changes the scripted screen, so one look after the implicit wait is enough
+            sleep(session.getImplicitWaitMillis());
+            found = session.findElements(using, value, parentId);
+        }
+        if (single) {
+            if (found.isEmpty()) {
+                throw MockException.noSuchElement("No element found using " + using + ": " + value);
+            }
+            return elementReference(found.get(0));
+        }
+        List<Object> references = new ArrayList<>();
+        found.forEach(elementId -> references.add(elementReference(elementId)));
+        return references;
+    }
+
+    private Object element(String method, MockSession session, String[] path, Map<String, Object> body) {
+        String elementId = path[3];
+        String action = path.length > 4 ? path[4] : "";
+        switch (action) {
+            case "element":
+            case "elements":
+                return find(session, action, elementId, body);
+            case "displayed":
+                delay(DriverCommand.IS_ELEMENT_DISPLAYED);
+                return Boolean.parseBoolean(session.getAttribute(elementId, "displayed"));
+            case "enabled":
+                delay(DriverCommand.IS_ELEMENT_ENABLED);
+                return Boolean.parseBoolean(session.getAttribute(elementId, "enabled"));
+            case "selected":
+                delay(DriverCommand.IS_ELEMENT_SELECTED);
+                return Boolean.parseBoolean(session.getAttribute(elementId, "selected"));
+            case "text":
+                delay(DriverCommand.GET_ELEMENT_TEXT);
+                return session.getAttribute(elementId, "text");
+            case "name":
+                delay(DriverCommand.GET_ELEMENT_TAG_NAME);
+                return session.getAttribute(elementId, "class");
+            case "attribute":
+                delay(DriverCommand.GET_ELEMENT_ATTRIBUTE);
+                return session.getAttribute(elementId, path.length > 5 ? path[5] : "");
+            case "rect":
+                delay(DriverCommand.GET_ELEMENT_RECT);
+                return session.getRect(elementId);
+            case "click":
+                requireMethod(method, "POST", path);
+                delay(DriverCommand.CLICK_ELEMENT);
+                session.click(elementId);
+                return null;
+            case "value":
+                requireMethod(method, "POST", path);
+                delay(DriverCommand.SEND_KEYS_TO_ELEMENT);
+                session.sendKeys(elementId, typedText(body));
+                return null;
+            case "clear":
+                requireMethod(method, "POST", path);
+                delay(DriverCommand.CLEAR_ELEMENT);
+                session.clear(elementId);
+                return null;
+            default:
+                throw new MockException(404, "unknown command",
+                        "Unknown command: " + method + " /" + String.join("/", path));
+        }
+    }
+
+    private Object timeouts(String method, MockSession session, Map<String, Object> body) {
+        if ("POST".equals(method)) {
+            Object implicit = body.get("implicit");
+            if (implicit instanceof Number) {
+                session.setImplicitWaitMillis(((Number) implicit).longValue());
+            }
+            return null;
+        }
+        Map<String, Object> timeouts = new LinkedHashMap<>();
+        timeouts.put("implicit", session.getImplicitWaitMillis());
+        timeouts.put("pageLoad", 300000);
+        timeouts.put("script", 30000);
+        return timeouts;
+    }
+
+    private Object execute(MockSession session, Map<String, Object> body) {
+        String script = stringParameter(body, "script").trim();
+        switch (script) {
+            case "mobile: terminateApp":
+                session.terminateApp();
+                return true;
+            case "mobile: activateApp":
+            case "mobile: startActivity":
+                session.activateApp();
+                return null;
+            case "mobile: deepLink":
+                session.restartApp();
+                return null;
+            case "mobile: queryAppState":
+                // 4: running in foreground, 1: not running
+                return session.isAppRunning() ? 4 : 1;
+            case "mobile: pullFile":
+                return session.pullFile(stringParameter(scriptArguments(body), "remotePath"));
+            case "mobile: pushFile": {
+                Map<String, Object> arguments = scriptArguments(body);
+                session.pushFile(stringParameter(arguments, "remotePath"), stringParameter(arguments, "payload"));
+                return null;
+            }
+            case "mobile: getPerformanceData":
+                return session.getPerformanceData(stringParameter(scriptArguments(body), "dataType"));
+            case "mobile: shell": {
+                Map<String, Object> arguments = scriptArguments(body);
+                Object args = arguments.get("args");
+                if (!"dumpsys".equals(arguments.get("command")) || !(args instanceof List)
+                        || ((List<?>) args).isEmpty() || !"gfxinfo".equals(((List<?>) args).get(0))) {
+                    throw MockException.invalidArgument("Only 'dumpsys gfxinfo' is supported: " + arguments);
+                }
+                return session.getGfxInfo();
+            }
+            default:
+                if (script.startsWith("mobile:")) {
+                    return null;
+                }
+                throw new MockException(404, "unknown method", "Only 'mobile:' scripts are supported: " + script);
+        }
+    }
+
+    private static String typedText(Map<String, Object> body) {
+        Object text = body.get("text");
+        if (text != null) {
+            return text.toString();
+        }
+        Object value = body.get("value");
+        if (value instanceof List) {
+            StringBuilder keys = new StringBuilder();
+            ((List<?>) value).forEach(keys::append);
+            return keys.toString();
+        }
+        throw MockException.invalidArgument("Missing 'text' to type");
+    }
+
+    /**
+     * @return The map a "mobile:" script takes as its only argument.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> scriptArguments(Map<String, Object> body) {
+        Object args = body.get("args");
+        if (args instanceof List && !((List<?>) args).isEmpty() && ((List<?>) args).get(0) instanceof Map) {
+            return (Map<String, Object>) ((List<?>) args).get(0);
+        }
+        throw MockException.invalidArgument("Expected a map of arguments for the script");
+    }
+
+    private static String stringParameter(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value == null) {
+            throw MockException.invalidArgument("Missing '" + name + "' parameter");
+        }
+        return value.toString();
+    }
+
+    private static void requireMethod(String method, String expected, String[] path) {
+        if (!expected.equals(method)) {
+            throw new MockException(405, "unknown method", method + " is not supported on /" + String.join("/", path));
+        }
+    }
+
+    private static Map<String, Object> elementReference(String elementId) {
+        return Collections.singletonMap(ELEMENT_KEY, elementId);
+    }
+
+    private static Map<String, Object> statusValue() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("ready", true);
+        status.put("message", "Mock Appium server is ready");
+        return status;
+    }
+
+    private static Map<String, Object> error(String error, String message) {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("error", error);
+        value.put("message", message);
+        value.put("stacktrace", "");
+        return value;
+    }
+
+    private void delay(String command) {
+        Long millis = latencyMillis.apply(command);
+        if (millis != null && millis > 0) {
+            sleep(millis);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while simulating latency", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.automation.mock;
+
+/**
+ * MockException is a W3C WebDriver error answered by the mock server, e.g. "no such element" with status 404.
+ */
+final class MockException extends RuntimeException {
+    private final int status;
+    private final String error;
+
+    MockException(int status, String error, String message) {
+        super(message);
+        this.status = status;
+        this.error = error;
+    }
+
+    static MockException noSuchElement(String message) {
+        return new MockException(404, "no such element", message);
+    }
+
+    static MockException staleElement(String elementId) {
+        return new MockException(404, "stale element reference",
+                "The element '" + elementId + "' is not on the current screen");
+    }
+
+    static MockException invalidArgument(String message) {
+        return new MockException(400, "invalid argument", message);
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,16 @@
+package com.automation.mock;
+
+import com.automation.config.DriverConfig;
+import com.automation.driver.AppiumServerProvider;
+
+import java.net.URL;
+
+/**
+ * MockServerProvider opens the sessions of a run with "mockServer" enabled on the shared {@link MockAppiumServer}.
+ */
+public class MockServerProvider implements AppiumServerProvider {
+    @Override
+    public URL getServerUrl(DriverConfig config) {
+        return MockAppiumServer.getInstance(config).getUrl();
+    }
+}
@@ -0,0 +1,454 @@
+package com.automation.mock;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MockSession is the state of one session on the mock server: the screen the app shows, the text typed into
+ * its inputs and the implicit wait. Elements are found in the rendered hierarchy of the current screen, so a
+ * reference to an element that left the screen goes stale like on a device.
+ * <p>
+ * The app keeps its login in its auth file while it runs. Files pushed while it is stopped are read by its next
+ * launch; terminating or restarting it clears its data, so every test still starts logged out.
+ * <p>
+ * Its resource usage is synthetic: CPU and memory follow the screen changes, and the network and frame counters
+ * grow with the time since the app was launched, restarting from zero like on a device.
+ */
+final class MockSession {
+    private static final String UI_SELECTOR = "new UiSelector()";
+    private static final Pattern AUTH_TOKEN = Pattern.compile("<string name=\"token\">([^<]*)</string>");
+    private static final Pattern SELECTOR_METHOD =
+            Pattern.compile("\\.(\\w+)\\(\\s*(?:\"((?:[^\"\\\\]|\\\\.)*)\"|(true|false|\\d+))\\s*\\)");
+
+    private final String id;
+    private final MockApp app;
+    private final Map<String, Object> capabilities;
+    private final Map<String, String> typedText = new HashMap<>();
+    private final Map<String, String> appData = new HashMap<>();
+
+    private String screen;
+    private String authToken;
+    private long launchedMillis = System.currentTimeMillis();
+    private int screenChanges;
+    private long implicitWaitMillis;
+    private Document document;
+    private Map<String, Element> elements;
+    private String pageSource;
+
+    MockSession(String id, MockApp app, Map<String, Object> capabilities) {
+        this.id = id;
+        this.app = app;
+        this.capabilities = capabilities;
+        this.screen = app.getStartScreen();
+    }
+
+    String getId() {
+        return id;
+    }
+
+    Map<String, Object> getCapabilities() {
+        return capabilities;
+    }
+
+    synchronized long getImplicitWaitMillis() {
+        return implicitWaitMillis;
+    }
+
+    synchronized void setImplicitWaitMillis(long implicitWaitMillis) {
+        this.implicitWaitMillis = implicitWaitMillis;
+    }
+
+    /**
+     * Finds the elements of the current screen matching a locator.
+     *
+     * @param using    W3C or Appium locator strategy.
+     * @param value    The selector.
+     * @param parentId Element to search under, or null for the whole screen.
+     * @return The ids of the matching elements in document order.
+     */
+    synchronized List<String> findElements(String using, String value, String parentId) {
+        Node context = parentId == null ? render().getDocumentElement() : element(parentId);
+        List<String> found = new ArrayList<>();
+        if ("xpath".equals(using)) {
+            for (Element element : evaluateXpath(value, context)) {
+                found.add(element.getAttribute(MockApp.ELEMENT_ID));
+            }
+            return found;
+        }
+        Predicate<Element> predicate = predicate(using, value);
+        NodeList candidates = ((Element) context).getElementsByTagName("*");
+        for (int i = 0; i < candidates.getLength(); i++) {
+            Element candidate = (Element) candidates.item(i);
+            if (predicate.test(candidate)) {
+                found.add(candidate.getAttribute(MockApp.ELEMENT_ID));
+            }
+        }
+        return found;
+    }
+
+    synchronized String getAttribute(String elementId, String name) {
+        Element element = element(elementId);
+        return element.hasAttribute(name) ? element.getAttribute(name) : null;
+    }
+
+    synchronized Map<String, Object> getRect(String elementId) {
+        // bounds="[left,top][right,bottom]"
+        String[] bounds = element(elementId).getAttribute("bounds").replaceAll("[\\[\\]]", ",").split(",+");
+        int left = Integer.parseInt(bounds[1]);
+        int top = Integer.parseInt(bounds[2]);
+        Map<String, Object> rect = new LinkedHashMap<>();
+        rect.put("x", left);
+        rect.put("y", top);
+        rect.put("width", Integer.parseInt(bounds[3]) - left);
+        rect.put("height", Integer.parseInt(bounds[4]) - top);
+        return rect;
+    }
+
+    /**
+     * Clicks an element, opening the screen of its mock-click attribute if the input it requires was filled.
+     */
+    synchronized void click(String elementId) {
+        Element element = element(elementId);
+        if (!"true".equals(element.getAttribute("enabled"))) {
+            return;
+        }
+        String target = element.getAttribute(MockApp.CLICK_TARGET);
+        if (target.isEmpty()) {
+            return;
+        }
+        String requires = element.getAttribute(MockApp.CLICK_REQUIRES);
+        if (!requires.isEmpty()) {
+            List<String> inputs = findElements("id", requires, null);
+            if (inputs.isEmpty() || typedText.getOrDefault(inputs.get(0), "").isEmpty()) {
+                return;
+            }
+        }
+        if (!app.hasScreen(target)) {
+            throw new MockException(500, "unknown error", "Screen '" + target + "' is not defined in the mock app");
+        }
+        if (target.equals(app.getAuthScreen()) && authToken == null) {
+            authToken = app.issueToken();
+        }
+        show(target);
+    }
+
+    synchronized void sendKeys(String elementId, String text) {
+        element(elementId);
+        typedText.merge(elementId, text, String::concat);
+        invalidate();
+    }
+
+    synchronized void clear(String elementId) {
+        element(elementId);
+        typedText.remove(elementId);
+        invalidate();
+    }
+
+    /**
+     * Renders the current screen as UiAutomator2 does, without the mock-* attributes.
+     */
+    synchronized String getPageSource() {
+        if (pageSource == null) {
+            Document source = (Document) render().cloneNode(true);
+            stripMockAttributes(source.getDocumentElement());
+            try {
+                Transformer transformer = TransformerFactory.newInstance().newTransformer();
+                transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
+                StringWriter writer = new StringWriter();
+                transformer.transform(new DOMSource(source), new StreamResult(writer));
+                pageSource = writer.toString();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to render the mock page source", e);
+            }
+        }
+        return pageSource;
+    }
+
+    synchronized void terminateApp() {
+        clearAppData();
+        show(null);
+    }
+
+    /**
+     * Launches the app if it is stopped, on its auth screen if the data pushed since holds a valid login.
+     */
+    synchronized void activateApp() {
+        if (screen == null) {
+            show(launchScreen());
+        }
+    }
+
+    /**
+     * Brings the app back to its start screen, like a reset deep link.
+     */
+    synchronized void restartApp() {
+        clearAppData();
+        launchedMillis = System.currentTimeMillis();
+        show(app.getStartScreen());
+    }
+
+    /**
+     * Reads a file of the app data, as "mobile: pullFile" does.
+     *
+     * @return The content, base64 encoded.
+     */
+    synchronized String pullFile(String remotePath) {
+        if (remotePath.equals(authPath()) && authToken != null) {
+            String prefs = "<map><string name=\"token\">" + authToken + "</string></map>";
+            return Base64.getEncoder().encodeToString(prefs.getBytes(StandardCharsets.UTF_8));
+        }
+        String content = appData.get(remotePath);
+        if (content == null) {
+            throw new MockException(500, "unknown error", "The remote file '" + remotePath + "' does not exist");
+        }
+        return content;
+    }
+
+    /**
+     * Writes a file of the app data, as "mobile: pushFile" does.
+     */
+    synchronized void pushFile(String remotePath, String payload) {
+        appData.put(remotePath, payload);
+    }
+
+    synchronized boolean isAppRunning() {
+        return screen != null;
+    }
+
+    /**
+     * Reports the app's resource usage as "mobile: getPerformanceData" does: a table whose first row holds the
+     * column names and the others the values, as strings.
+     *
+     * @param dataType "cpuinfo", "memoryinfo" or "networkinfo".
+     */
+    synchronized List<List<Object>> getPerformanceData(String dataType) {
+        long uptime = screen == null ? 0 : System.currentTimeMillis() - launchedMillis;
+        switch (dataType) {
+            case "cpuinfo":
+                return List.of(List.of("user", "kernel"), screen == null ? List.of("0", "0")
+                        : List.of(String.valueOf(4 + screenChanges % 5 * 3), String.valueOf(1 + screenChanges % 2)));
+            case "memoryinfo":
+                return List.of(List.of("totalPrivateDirty", "nativePrivateDirty", "dalvikPrivateDirty",
+                                "eglPrivateDirty", "glPrivateDirty", "totalPss", "nativePss", "dalvikPss", "eglPss",
+                                "glPss", "nativeHeapAllocatedSize", "nativeHeapSize"),
+                        screen == null ? List.of("0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0")
+                                : List.of("30000", "12000", "8000", "0", "0", String.valueOf(52000 + screenChanges * 256),
+                                "14000", "9000", "0", "0", "11000", "16000"));
+            case "networkinfo":
+                return List.of(List.of("bucketStart", "activeTime", "rxBytes", "rxPackets", "txBytes", "txPackets",
+                                "operations", "bucketDuration"),
+                        List.of(String.valueOf(launchedMillis), String.valueOf(uptime), String.valueOf(uptime * 20),
+                                String.valueOf(uptime / 50), String.valueOf(uptime * 4), String.valueOf(uptime / 100),
+                                "0", "3600000"));
+            default:
+                throw MockException.invalidArgument("Unsupported performance data type: " + dataType);
+        }
+    }
+
+    /**
+     * Reports the app's frame statistics as "dumpsys gfxinfo" does, one frame every 16 ms since its launch and
+     * one janky frame in fifty.
+     */
+    synchronized String getGfxInfo() {
+        long frames = screen == null ? 0 : (System.currentTimeMillis() - launchedMillis) / 16;
+        return "Applications Graphics Acceleration Info:\n"
+                + "Stats since: 0ns\n"
+                + "Total frames rendered: " + frames + "\n"
+                + "Janky frames: " + frames / 50 + " (" + (frames == 0 ? 0 : 2) + ".00%)\n";
+    }
+
+    private String launchScreen() {
+        String prefs = appData.get(authPath());
+        if (prefs != null) {
+            Matcher token = AUTH_TOKEN.matcher(new String(Base64.getDecoder().decode(prefs), StandardCharsets.UTF_8));
+            if (token.find() && app.isValidToken(token.group(1))) {
+                authToken = token.group(1);
+                return app.getAuthScreen();
+            }
+        }
+        return app.getStartScreen();
+    }
+
+    /**
+     * @return The remote path of the auth file, under the package the session was opened for.
+     */
+    private String authPath() {
+        Object appPackage = capabilities.get("appium:appPackage");
+        return appPackage == null || app.getAuthFile().isEmpty() ? "" : "@" + appPackage + "/" + app.getAuthFile();
+    }
+
+    private void clearAppData() {
+        typedText.clear();
+        appData.clear();
+        authToken = null;
+    }
+
+    private void show(String target) {
+        if (screen == null && target != null) {
+            launchedMillis = System.currentTimeMillis();
+        }
+        screenChanges++;
+        screen = target;
+        invalidate();
+    }
+
+    private void invalidate() {
+        document = null;
+        elements = null;
+        pageSource = null;
+    }
+
+    private Document render() {
+        if (document == null) {
+            document = app.render(screen, typedText);
+            elements = new HashMap<>();
+            NodeList all = document.getElementsByTagName("*");
+            for (int i = 0; i < all.getLength(); i++) {
+                Element element = (Element) all.item(i);
+                if (element.hasAttribute(MockApp.ELEMENT_ID)) {
+                    elements.put(element.getAttribute(MockApp.ELEMENT_ID), element);
+                }
+            }
+        }
+        return document;
+    }
+
+    private Element element(String elementId) {
+        render();
+        Element element = elements.get(elementId);
+        if (element == null) {
+            throw MockException.staleElement(elementId);
+        }
+        return element;
+    }
+
+    private static List<Element> evaluateXpath(String xpath, Node context) {
+        try {
+            NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath()
+                    .evaluate(xpath, context, XPathConstants.NODESET);
+            List<Element> result = new ArrayList<>();
+            for (int i = 0; i < nodes.getLength(); i++) {
+                if (nodes.item(i) instanceof Element && ((Element) nodes.item(i)).hasAttribute(MockApp.ELEMENT_ID)) {
+                    result.add((Element) nodes.item(i));
+                }
+            }
+            return result;
+        } catch (XPathExpressionException e) {
+            throw new MockException(400, "invalid selector", "Invalid XPath '" + xpath + "': " + e.getMessage());
+        }
+    }
+
+    private static Predicate<Element> predicate(String using, String value) {
+        switch (using) {
+            case "id":
+                // Like UiAutomator2, a bare id is looked up in the app package
+                return element -> value.equals(element.getAttribute("resource-id"))
+                        || (element.getAttribute("package") + ":id/" + value).equals(element.getAttribute("resource-id"));
+            case "accessibility id":
+                return element -> value.equals(element.getAttribute("content-desc"));
+            case "class name":
+                return element -> value.equals(element.getAttribute("class"));
+            case "-android uiautomator":
+                return uiSelector(value);
+            default:
+                throw MockException.invalidArgument("Locator strategy '" + using + "' is not supported by the mock server");
+        }
+    }
+
+    /**
+     * Parses a UiSelector chain such as new UiSelector().resourceId("header").enabled(true).
+     */
+    private static Predicate<Element> uiSelector(String selector) {
+        String chain = selector.trim();
+        if (chain.endsWith(";")) {
+            chain = chain.substring(0, chain.length() - 1);
+        }
+        if (!chain.startsWith(UI_SELECTOR)) {
+            throw new MockException(400, "invalid selector", "Unsupported UiAutomator selector: " + selector);
+        }
+        Predicate<Element> predicate = element -> true;
+        Matcher matcher = SELECTOR_METHOD.matcher(chain);
+        int position = UI_SELECTOR.length();
+        while (position < chain.length()) {
+            if (!matcher.find(position) || matcher.start() != position) {
+                throw new MockException(400, "invalid selector", "Unsupported UiAutomator selector: " + selector);
+            }
+            String argument = matcher.group(2) != null
+                    ? matcher.group(2).replaceAll("\\\\(.)", "$1") : matcher.group(3);
+            predicate = predicate.and(selectorMethod(matcher.group(1), argument, selector));
+            position = matcher.end();
+        }
+        return predicate;
+    }
+
+    private static Predicate<Element> selectorMethod(String method, String argument, String selector) {
+        switch (method) {
+            case "resourceId":
+                return element -> argument.equals(element.getAttribute("resource-id"));
+            case "resourceIdMatches":
+                return element -> element.getAttribute("resource-id").matches(argument);
+            case "text":
+                return element -> argument.equals(element.getAttribute("text"));
+            case "textContains":
+                return element -> element.getAttribute("text").contains(argument);
+            case "textStartsWith":
+                return element -> element.getAttribute("text").startsWith(argument);
+            case "textMatches":
+                return element -> element.getAttribute("text").matches(argument);
+            case "description":
+                return element -> argument.equals(element.getAttribute("content-desc"));
+            case "descriptionContains":
+                return element -> element.getAttribute("content-desc").contains(argument);
+            case "className":
+                return element -> argument.equals(element.getAttribute("class"));
+            case "enabled":
+            case "clickable":
+            case "checked":
+            case "focusable":
+            case "selected":
+                return element -> argument.equals(element.getAttribute(method));
+            default:
+                throw new MockException(400, "invalid selector",
+                        "UiSelector method '" + method + "' is not supported by the mock server: " + selector);
+        }
+    }
+
+    private static void stripMockAttributes(Element element) {
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = attributes.getLength() - 1; i >= 0; i--) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (attribute.getName().startsWith("mock-")) {
+                element.removeAttributeNode(attribute);
+            }
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                stripMockAttributes((Element) child);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.automation.scheduler;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the work stealing, the device availability and the history recording of {@link DeviceScheduler}.
+ */
+public class DeviceSchedulerTest {
+    private static final List<String> DEVICES = List.of("device-1", "device-2");
+
+    private Path directory;
+    private TestHistory history;
+
+    @BeforeMethod
+    public void createHistory() throws IOException {
+        directory = Files.createTempDirectory("device-scheduler");
+        history = TestHistory.load(directory.resolve("history.json"));
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test(timeOut = 10_000)
+    public void stealsTheLastTestOfTheDeviceWithTheMostWorkLeft() {
+        DeviceScheduler scheduler = new DeviceScheduler(history, Duration.ofSeconds(1));
+        ShardPlan plan = scheduler.plan(List.of("a", "b", "c", "d"), DEVICES);
+        assertEquals(plan.getTests("device-1"), List.of("a", "c"));
+        assertEquals(plan.getTests("device-2"), List.of("b", "d"));
+
+        // "a" holds device-1 until device-2 has run out of work and stolen "c"
+        CountDownLatch aStarted = new CountDownLatch(1);
+        CountDownLatch cStolen = new CountDownLatch(1);
+        ScheduleReport report = scheduler.run(plan, (test, device) -> {
+            switch (test) {
+                case "a" -> {
+                    aStarted.countDown();
+                    await(cStolen);
+                }
+                case "b" -> await(aStarted);
+                case "c" -> cStolen.countDown();
+                default -> {
+                }
+            }
+            return true;
+        });
+
+        assertEquals(report.getExecuted().get("device-1"), List.of("a"));
+        assertEquals(report.getExecuted().get("device-2"), List.of("b", "d", "c"));
+        assertEquals(report.getSteals(), 1);
+        assertTrue(report.isSuccessful());
+    }
+
+    @Test(timeOut = 10_000)
+    public void leavesTheQueueOfAnUnavailableDeviceToTheOthers() {
+        DeviceScheduler scheduler = new DeviceScheduler(history, Duration.ofSeconds(1),
+                device -> !device.equals("device-1"));
+        ShardPlan plan = scheduler.plan(List.of("a", "b", "c", "d"), DEVICES);
+
+        ScheduleReport report = scheduler.run(plan, (test, device) -> true);
+
+        assertEquals(report.getExecuted().get("device-1"), List.of());
+        assertEquals(Set.copyOf(report.getExecuted().get("device-2")), Set.of("a", "b", "c", "d"));
+        assertEquals(report.getSteals(), 2);
+    }
+
+    @Test(timeOut = 10_000)
+    public void countsATestWhoseRunnerThrowsAsFailed() {
+        DeviceScheduler scheduler = new DeviceScheduler(history, Duration.ofSeconds(1));
+        ShardPlan plan = scheduler.plan(List.of("a", "b"), DEVICES);
+
+        ScheduleReport report = scheduler.run(plan, (test, device) -> {
+            if (test.equals("a")) {
+                throw new IllegalStateException("No session");
+            }
+            return true;
+        });
+
+        assertEquals(report.getFailedTests(), List.of("a"));
+        assertFalse(report.isSuccessful());
+        assertEquals(history.getFailureRate("a"), 1.0);
+        assertEquals(history.getFailureRate("b"), 0.0);
+    }
+
+    @Test(timeOut = 10_000)
+    public void recordsEveryRunInTheHistory() {
+        DeviceScheduler scheduler = new DeviceScheduler(history, Duration.ofSeconds(1), device -> true, true);
+        ShardPlan plan = scheduler.plan(List.of("a", "b", "c"), DEVICES);
+
+        scheduler.run(plan, (test, device) -> true);
+
+        for (String test : List.of("a", "b", "c")) {
+            assertTrue(history.contains(test), test);
+            assertTrue(history.getEstimatedMillis(test, 60_000) < 60_000, test);
+        }
+    }
+
+    @Test(timeOut = 10_000)
+    public void recordsOnlyTheRunsItIsAskedToRecord() {
+        DeviceScheduler scheduler = new DeviceScheduler(history, Duration.ofSeconds(1));
+        ShardPlan plan = scheduler.plan(List.of("a", "b"), DEVICES);
+
+        ScheduleReport report = scheduler.run(plan, (test, device) -> true, test -> !"b".equals(test));
+
+        assertTrue(history.contains("a"));
+        assertFalse(history.contains("b"));
+        assertEquals(report.getExecuted().values().stream().mapToInt(List::size).sum(), 2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for the other device");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
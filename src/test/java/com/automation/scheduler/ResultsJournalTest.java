@@ -0,0 +1,193 @@
+package com.automation.scheduler;
+
+import com.automation.config.JournalConfig;
+import org.openqa.selenium.json.Json;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the journal file of {@link ResultsJournal}: recovery from a crash, rotation, the tests a resumed
+ * run skips and the durations replayed into the {@link TestHistory}.
+ */
+public class ResultsJournalTest {
+    private static final String LOGIN = "com.automation.tests.LoginScreenTest";
+    private static final String ONBOARDING = "com.automation.tests.OnBoardingScreenTest";
+
+    private Path directory;
+    private Path file;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("results-journal");
+        file = directory.resolve("results-journal.jsonl");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void dropsARecordCutShortByACrash() throws IOException {
+        Files.writeString(file, line("run", "crashed") + test("crashed", LOGIN + ".loginTest", "passed")
+                + "{\"type\":\"test\",\"run\":\"crashed\",\"test\":\"" + LOGIN + ".logo", StandardCharsets.UTF_8);
+
+        ResultsJournal journal = open(true);
+        journal.record(ONBOARDING + ".onBoardingTest", ONBOARDING, "passed", 1200);
+        journal.close();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            new Json().toType(line, Json.MAP_TYPE);
+        }
+        assertEquals(lines.size(), 5);
+        assertTrue(lines.get(3).contains(ONBOARDING + ".onBoardingTest"), lines.get(3));
+        assertTrue(journal.hasPassed(LOGIN + ".loginTest"));
+        assertFalse(journal.hasPassed(LOGIN + ".logo"));
+    }
+
+    @Test
+    public void keepsThePreviousJournalWhenNotResuming() throws IOException {
+        String previous = line("run", "earlier") + test("earlier", LOGIN + ".loginTest", "passed")
+                + line("end", "earlier");
+        Files.writeString(file, previous, StandardCharsets.UTF_8);
+
+        ResultsJournal journal = open(false);
+        journal.close();
+
+        assertFalse(journal.isResuming());
+        assertFalse(journal.hasPassed(LOGIN + ".loginTest"));
+        assertEquals(Files.readString(file.resolveSibling(file.getFileName() + ".previous")), previous);
+        assertFalse(Files.readString(file).contains("earlier"));
+    }
+
+    @Test
+    public void skipsOnlyTheTestsWhoseLastOutcomePassed() throws IOException {
+        Files.writeString(file, line("run", "first")
+                + test("first", LOGIN + ".passedTest", "passed")
+                + test("first", LOGIN + ".failedTest", "failed")
+                + test("first", LOGIN + ".flakyTest", "passed")
+                + line("end", "first")
+                + line("run", "second")
+                + test("second", LOGIN + ".flakyTest", "failed")
+                + test("second", LOGIN + ".skippedTest", "skipped"), StandardCharsets.UTF_8);
+
+        ResultsJournal journal = open(true);
+        journal.close();
+
+        assertTrue(journal.isResuming());
+        assertTrue(journal.hasPassed(LOGIN + ".passedTest"));
+        assertFalse(journal.hasPassed(LOGIN + ".failedTest"));
+        assertFalse(journal.hasPassed(LOGIN + ".flakyTest"));
+        assertFalse(journal.hasPassed(LOGIN + ".skippedTest"));
+        assertFalse(journal.hasPassed(LOGIN + ".unrunTest"));
+    }
+
+    @Test
+    public void replaysTheClassDurationsOfInterruptedRunsOnce() throws IOException {
+        Files.writeString(file, line("run", "ended")
+                + classLine("ended", ONBOARDING, 9000, false)
+                + line("end", "ended")
+                + line("run", "crashed")
+                + test("crashed", LOGIN + ".loginTest", "failed")
+                + classLine("crashed", LOGIN, 4000, true)
+                // Cut short by the crash: its tests ran but the class has no duration
+                + test("crashed", ONBOARDING + ".onBoardingTest", "passed"), StandardCharsets.UTF_8);
+        TestHistory history = TestHistory.load(directory.resolve("history.json"));
+
+        ResultsJournal journal = open(true);
+        journal.feedHistory(history, false);
+        journal.close();
+
+        assertEquals(history.getEstimatedMillis(LOGIN, 60_000), 8000);
+        assertEquals(history.getFailureRate(LOGIN), 1.0);
+        assertFalse(history.contains(ONBOARDING));
+
+        TestHistory next = TestHistory.load(directory.resolve("next-history.json"));
+        ResultsJournal reopened = open(true);
+        reopened.feedHistory(next, false);
+        reopened.close();
+        assertFalse(next.contains(LOGIN));
+    }
+
+    @Test
+    public void feedsTheClassWallTimesOfThisRun() {
+        TestHistory history = TestHistory.load(directory.resolve("history.json"));
+
+        ResultsJournal journal = open(false);
+        journal.record(LOGIN + ".loginTest", LOGIN, "passed", 1000);
+        journal.record(LOGIN + ".logoTest", LOGIN, "failed", 500);
+        journal.recordClass(LOGIN, 5000);
+        journal.record(ONBOARDING + ".onBoardingTest", ONBOARDING, "passed", 700);
+        journal.recordClass(ONBOARDING, 2000);
+        journal.feedHistory(history, true);
+        journal.close();
+
+        assertEquals(history.getEstimatedMillis(LOGIN, 60_000), 10_000);
+        assertEquals(history.getFailureRate(LOGIN), 1.0);
+        assertEquals(history.getEstimatedMillis(ONBOARDING, 60_000), 2000);
+    }
+
+    @Test
+    public void keepsTheWallTimeOfAClassResumedInPartOutOfTheHistory() throws IOException {
+        Files.writeString(file, line("run", "crashed")
+                + test("crashed", LOGIN + ".loginTest", "passed")
+                + test("crashed", LOGIN + ".logoTest", "failed")
+                + test("crashed", ONBOARDING + ".onBoardingTest", "failed"), StandardCharsets.UTF_8);
+        TestHistory history = TestHistory.load(directory.resolve("history.json"));
+
+        ResultsJournal journal = open(true);
+        journal.record(LOGIN + ".logoTest", LOGIN, "passed", 500);
+        journal.recordClass(LOGIN, 1500);
+        journal.record(ONBOARDING + ".onBoardingTest", ONBOARDING, "passed", 700);
+        journal.recordClass(ONBOARDING, 2000);
+        journal.feedHistory(history, true);
+        journal.close();
+
+        assertTrue(journal.isResumedInPart(LOGIN));
+        assertFalse(journal.isResumedInPart(ONBOARDING));
+        assertFalse(history.contains(LOGIN));
+        assertEquals(history.getEstimatedMillis(ONBOARDING, 60_000), 2000);
+        List<Object> journaledClasses = Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .map(line -> new Json().<Map<String, Object>>toType(line, Json.MAP_TYPE))
+                .filter(entry -> "class".equals(entry.get("type")))
+                .map(entry -> entry.get("class"))
+                .toList();
+        assertEquals(journaledClasses, List.of(ONBOARDING));
+    }
+
+    private ResultsJournal open(boolean resume) {
+        return new ResultsJournal(new JournalConfig(Map.of("resultsJournalFile", file.toString(),
+                "resume", resume)));
+    }
+
+    private static String line(String type, String run) {
+        return "{\"type\":\"" + type + "\",\"run\":\"" + run + "\",\"time\":1}\n";
+    }
+
+    private static String test(String run, String test, String status) {
+        return "{\"type\":\"test\",\"run\":\"" + run + "\",\"time\":1,\"test\":\"" + test + "\",\"class\":\""
+                + test.substring(0, test.lastIndexOf('.')) + "\",\"status\":\"" + status + "\",\"durationMs\":100}\n";
+    }
+
+    private static String classLine(String run, String testClass, long durationMillis, boolean failed) {
+        return "{\"type\":\"class\",\"run\":\"" + run + "\",\"time\":1,\"class\":\"" + testClass
+                + "\",\"durationMs\":" + durationMillis + ",\"failed\":" + failed + "}\n";
+    }
+}
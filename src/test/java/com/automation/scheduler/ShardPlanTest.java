@@ -0,0 +1,55 @@
+package com.automation.scheduler;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+/**
+ * Unit tests of the longest-processing-time-first packing of {@link ShardPlan}.
+ */
+public class ShardPlanTest {
+    private static final Map<String, Long> ESTIMATES = Map.of("A", 10L, "B", 8L, "C", 6L, "D", 5L, "E", 4L);
+
+    @Test
+    public void givesEachTestToTheLeastLoadedDeviceLongestFirst() {
+        ShardPlan plan = ShardPlan.longestProcessingTimeFirst(List.of("E", "C", "A", "D", "B"),
+                List.of("device-1", "device-2"), ESTIMATES::get);
+
+        assertEquals(plan.getTests("device-1"), List.of("A", "D"));
+        assertEquals(plan.getTests("device-2"), List.of("B", "C", "E"));
+        assertEquals(plan.getEstimatedLoadMillis("device-1"), 15);
+        assertEquals(plan.getEstimatedLoadMillis("device-2"), 18);
+        assertEquals(plan.getEstimatedMakespanMillis(), 18);
+    }
+
+    @Test
+    public void breaksTiesByTestNameAndDeviceOrder() {
+        ShardPlan plan = ShardPlan.longestProcessingTimeFirst(List.of("d", "b", "c", "a"),
+                List.of("device-2", "device-1"), test -> 1000);
+
+        assertEquals(plan.getDevices(), List.of("device-2", "device-1"));
+        assertEquals(plan.getTests("device-2"), List.of("a", "c"));
+        assertEquals(plan.getTests("device-1"), List.of("b", "d"));
+    }
+
+    @Test
+    public void leavesSpareDevicesEmpty() {
+        ShardPlan plan = ShardPlan.longestProcessingTimeFirst(List.of("A"), List.of("device-1", "device-2"),
+                ESTIMATES::get);
+
+        assertEquals(plan.getTests("device-1"), List.of("A"));
+        assertEquals(plan.getTests("device-2"), Collections.emptyList());
+        assertEquals(plan.getEstimatedLoadMillis("device-2"), 0);
+    }
+
+    @Test
+    public void rejectsAPlanWithoutDevices() {
+        assertThrows(RuntimeException.class,
+                () -> ShardPlan.longestProcessingTimeFirst(List.of("A"), Collections.emptyList(), ESTIMATES::get));
+    }
+}
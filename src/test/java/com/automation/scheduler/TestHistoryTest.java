@@ -0,0 +1,92 @@
+package com.automation.scheduler;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the weighted durations and the file store of {@link TestHistory}.
+ */
+public class TestHistoryTest {
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("test-history");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void estimatesATestWithoutHistoryWithTheDefault() {
+        TestHistory history = TestHistory.load(directory.resolve("history.json"));
+
+        assertFalse(history.contains("LoginScreenTest"));
+        assertEquals(history.getEstimatedMillis("LoginScreenTest", 60_000), 60_000);
+        assertEquals(history.getFailureRate("LoginScreenTest"), 0.0);
+    }
+
+    @Test
+    public void weighsTheLatestRunAtThirtyPercent() {
+        TestHistory history = TestHistory.load(directory.resolve("history.json"));
+
+        history.record("LoginScreenTest", 1000, false);
+        assertEquals(history.getEstimatedMillis("LoginScreenTest", 60_000), 1000);
+        history.record("LoginScreenTest", 2000, false);
+        assertEquals(history.getEstimatedMillis("LoginScreenTest", 60_000), 1300);
+        history.record("LoginScreenTest", 2000, false);
+        assertEquals(history.getEstimatedMillis("LoginScreenTest", 60_000), 1510);
+    }
+
+    @Test
+    public void expectsFailingTestsToTakeLonger() {
+        TestHistory history = TestHistory.load(directory.resolve("history.json"));
+
+        history.record("LoginScreenTest", 1000, false);
+        history.record("LoginScreenTest", 1000, true);
+
+        assertEquals(history.getFailureRate("LoginScreenTest"), 0.5);
+        assertEquals(history.getEstimatedMillis("LoginScreenTest", 60_000), 1500);
+    }
+
+    @Test
+    public void keepsTheHistoryAcrossRuns() {
+        Path file = directory.resolve("nested").resolve("history.json");
+        TestHistory history = TestHistory.load(file);
+        history.record("LoginScreenTest", 1000, false);
+        history.record("LoginScreenTest", 2000, true);
+        history.save();
+
+        TestHistory reloaded = TestHistory.load(file);
+
+        assertTrue(reloaded.contains("LoginScreenTest"));
+        assertEquals(reloaded.getEstimatedMillis("LoginScreenTest", 60_000), 1950);
+        assertEquals(reloaded.getFailureRate("LoginScreenTest"), 0.5);
+    }
+
+    @Test
+    public void startsEmptyFromAnUnreadableFile() throws IOException {
+        Path file = directory.resolve("history.json");
+        Files.writeString(file, "{\"LoginScreenTest\": {\"meanMillis\": ", StandardCharsets.UTF_8);
+
+        TestHistory history = TestHistory.load(file);
+
+        assertFalse(history.contains("LoginScreenTest"));
+    }
+}
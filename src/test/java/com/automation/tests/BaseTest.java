@@ -1,16 +1,45 @@
 package com.automation.tests;
 
-import com.automation.driver.DriverInstance;
+import com.automation.accounts.AccountPool;
+import com.automation.artifacts.ArtifactCapture;
+import com.automation.driver.DriverPool;
+import com.automation.driver.FreshSession;
+import com.automation.config.DriverConfig;
+import com.automation.locators.LocatorTimings;
+import com.automation.logging.TestEvents;
+import com.automation.metrics.CommandMetrics;
+import com.automation.metrics.ResourceSampling;
+import com.automation.metrics.StepContext;
+import com.automation.scheduler.ResultsJournal;
+import com.automation.scheduler.TestHistory;
 import io.appium.java_client.AppiumDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Listeners;
+import org.testng.xml.XmlSuite;
+
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
 
 /**
  * BaseTest serves as the base class for all test classes.
- * It initializes the Appium driver and cleans it up after tests.
+ * It initializes the Appium driver and cleans it up after tests. The device is leased for the whole test class, so
+ * classes can run in parallel but the methods of a class cannot (TestNG parallel="methods" is rejected).
+ * With session reuse enabled, the session is handed to the next test class with the app reset,
+ * unless the class is annotated with {@link FreshSession}.
+ * With test impact selection enabled, only the tests affected by the change run (see {@link ImpactMethodInterceptor}).
+ * Every outcome, and the wall time of every class, is written to the {@link ResultsJournal}, and a resumed run
+ * skips the tests that passed before (see {@link ResumeMethodInterceptor}).
  */
+@Listeners({ImpactMethodInterceptor.class, ResumeMethodInterceptor.class})
 public class BaseTest {
     // Logger for logging test actions
     private static final Logger logger = LoggerFactory.getLogger(BaseTest.class);
@@ -18,18 +47,37 @@ public class BaseTest {
     // Holds the instance of the Appium driver
     protected AppiumDriver driver;
 
-    // Instance of DriverInstance to manage driver lifecycle
-    protected DriverInstance driverInstance;
+    // Pool the driver is leased from for the lifetime of the test class
+    protected DriverPool driverPool;
+
+    // Start of the class setup, for its wall time in the results journal
+    private long classStartNanos;
+
+    @BeforeSuite(alwaysRun = true)
+    public void prewarmSessions() {
+        // The scheduled runner runs each class as a suite of its own and manages the pool itself
+        if (ScheduledSuiteRunner.isActive()) {
+            return;
+        }
+        // Open sessions in the background while TestNG sets up the first test classes
+        DriverPool.getInstance("androidCapabilities.yaml").prewarm();
+    }
 
     @BeforeClass
-    public void setUp() {
-        logger.info("Initializing DriverInstance with configuration from 'androidCapabilities.yaml'...");
+    public void setUp(ITestContext context) {
+        // A device is leased per thread for a whole test class; methods of one class must share that thread
+        if (context.getSuite().getXmlSuite().getParallel() == XmlSuite.ParallelMode.METHODS) {
+            throw new RuntimeException("parallel=\"methods\" is not supported: each test class holds one device "
+                    + "for all its methods. Use parallel=\"classes\" instead");
+        }
+        classStartNanos = System.nanoTime();
+        logger.info("Leasing a driver with configuration from 'androidCapabilities.yaml'...");
 
-        // Initialize DriverInstance with YAML configuration file
-        driverInstance = DriverInstance.getInstance("androidCapabilities.yaml");
+        // Initialize DriverPool with YAML configuration file
+        driverPool = DriverPool.getInstance("androidCapabilities.yaml");
 
-        // Retrieve the Appium driver and store it in the driver variable
-        driver = driverInstance.getDriver();
+        // Lease a device for this thread and store its driver in the driver variable
+        driver = driverPool.getDriver(requiresFreshSession());
 
         // Log the successful driver initialization
         if (driver != null) {
@@ -40,16 +88,77 @@ public class BaseTest {
         }
     }
 
+    @BeforeMethod(alwaysRun = true)
+    public void startStep(Method method) {
+        // Attribute the WebDriver commands of this test to it in the command timings
+        StepContext.startTest(getClass().getSimpleName() + "." + method.getName());
+        ResourceSampling.getInstance().startTest(driverPool == null ? null : driverPool.getLeasedDriver());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void endStep(ITestResult result) {
+        String status = result.getStatus() == ITestResult.SUCCESS ? "passed"
+                : result.getStatus() == ITestResult.FAILURE ? "failed" : "skipped";
+        long durationMillis = result.getEndMillis() - result.getStartMillis();
+        TestEvents.testFinished(status, durationMillis);
+        ResultsJournal.getInstance().record(result.getMethod().getQualifiedName(), getClass().getName(), status,
+                durationMillis);
+        if (result.getStatus() == ITestResult.FAILURE && driverPool != null) {
+            ArtifactCapture.getInstance().captureFailure(driverPool.getLeasedDriver(),
+                    getClass().getSimpleName() + "." + result.getMethod().getMethodName());
+        }
+        ResourceSampling.getInstance().endTest(getClass().getSimpleName() + "." + result.getMethod().getMethodName());
+        StepContext.endTest();
+    }
+
     @AfterClass
     public void tearDown() {
-        logger.info("Quitting the Appium driver...");
+        // Hand the test accounts of this class to the next one
+        AccountPool.getInstance().releaseThread();
+        logger.info("Releasing the Appium driver...");
 
-        // Quit the driver after tests to clean up resources
-        if (driverInstance != null) {
-            driverInstance.quitDriver();
-            logger.info("Appium driver quit successfully.");
+        // Quit or recycle the driver after tests to free the device for other threads
+        if (driverPool == null) {
+            logger.warn("DriverPool is null. Cannot quit driver.");
+        } else if (driverPool.isSessionReuseEnabled() && !requiresFreshSession()) {
+            driverPool.recycleDriver();
+            logger.info("Appium driver recycled for the next test class.");
         } else {
-            logger.warn("DriverInstance is null. Cannot quit driver.");
+            driverPool.quitDriver();
+            logger.info("Appium driver quit successfully.");
+        }
+        // The same unit as the scheduler's: the whole class, setup and teardown included
+        ResultsJournal.getInstance().recordClass(getClass().getName(),
+                (System.nanoTime() - classStartNanos) / 1_000_000);
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void closePool() {
+        if (!ScheduledSuiteRunner.isActive()) {
+            finishSuite();
+            // The durations of this run order the classes of the next scheduled runs
+            DriverConfig config = DriverConfig.getInstance("androidCapabilities.yaml");
+            TestHistory history = TestHistory.load(Paths.get(config.getSchedulerHistoryFile()));
+            ResultsJournal journal = ResultsJournal.getInstance();
+            journal.feedHistory(history, true);
+            history.save();
+            journal.close();
         }
     }
+
+    /**
+     * Quits the sessions kept warm for reuse and reports the locator and command timings and the resource samples of the run.
+     */
+    static void finishSuite() {
+        ArtifactCapture.getInstance().flush();
+        DriverPool.getInstance("androidCapabilities.yaml").shutdown();
+        logger.info("Locator lookup times:\n{}", LocatorTimings.report());
+        CommandMetrics.writeJson(Paths.get(DriverConfig.getInstance("androidCapabilities.yaml").getCommandTimingsFile()));
+        ResourceSampling resources = ResourceSampling.getInstance();
+        resources.writeJson(Paths.get(resources.getFile()));
+    }
+
+    private boolean requiresFreshSession() {
+        return getClass().isAnnotationPresent(FreshSession.class);
+    }
 }
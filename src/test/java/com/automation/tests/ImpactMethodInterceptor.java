@@ -0,0 +1,87 @@
+package com.automation.tests;
+
+import com.automation.config.DriverConfig;
+import com.automation.config.ImpactConfig;
+import com.automation.impact.ChangeSet;
+import com.automation.impact.ImpactIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ImpactMethodInterceptor runs only the tests affected by a change when test impact selection is enabled
+ * ("impactBase" and/or "impactUiDump"), and every test otherwise. Tests the index does not know are kept.
+ * <p>
+ * The selection is computed once per JVM, so the scheduled runner's one TestNG run per class reuses it.
+ */
+public class ImpactMethodInterceptor implements IMethodInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(ImpactMethodInterceptor.class);
+
+    private static final ReentrantLock selectionLock = new ReentrantLock();
+    private static volatile Selection selection;
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        ImpactConfig config = DriverConfig.getInstance("androidCapabilities.yaml").getImpact();
+        if (!config.isEnabled()) {
+            return methods;
+        }
+        Selection current = getSelection(config);
+        List<IMethodInstance> selected = new ArrayList<>();
+        for (IMethodInstance method : methods) {
+            String test = method.getMethod().getQualifiedName();
+            if (!current.index.getTests().contains(test) || current.tests.contains(test)) {
+                selected.add(method);
+            } else {
+                logger.info("Skipping {}, not affected by the change", test);
+            }
+        }
+        logger.info("Test impact selection kept {} of {} test(s)", selected.size(), methods.size());
+        return selected;
+    }
+
+    private static Selection getSelection(ImpactConfig config) {
+        selectionLock.lock();
+        try {
+            return selection == null ? select(config) : selection;
+        } finally {
+            selectionLock.unlock();
+        }
+    }
+
+    private static Selection select(ImpactConfig config) {
+        ImpactIndex index = ImpactIndex.load(Paths.get(config.getIndexFile()));
+        ChangeSet changes = null;
+        if (config.getBase() != null) {
+            changes = ChangeSet.fromGitDiff(config.getBase());
+        }
+        if (config.getUiDump() != null) {
+            if (config.getUiBaseline() == null) {
+                throw new RuntimeException("impactUiDump needs impactUiBaseline, the dumps of the previous build");
+            }
+            ChangeSet uiChanges = ChangeSet.fromUiDumps(Paths.get(config.getUiBaseline()),
+                    Paths.get(config.getUiDump()), index);
+            changes = changes == null ? uiChanges : changes.and(uiChanges);
+        }
+        selection = new Selection(index, index.select(changes));
+        return selection;
+    }
+
+    private static final class Selection {
+        private final ImpactIndex index;
+        private final Set<String> tests;
+
+        private Selection(ImpactIndex index, Set<String> tests) {
+            this.index = index;
+            this.tests = tests;
+        }
+    }
+}
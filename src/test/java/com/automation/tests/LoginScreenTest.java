@@ -1,6 +1,8 @@
 package com.automation.tests;
 
 import com.automation.screens.LoginScreen;
+import com.automation.screens.ScreenRegistry;
+import com.automation.utils.StepRetry;
 import org.testng.annotations.Test;
 
 public class LoginScreenTest extends BaseTest{
@@ -9,9 +11,10 @@ public class LoginScreenTest extends BaseTest{
     public void loginScreenVerificationTest() {
 
         String expectedHeaderSectionText = "Classic anime jams, epic movies, and endless shows. They’re all here!";
-        LoginScreen loginScreen = new LoginScreen();
+        LoginScreen loginScreen = ScreenRegistry.get(LoginScreen.class);
         loginScreen.verifyLoginScreen();
         loginScreen.verifyHeaderSection(expectedHeaderSectionText);
-        loginScreen.loginAsUser("premium");
+        // Logs in again on a new session if the session is lost on the way
+        StepRetry.run("loginAsUser", () -> ScreenRegistry.get(LoginScreen.class).loginAsUser("premium"));
     }
 }
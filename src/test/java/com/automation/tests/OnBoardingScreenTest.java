@@ -1,9 +1,10 @@
 package com.automation.tests;
 
 import com.automation.screens.OnboardingScreen;
+import com.automation.screens.ScreenRegistry;
 import org.testng.annotations.Test;
 
-public class OnBoardingScreenTest {
+public class OnBoardingScreenTest extends BaseTest {
 
     @Test
     public void onBoardingTest() {
@@ -11,11 +12,7 @@ public class OnBoardingScreenTest {
         String expectedMainText = "All your favorite anime. All in one place.";
         String expectedCreateAccountText = "or Create Account";
 
-        OnboardingScreen onBoardingScreen = new OnboardingScreen();
-        onBoardingScreen.isOnboardingLogoDisplayed();
-        onBoardingScreen.isLoginButtonDisplayed();
-        onBoardingScreen.verifyFreeTrailText(expectedFreeTrailText);
-        onBoardingScreen.verifyOnBoardingMainText(expectedMainText);
-        onBoardingScreen.verifyCreateAccountButton(expectedCreateAccountText);
+        OnboardingScreen onBoardingScreen = ScreenRegistry.get(OnboardingScreen.class);
+        onBoardingScreen.verifyOnboardingScreen(expectedFreeTrailText, expectedMainText, expectedCreateAccountText);
     }
 }
@@ -0,0 +1,39 @@
+package com.automation.tests;
+
+import com.automation.scheduler.ResultsJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ResumeMethodInterceptor skips the tests that passed in the journaled runs when the run resumes
+ * ("resume", see {@link ResultsJournal}), so only failed and unrun tests run again. A test class left without
+ * tests does not set up a session at all.
+ */
+public class ResumeMethodInterceptor implements IMethodInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(ResumeMethodInterceptor.class);
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        ResultsJournal journal = ResultsJournal.getInstance();
+        if (!journal.isResuming()) {
+            return methods;
+        }
+        List<IMethodInstance> remaining = new ArrayList<>();
+        for (IMethodInstance method : methods) {
+            String test = method.getMethod().getQualifiedName();
+            if (journal.hasPassed(test)) {
+                logger.info("Skipping {}, it passed before the run was resumed", test);
+            } else {
+                remaining.add(method);
+            }
+        }
+        logger.info("Resumed run kept {} of {} test(s)", remaining.size(), methods.size());
+        return remaining;
+    }
+}
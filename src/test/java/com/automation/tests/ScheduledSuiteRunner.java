@@ -0,0 +1,185 @@
+package com.automation.tests;
+
+import com.automation.accounts.AccountPool;
+import com.automation.config.DriverConfig;
+import com.automation.driver.DriverPool;
+import com.automation.scheduler.DeviceScheduler;
+import com.automation.scheduler.ResultsJournal;
+import com.automation.scheduler.ScheduleReport;
+import com.automation.scheduler.ShardPlan;
+import com.automation.scheduler.TestHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * ScheduledSuiteRunner runs the test classes across every configured device with the {@link DeviceScheduler}:
+ * classes are packed onto devices by their historical duration and a device that finishes early takes over
+ * queued classes of the others. Each class runs in its own TestNG run on the thread of its device.
+ * With "resume", the classes whose tests all passed in the journaled runs are left out of the plan, and the
+ * classes that run only some of their tests are not recorded in the history.
+ * <p>
+ * Run every test class, or only the ones given as arguments:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=com.automation.tests.ScheduledSuiteRunner -Dexec.classpathScope=test
+ * </pre>
+ */
+public final class ScheduledSuiteRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledSuiteRunner.class);
+
+    private static final String CONFIG_FILE = "androidCapabilities.yaml";
+    private static final String TESTS_PACKAGE = "com.automation.tests";
+
+    // Set while the runner owns the suite lifecycle, so BaseTest skips its own suite setup and teardown
+    private static volatile boolean active;
+
+    private ScheduledSuiteRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        DriverConfig config = DriverConfig.getInstance(CONFIG_FILE);
+        DriverPool pool = DriverPool.getInstance(CONFIG_FILE);
+
+        Map<String, Class<?>> testClasses = new LinkedHashMap<>();
+        for (Class<?> testClass : args.length == 0 ? discoverTestClasses() : loadTestClasses(args)) {
+            testClasses.put(testClass.getName(), testClass);
+        }
+        ResultsJournal journal = ResultsJournal.getInstance();
+        TestHistory history = TestHistory.load(Paths.get(config.getSchedulerHistoryFile()));
+        // A run that died before saving the history still left its durations in the journal
+        journal.feedHistory(history, false);
+        if (journal.isResuming()) {
+            testClasses.values().removeIf(testClass -> hasPassed(journal, testClass));
+        }
+        DeviceScheduler scheduler = new DeviceScheduler(history, config.getTimeouts().getDefaultTestDuration(),
+                pool::isDeviceAvailable, config.isSchedulerVirtualThreads());
+        ShardPlan plan = scheduler.plan(testClasses.keySet(), pool.getDeviceIds());
+
+        ScheduleReport report;
+        active = true;
+        try {
+            pool.prewarm();
+            // A class that skips the tests that passed before would record a duration short of the whole class
+            report = scheduler.run(plan, (test, device) -> runTestClass(pool, testClasses.get(test), device),
+                    test -> !journal.isResumedInPart(test));
+        } finally {
+            BaseTest.finishSuite();
+            history.save();
+            journal.close();
+            active = false;
+        }
+        System.exit(report.isSuccessful() ? 0 : 1);
+    }
+
+    static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Runs one test class on the calling thread, leasing the given device for it.
+     *
+     * @return true if no test or configuration method failed or was skipped.
+     */
+    private static boolean runTestClass(DriverPool pool, Class<?> testClass, String device) {
+        pool.pinDevice(device);
+        try {
+            logger.info("Running {} on device {}", testClass.getSimpleName(), device);
+            TestNG testng = new TestNG(false);
+            testng.setTestClasses(new Class<?>[]{testClass});
+            testng.setVerbose(0);
+            testng.run();
+            return !testng.hasFailure() && !testng.hasSkip();
+        } finally {
+            pool.detachThread();
+            AccountPool.getInstance().releaseThread();
+        }
+    }
+
+    /**
+     * Checks whether every test of a class passed in the journaled runs, so resuming can leave it out.
+     */
+    private static boolean hasPassed(ResultsJournal journal, Class<?> testClass) {
+        boolean classLevelTest = testClass.isAnnotationPresent(Test.class);
+        for (Method method : testClass.getMethods()) {
+            boolean test = method.isAnnotationPresent(Test.class)
+                    || classLevelTest && method.getDeclaringClass() == testClass;
+            if (test && !journal.hasPassed(testClass.getName() + "." + method.getName())) {
+                return false;
+            }
+        }
+        logger.info("Skipping {}, all its tests passed before the run was resumed", testClass.getSimpleName());
+        return true;
+    }
+
+    private static List<Class<?>> loadTestClasses(String[] names) throws ClassNotFoundException {
+        List<Class<?>> classes = new ArrayList<>();
+        for (String name : names) {
+            classes.add(Class.forName(name.contains(".") ? name : TESTS_PACKAGE + "." + name));
+        }
+        return classes;
+    }
+
+    /**
+     * Finds the concrete subclasses of BaseTest with test methods in the tests package.
+     */
+    private static List<Class<?>> discoverTestClasses() throws IOException, URISyntaxException {
+        List<Class<?>> classes = new ArrayList<>();
+        Enumeration<URL> directories = ScheduledSuiteRunner.class.getClassLoader()
+                .getResources(TESTS_PACKAGE.replace('.', '/'));
+        while (directories.hasMoreElements()) {
+            URL directory = directories.nextElement();
+            if (!"file".equals(directory.getProtocol())) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(Paths.get(directory.toURI()))) {
+                files.map(file -> file.getFileName().toString())
+                        .filter(file -> file.endsWith(".class") && !file.contains("$"))
+                        .map(file -> TESTS_PACKAGE + "." + file.substring(0, file.length() - ".class".length()))
+                        .map(ScheduledSuiteRunner::loadClass)
+                        .filter(ScheduledSuiteRunner::isTestClass)
+                        .forEach(classes::add);
+            }
+        }
+        Collections.sort(classes, (a, b) -> a.getName().compareTo(b.getName()));
+        logger.info("Discovered {} test class(es)", classes.size());
+        return classes;
+    }
+
+    private static Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Failed to load test class " + name, e);
+        }
+    }
+
+    private static boolean isTestClass(Class<?> candidate) {
+        if (candidate == BaseTest.class || !BaseTest.class.isAssignableFrom(candidate)
+                || Modifier.isAbstract(candidate.getModifiers())) {
+            return false;
+        }
+        for (Method method : candidate.getMethods()) {
+            if (method.isAnnotationPresent(Test.class)) {
+                return true;
+            }
+        }
+        return candidate.isAnnotationPresent(Test.class);
+    }
+}
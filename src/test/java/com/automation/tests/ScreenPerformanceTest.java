@@ -0,0 +1,20 @@
+package com.automation.tests;
+
+import com.automation.screens.OnboardingScreen;
+import com.automation.screens.ScreenRegistry;
+import org.testng.annotations.Test;
+
+public class ScreenPerformanceTest extends BaseTest {
+
+    @Test
+    public void appStartupTest() {
+        OnboardingScreen onBoardingScreen = ScreenRegistry.get(OnboardingScreen.class);
+        onBoardingScreen.verifyStartupWithinBudget();
+    }
+
+    @Test
+    public void loginTransitionTest() {
+        OnboardingScreen onBoardingScreen = ScreenRegistry.get(OnboardingScreen.class);
+        onBoardingScreen.verifyLoginTransitionWithinBudget();
+    }
+}